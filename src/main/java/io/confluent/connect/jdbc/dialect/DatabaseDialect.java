@@ -461,6 +461,197 @@ public interface DatabaseDialect extends ConnectionProvider {
     return buildUpsertQueryStatement(table, keyColumns, nonKeyColumns);
   }
 
+  /**
+   * Get the maximum number of variables that can be bound into a single prepared statement when
+   * writing multiple rows with one INSERT or UPSERT statement.
+   *
+   * <p>By default this method returns 0, which signals that the dialect does not support
+   * multi-row statements, and
+   * {@link #buildInsertStatement(TableId, Collection, Collection, TableDefinition, int)} and
+   * {@link #buildUpsertQueryStatement(TableId, Collection, Collection, TableDefinition, int)} will
+   * only be called with a row count of 1.
+   *
+   * @return the maximum number of bind variables per statement, or 0 if multi-row statements are
+   *         not supported
+   */
+  default int maxBindVariables() {
+    return 0;
+  }
+
+  /**
+   * Get the maximum length of the names of tables and other identifiers, for instance to shorten
+   * the names of the tables that the connector derives from the names of destination tables.
+   *
+   * <p>By default this method returns 0, which signals that the limit is not known.
+   *
+   * @return the maximum number of characters of an identifier, or 0 if not known
+   */
+  default int maxIdentifierLength() {
+    return 0;
+  }
+
+  /**
+   * Build the INSERT prepared statement expression for the given table and its columns that
+   * writes the given number of rows. The variables for each row appear in the same order as in
+   * {@link #buildInsertStatement(TableId, Collection, Collection, TableDefinition)}, and the rows
+   * appear one after the other.
+   *
+   * <p>By default this method calls
+   * {@link #buildInsertStatement(TableId, Collection, Collection, TableDefinition)} when the row
+   * count is 1, and throws {@link UnsupportedOperationException} otherwise.
+   *
+   * @param table         the identifier of the table; may not be null
+   * @param keyColumns    the identifiers of the columns in the primary/unique key; may not be null
+   *                      but may be empty
+   * @param nonKeyColumns the identifiers of the other columns in the table; may not be null but may
+   *                      be empty
+   * @param definition    the table definition; may be null if unknown
+   * @param rowCount      the number of rows written by the statement; must be positive
+   * @return the INSERT statement; may not be null
+   * @throws UnsupportedOperationException if the dialect does not support multi-row inserts
+   */
+  default String buildInsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    if (rowCount == 1) {
+      return buildInsertStatement(table, keyColumns, nonKeyColumns, definition);
+    }
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Build the UPSERT or MERGE prepared statement expression for the given table and its columns
+   * that writes the given number of rows. The variables for each row appear in the same order as
+   * in {@link #buildUpsertQueryStatement(TableId, Collection, Collection, TableDefinition)}, and
+   * the rows appear one after the other.
+   *
+   * <p>By default this method calls
+   * {@link #buildUpsertQueryStatement(TableId, Collection, Collection, TableDefinition)} when the
+   * row count is 1, and throws {@link UnsupportedOperationException} otherwise.
+   *
+   * @param table         the identifier of the table; may not be null
+   * @param keyColumns    the identifiers of the columns in the primary/unique key; may not be null
+   *                      but may be empty
+   * @param nonKeyColumns the identifiers of the other columns in the table; may not be null but may
+   *                      be empty
+   * @param definition    the table definition; may be null if unknown
+   * @param rowCount      the number of rows written by the statement; must be positive
+   * @return the upsert/merge statement; may not be null
+   * @throws UnsupportedOperationException if the dialect does not support multi-row upserts
+   */
+  default String buildUpsertQueryStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    if (rowCount == 1) {
+      return buildUpsertQueryStatement(table, keyColumns, nonKeyColumns, definition);
+    }
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Build the prepared statement expression that inserts the given number of rows into the given
+   * table, skipping the rows whose key already exists in the table rather than failing or
+   * updating them, such as {@code INSERT ... ON CONFLICT DO NOTHING}. The variables for each row
+   * appear in the same order as in
+   * {@link #buildInsertStatement(TableId, Collection, Collection, TableDefinition)}, and the rows
+   * appear one after the other.
+   *
+   * <p>By default this method throws {@link UnsupportedOperationException}, since there is no
+   * standard way to skip conflicting rows.
+   *
+   * @param table         the identifier of the table; may not be null
+   * @param keyColumns    the identifiers of the columns in the primary/unique key; may not be null
+   *                      but may be empty
+   * @param nonKeyColumns the identifiers of the other columns in the table; may not be null but may
+   *                      be empty
+   * @param definition    the table definition; may be null if unknown
+   * @param rowCount      the number of rows written by the statement; must be positive
+   * @return the insert statement; may not be null
+   * @throws UnsupportedOperationException if the dialect does not support skipping conflicting
+   *                                       rows, or not for the given number of rows
+   */
+  default String buildInsertIgnoreStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Build the upsert prepared statement expression that inserts the given number of rows into
+   * the given table, and combines the values of existing rows with the written values using the
+   * given aggregate functions, such as {@code SET c = c + EXCLUDED.c}. Null values are ignored by
+   * the functions. Non-key columns without a function are overwritten. The variables for each row
+   * appear in the same order as in
+   * {@link #buildUpsertQueryStatement(TableId, Collection, Collection, TableDefinition)}, and the
+   * rows appear one after the other.
+   *
+   * <p>By default this method throws {@link UnsupportedOperationException}.
+   *
+   * @param table         the identifier of the table; may not be null
+   * @param keyColumns    the identifiers of the columns in the primary/unique key; may not be null
+   *                      but may be empty
+   * @param nonKeyColumns the identifiers of the other columns in the table; may not be null but may
+   *                      be empty
+   * @param functions     the aggregate functions of the non-key columns by column name; may not be
+   *                      null but may be empty
+   * @param definition    the table definition; may be null if unknown
+   * @param rowCount      the number of rows written by the statement; must be positive
+   * @return the upsert statement; may not be null
+   * @throws UnsupportedOperationException if the dialect does not support aggregating upserts,
+   *                                       or not for the given number of rows
+   */
+  default String buildAggregateUpsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      Map<String, JdbcSinkConfig.AggregateFunction> functions,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Create a writer that loads the values of many records into the given table with the dialect's
+   * bulk load protocol, which is typically much faster than batches of INSERT statements. The
+   * columns are the key fields followed by the non-key fields of the fields metadata.
+   *
+   * <p>By default this method throws {@link UnsupportedOperationException}, since only some
+   * dialects support bulk loading.
+   *
+   * @param connection      the connection used to load the records; may not be null
+   * @param table           the identifier of the table; may not be null
+   * @param pkMode          the primary key mode; may not be null
+   * @param schemaPair      the key and value schemas of the records; may not be null
+   * @param fieldsMetadata  the metadata of the fields written to the table; may not be null
+   * @param tableDefinition the table definition; may be null if unknown
+   * @return the bulk writer; never null
+   * @throws SQLException if there is a problem creating the writer
+   * @throws UnsupportedOperationException if the dialect does not support bulk loading
+   */
+  default BulkWriter bulkWriter(
+      Connection connection,
+      TableId table,
+      JdbcSinkConfig.PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      TableDefinition tableDefinition
+  ) throws SQLException {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Build the DELETE prepared statement expression for the given table and its columns. Variables
    * for each key column should also appear in the WHERE clause of the statement.
@@ -478,6 +669,32 @@ public interface DatabaseDialect extends ConnectionProvider {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Build the DELETE prepared statement expression for the given table that deletes the rows of
+   * the given number of keys, such as {@code DELETE FROM t WHERE k IN (?,?)}. The variables of
+   * each key appear in the order of the key columns, and the keys appear one after the other.
+   *
+   * <p>By default this method calls {@link #buildDeleteStatement(TableId, Collection)} when the
+   * row count is 1, and throws {@link UnsupportedOperationException} otherwise.
+   *
+   * @param table      the identifier of the table; may not be null
+   * @param keyColumns the identifiers of the columns in the primary/unique key; may not be null
+   *                   but may be empty
+   * @param rowCount   the number of keys deleted by the statement; must be positive
+   * @return the delete statement; may not be null
+   * @throws UnsupportedOperationException if the dialect does not support multi-row deletes
+   */
+  default String buildDeleteStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      int rowCount
+  ) {
+    if (rowCount == 1) {
+      return buildDeleteStatement(table, keyColumns);
+    }
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Build the DROP TABLE statement expression for the given table.
    *
@@ -496,6 +713,116 @@ public interface DatabaseDialect extends ConnectionProvider {
    */
   String buildCreateTableStatement(TableId table, Collection<SinkRecordField> fields);
 
+  /**
+   * Build the statement expression that creates a staging table for the given columns. A staging
+   * table receives the rows of one batch before they are upserted into the destination table with
+   * the statement built by
+   * {@link #buildUpsertFromStagingStatement(TableId, TableId, Collection, Collection,
+   * TableDefinition)}, so it should be private to the connection, such as a temporary table.
+   *
+   * <p>By default this method throws {@link UnsupportedOperationException}, since only some
+   * dialects support bulk upserts.
+   *
+   * @param table  the identifier of the staging table; may not be null
+   * @param fields the information about the fields in the sink records; may not be null
+   * @return the CREATE TABLE statement; may not be null
+   * @throws UnsupportedOperationException if the dialect does not support bulk upserts
+   */
+  default String buildCreateStagingTableStatement(
+      TableId table,
+      Collection<SinkRecordField> fields
+  ) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Build the statement expression that upserts all rows of the staging table into the given
+   * table with a single set-based statement. The statement has no variables. The key columns
+   * of the rows in the staging table are expected to be unique.
+   *
+   * <p>By default this method throws {@link UnsupportedOperationException}, since only some
+   * dialects support bulk upserts.
+   *
+   * @param table         the identifier of the destination table; may not be null
+   * @param stagingTable  the identifier of the staging table; may not be null
+   * @param keyColumns    the identifiers of the columns in the primary/unique key; may not be null
+   *                      but may be empty
+   * @param nonKeyColumns the identifiers of the other columns in the table; may not be null but may
+   *                      be empty
+   * @param definition    the definition of the destination table; may be null if unknown
+   * @return the upsert/merge statement; may not be null
+   * @throws UnsupportedOperationException if the dialect does not support bulk upserts
+   */
+  default String buildUpsertFromStagingStatement(
+      TableId table,
+      TableId stagingTable,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition
+  ) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Build the statements that replace a table with a shadow table in the same catalog and schema,
+   * by renaming the table to the retired table and then the shadow table to the table. The
+   * retired table may not exist beforehand. No rows are copied, so the swap only changes
+   * metadata, and once the statements have been applied, the retired table can be dropped.
+   *
+   * <p>By default this method throws {@link UnsupportedOperationException}, since only some
+   * dialects support swapping tables.
+   *
+   * @param table        the identifier of the table to be replaced; may not be null
+   * @param shadowTable  the identifier of the shadow table that replaces it; may not be null
+   * @param retiredTable the identifier that the replaced table is renamed to; may be null if the
+   *                     table does not exist, in which case only the shadow table is renamed
+   * @return the rename statements; may not be null or empty
+   * @throws UnsupportedOperationException if the dialect does not support swapping tables
+   */
+  default List<String> buildSwapTableStatements(
+      TableId table,
+      TableId shadowTable,
+      TableId retiredTable
+  ) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Acquire the advisory lock that serializes the DDL of all tasks on the given table, waiting at
+   * most the given time. The lock belongs to the session of the connection rather than to its
+   * transaction, so it is held across the commit of DDL statements until
+   * {@link #unlockForDdl(Connection, TableId)} is called.
+   *
+   * <p>By default this method throws {@link UnsupportedOperationException}, since only some
+   * dialects support advisory locks.
+   *
+   * @param connection the database connection; may not be null
+   * @param table      the identifier of the table; may not be null
+   * @param timeoutMs  the maximum time in milliseconds to wait for the lock
+   * @return true if the lock was acquired, or false if it was not acquired in time
+   * @throws SQLException if there is an error acquiring the lock
+   * @throws UnsupportedOperationException if the dialect does not support advisory locks
+   */
+  default boolean lockForDdl(
+      Connection connection,
+      TableId table,
+      long timeoutMs
+  ) throws SQLException {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Release the advisory lock acquired with {@link #lockForDdl(Connection, TableId, long)}.
+   *
+   * @param connection the database connection that acquired the lock; may not be null
+   * @param table      the identifier of the table; may not be null
+   * @throws SQLException if there is an error releasing the lock
+   * @throws UnsupportedOperationException if the dialect does not support advisory locks
+   */
+  default void unlockForDdl(Connection connection, TableId table) throws SQLException {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Build the ALTER TABLE statement expression for the given table and its columns.
    *
@@ -621,6 +948,36 @@ public interface DatabaseDialect extends ConnectionProvider {
      * @throws SQLException if there is a problem binding values into the statement
      */
     void bindRecord(SinkRecord record) throws SQLException;
+
+    /**
+     * Bind the values in the supplied record starting at the given variable, without adding the
+     * statement to its batch. This is used to bind several records into one multi-row statement.
+     *
+     * @param index  the 1-based index of the first variable to bind
+     * @param record the sink record with values to be bound into the statement; never null
+     * @return the index of the first variable that was not bound
+     * @throws SQLException if there is a problem binding values into the statement
+     * @throws UnsupportedOperationException if the binder cannot bind at an offset
+     */
+    default int bindRecord(int index, SinkRecord record) throws SQLException {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * A function that bulk loads the values of sink records into a table.
+   */
+  @FunctionalInterface
+  interface BulkWriter {
+
+    /**
+     * Load the supplied records as new rows of the table.
+     *
+     * @param records the sink records with the values to be loaded; never null
+     * @return the number of rows that were loaded
+     * @throws SQLException if there is a problem loading the records
+     */
+    long write(Collection<SinkRecord> records) throws SQLException;
   }
 
   /**
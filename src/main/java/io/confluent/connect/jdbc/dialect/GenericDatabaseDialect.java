@@ -66,6 +66,7 @@ import java.util.stream.Collectors;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialectProvider.FixedScoreProvider;
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.AggregateFunction;
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode;
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
 import io.confluent.connect.jdbc.sink.PreparedStatementBinder;
@@ -152,6 +153,8 @@ public class GenericDatabaseDialect implements DatabaseDialect {
   private volatile JdbcDriverInfo jdbcDriverInfo;
   private final int batchMaxRows;
   private final TimeZone timeZone;
+  private final boolean upsertSkipUnchanged;
+  private final String upsertVersionColumn;
 
   /**
    * Create a new dialect instance with the given connector configuration.
@@ -208,6 +211,14 @@ public class GenericDatabaseDialect implements DatabaseDialect {
     } else {
       timeZone = TimeZone.getTimeZone(ZoneOffset.UTC);
     }
+
+    if (config instanceof JdbcSinkConfig) {
+      upsertSkipUnchanged = ((JdbcSinkConfig) config).upsertSkipUnchanged;
+      upsertVersionColumn = ((JdbcSinkConfig) config).upsertVersionColumn;
+    } else {
+      upsertSkipUnchanged = false;
+      upsertVersionColumn = "";
+    }
   }
 
   @Override
@@ -1524,6 +1535,49 @@ public class GenericDatabaseDialect implements DatabaseDialect {
     return builder.toString();
   }
 
+  @Override
+  public String buildInsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    if (rowCount == 1) {
+      return buildInsertStatement(table, keyColumns, nonKeyColumns, definition);
+    }
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("INSERT INTO ");
+    builder.append(table);
+    builder.append("(");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") VALUES");
+    appendValueRows(builder, keyColumns.size() + nonKeyColumns.size(), rowCount);
+    return builder.toString();
+  }
+
+  /**
+   * Append the parenthesized, comma-separated rows of variables used in a multi-row
+   * {@code VALUES} clause.
+   *
+   * @param builder     the builder to append to; may not be null
+   * @param columnCount the number of variables in each row
+   * @param rowCount    the number of rows
+   */
+  protected void appendValueRows(ExpressionBuilder builder, int columnCount, int rowCount) {
+    for (int row = 0; row < rowCount; row++) {
+      if (row > 0) {
+        builder.append(",");
+      }
+      builder.append("(");
+      builder.appendMultiple(",", "?", columnCount);
+      builder.append(")");
+    }
+  }
+
   @Override
   @SuppressWarnings("deprecation")
   public String buildUpdateStatement(
@@ -1577,6 +1631,147 @@ public class GenericDatabaseDialect implements DatabaseDialect {
     return builder.toString();
   }
 
+  @Override
+  public String buildDeleteStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      int rowCount
+  ) {
+    if (rowCount == 1 || keyColumns.isEmpty()) {
+      return buildDeleteStatement(table, keyColumns);
+    }
+    if (keyColumns.size() > 1 && !supportsRowValueComparisons()) {
+      throw new UnsupportedOperationException();
+    }
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("DELETE FROM ");
+    builder.append(table);
+    builder.append(" WHERE ");
+    if (keyColumns.size() == 1) {
+      builder.appendList()
+          .transformedBy(ExpressionBuilder.columnNames())
+          .of(keyColumns);
+      builder.append(" IN (");
+      builder.appendMultiple(",", "?", rowCount);
+    } else {
+      builder.append("(");
+      builder.appendList()
+          .delimitedBy(",")
+          .transformedBy(ExpressionBuilder.columnNames())
+          .of(keyColumns);
+      builder.append(") IN (");
+      appendValueRows(builder, keyColumns.size(), rowCount);
+    }
+    builder.append(")");
+    return builder.toString();
+  }
+
+  /**
+   * Determine whether the database can compare row value constructors, as in
+   * {@code (a, b) IN ((?, ?), (?, ?))}. Multi-row deletes of composite keys require this.
+   *
+   * @return true if row values can be compared; false by default
+   */
+  protected boolean supportsRowValueComparisons() {
+    return false;
+  }
+
+  /**
+   * Determine whether upserts should only update existing rows whose non-key values differ from
+   * the written values, as configured with {@code upsert.skip.unchanged}.
+   *
+   * @return true if unchanged rows should not be updated
+   */
+  protected boolean upsertSkipsUnchanged() {
+    return upsertSkipUnchanged;
+  }
+
+  /**
+   * Get the column whose stored value upserts should compare to the written value, so that they
+   * only update existing rows with an older version, as configured with
+   * {@code upsert.version.column}.
+   *
+   * @param table         the identifier of the table; may not be null
+   * @param nonKeyColumns the identifiers of the non-key columns written by the upsert; may not be
+   *                      null
+   * @return the version column, or null if no version column is configured
+   * @throws ConnectException if the version column is not one of the non-key columns
+   */
+  protected ColumnId upsertVersionColumn(TableId table, Collection<ColumnId> nonKeyColumns) {
+    if (upsertVersionColumn.isEmpty()) {
+      return null;
+    }
+    for (ColumnId column : nonKeyColumns) {
+      if (column.name().equals(upsertVersionColumn)) {
+        return column;
+      }
+    }
+    throw new ConnectException(String.format(
+        "The upsert version column '%s' is not one of the non-key columns written to table '%s'",
+        upsertVersionColumn,
+        table
+    ));
+  }
+
+  /**
+   * Return the transform that produces the assignment of each non-key column in an aggregating
+   * upsert, which combines the stored and the written value with the aggregate function of the
+   * column, ignoring nulls, or overwrites the stored value if the column has no function. The
+   * expressions only use {@code COALESCE} and {@code CASE}, so that they behave the same in
+   * every database.
+   *
+   * @param functions the aggregate functions by column name; may not be null
+   * @param stored    the transform that produces the reference to the stored value of a column;
+   *                  may not be null
+   * @param written   the transform that produces the reference to the written value of a column;
+   *                  may not be null
+   * @return the transform that produces the assignment of a column; never null
+   */
+  protected Transform<ColumnId> aggregateAssignments(
+      Map<String, AggregateFunction> functions,
+      Transform<ColumnId> stored,
+      Transform<ColumnId> written
+  ) {
+    return (builder, col) -> {
+      builder.appendColumnName(col.name());
+      builder.append("=");
+      final AggregateFunction function = functions.get(col.name());
+      if (function == null) {
+        written.apply(builder, col);
+        return;
+      }
+      switch (function) {
+        case SUM:
+          builder.append("COALESCE(");
+          stored.apply(builder, col);
+          builder.append("+");
+          written.apply(builder, col);
+          builder.append(",");
+          stored.apply(builder, col);
+          builder.append(",");
+          written.apply(builder, col);
+          builder.append(")");
+          break;
+        case MIN:
+        case MAX:
+          builder.append("CASE WHEN ");
+          written.apply(builder, col);
+          builder.append(function == AggregateFunction.MIN ? "<" : ">");
+          stored.apply(builder, col);
+          builder.append(" THEN ");
+          written.apply(builder, col);
+          builder.append(" ELSE COALESCE(");
+          stored.apply(builder, col);
+          builder.append(",");
+          written.apply(builder, col);
+          builder.append(") END");
+          break;
+        default:
+          throw new AssertionError(function);
+      }
+    };
+  }
+
   @SuppressWarnings("deprecation")
   @Override
   public StatementBinder statementBinder(
@@ -1765,6 +1960,34 @@ public class GenericDatabaseDialect implements DatabaseDialect {
     return builder.toString();
   }
 
+  /**
+   * Build the statement that renames a table within its catalog and schema, using the
+   * {@code ALTER TABLE ... RENAME TO ...} syntax that many databases share.
+   *
+   * @param table   the identifier of the table; may not be null
+   * @param newName the new unqualified name of the table; may not be null
+   * @return the ALTER TABLE statement; never null
+   */
+  protected String buildRenameTableStatement(TableId table, String newName) {
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("ALTER TABLE ");
+    builder.append(table);
+    builder.append(" RENAME TO ");
+    builder.appendTableName(newName);
+    return builder.toString();
+  }
+
+  /**
+   * Get the name of the advisory lock that serializes the DDL of all tasks on a table, for
+   * dialects that implement {@link #lockForDdl(Connection, TableId, long)}.
+   *
+   * @param table the identifier of the table; may not be null
+   * @return the lock name; never null
+   */
+  protected String ddlLockName(TableId table) {
+    return "kafka-connect-jdbc:ddl:" + table;
+  }
+
   @Override
   public List<String> buildAlterTable(
       TableId table,
@@ -25,14 +25,20 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialectProvider.SubprotocolBasedProvider;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.AggregateFunction;
 import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
 import io.confluent.connect.jdbc.util.ColumnId;
 import io.confluent.connect.jdbc.util.ExpressionBuilder;
 import io.confluent.connect.jdbc.util.ExpressionBuilder.Transform;
 import io.confluent.connect.jdbc.util.IdentifierRules;
+import io.confluent.connect.jdbc.util.TableDefinition;
 import io.confluent.connect.jdbc.util.TableId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +50,8 @@ public class MySqlDatabaseDialect extends GenericDatabaseDialect {
 
   private final Logger log = LoggerFactory.getLogger(MySqlDatabaseDialect.class);
 
+  private static final int MAX_LOCK_NAME_LENGTH = 64;
+
   /**
    * The provider for {@link MySqlDatabaseDialect}.
    */
@@ -129,11 +137,38 @@ public class MySqlDatabaseDialect extends GenericDatabaseDialect {
     }
   }
 
+  @Override
+  public int maxBindVariables() {
+    // The client/server protocol encodes the number of parameters as a 2-byte integer
+    return 65535;
+  }
+
+  @Override
+  public int maxIdentifierLength() {
+    return 64;
+  }
+
+  @Override
+  protected boolean supportsRowValueComparisons() {
+    return true;
+  }
+
   @Override
   public String buildUpsertQueryStatement(
       TableId table,
       Collection<ColumnId> keyColumns,
       Collection<ColumnId> nonKeyColumns
+  ) {
+    return buildUpsertQueryStatement(table, keyColumns, nonKeyColumns, null, 1);
+  }
+
+  @Override
+  public String buildUpsertQueryStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
   ) {
     //MySql doesn't support SQL 2003:merge so here how the upsert is handled
     final Transform<ColumnId> transform = (builder, col) -> {
@@ -151,9 +186,16 @@ public class MySqlDatabaseDialect extends GenericDatabaseDialect {
            .delimitedBy(",")
            .transformedBy(ExpressionBuilder.columnNames())
            .of(keyColumns, nonKeyColumns);
-    builder.append(") values(");
-    builder.appendMultiple(",", "?", keyColumns.size() + nonKeyColumns.size());
-    builder.append(") on duplicate key update ");
+    builder.append(") values");
+    appendValueRows(builder, keyColumns.size() + nonKeyColumns.size(), rowCount);
+    builder.append(" on duplicate key update ");
+    final ColumnId versionColumn = upsertVersionColumn(table, nonKeyColumns);
+    if (versionColumn != null) {
+      appendVersionedUpdates(builder, nonKeyColumns, versionColumn);
+      return builder.toString();
+    }
+    // MySQL does not write rows whose values are unchanged, so upsert.skip.unchanged needs no
+    // condition here
     builder.appendList()
            .delimitedBy(",")
            .transformedBy(transform)
@@ -161,6 +203,152 @@ public class MySqlDatabaseDialect extends GenericDatabaseDialect {
     return builder.toString();
   }
 
+  /**
+   * Append the assignments that only update the columns of rows with an older version. MySQL
+   * assigns the columns from left to right, so the version column is assigned last and all
+   * conditions compare the stored version.
+   */
+  private void appendVersionedUpdates(
+      ExpressionBuilder builder,
+      Collection<ColumnId> nonKeyColumns,
+      ColumnId versionColumn
+  ) {
+    final Transform<ColumnId> transform = (b, col) -> {
+      b.appendColumnName(col.name());
+      b.append("=if(");
+      b.appendColumnName(versionColumn.name());
+      b.append(" is null or values(");
+      b.appendColumnName(versionColumn.name());
+      b.append(")>");
+      b.appendColumnName(versionColumn.name());
+      b.append(",values(");
+      b.appendColumnName(col.name());
+      b.append("),");
+      b.appendColumnName(col.name());
+      b.append(")");
+    };
+    final List<ColumnId> columns = new ArrayList<>(nonKeyColumns);
+    columns.remove(versionColumn);
+    columns.add(versionColumn);
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(transform)
+           .of(columns);
+  }
+
+  @Override
+  public String buildInsertIgnoreStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    // IGNORE also turns other errors such as truncated values into warnings, as in MySQL itself
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("insert ignore into ");
+    builder.append(table);
+    builder.append("(");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") values");
+    appendValueRows(builder, keyColumns.size() + nonKeyColumns.size(), rowCount);
+    return builder.toString();
+  }
+
+  @Override
+  public String buildAggregateUpsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      Map<String, AggregateFunction> functions,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    if (nonKeyColumns.isEmpty()) {
+      return buildInsertIgnoreStatement(table, keyColumns, nonKeyColumns, definition, rowCount);
+    }
+    final Transform<ColumnId> written = (b, col) -> {
+      b.append("values(").appendColumnName(col.name()).append(")");
+    };
+
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("insert into ");
+    builder.append(table);
+    builder.append("(");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") values");
+    appendValueRows(builder, keyColumns.size() + nonKeyColumns.size(), rowCount);
+    builder.append(" on duplicate key update ");
+    // Every assignment only reads its own column, so the order of the assignments does not matter
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(aggregateAssignments(functions, ExpressionBuilder.columnNames(), written))
+           .of(nonKeyColumns);
+    return builder.toString();
+  }
+
+  @Override
+  public List<String> buildSwapTableStatements(
+      TableId table,
+      TableId shadowTable,
+      TableId retiredTable
+  ) {
+    // DDL commits implicitly, but a single RENAME TABLE of both tables is atomic
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("rename table ");
+    if (retiredTable != null) {
+      builder.append(table);
+      builder.append(" to ");
+      builder.append(retiredTable);
+      builder.append(", ");
+    }
+    builder.append(shadowTable);
+    builder.append(" to ");
+    builder.append(table);
+    return Collections.singletonList(builder.toString());
+  }
+
+  @Override
+  public boolean lockForDdl(
+      Connection connection,
+      TableId table,
+      long timeoutMs
+  ) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+      statement.setString(1, ddlLockName(table));
+      // The timeout is in whole seconds
+      statement.setLong(2, (timeoutMs + 999L) / 1000L);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        // GET_LOCK() returns 0 on timeout and NULL on errors
+        return resultSet.next() && resultSet.getInt(1) == 1;
+      }
+    }
+  }
+
+  @Override
+  public void unlockForDdl(Connection connection, TableId table) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+      statement.setString(1, ddlLockName(table));
+      statement.executeQuery().close();
+    }
+  }
+
+  @Override
+  protected String ddlLockName(TableId table) {
+    final String name = super.ddlLockName(table);
+    if (name.length() <= MAX_LOCK_NAME_LENGTH) {
+      return name;
+    }
+    // Lock names are limited to 64 characters, so shorten long names to a hash of the name
+    return "kafka-connect-jdbc:ddl:" + Integer.toHexString(name.hashCode());
+  }
+
   @Override
   protected String sanitizedUrl(String url) {
     // MySQL can also have "username:password@" at the beginning of the host list and
@@ -87,6 +87,12 @@ public class OracleDatabaseDialect extends GenericDatabaseDialect {
     return "SELECT 1 FROM DUAL";
   }
 
+  @Override
+  public int maxIdentifierLength() {
+    // The limit of versions before 12.2, which raised it to 128
+    return 30;
+  }
+
   @Override
   public StatementBinder statementBinder(
       PreparedStatement statement,
@@ -260,6 +266,29 @@ public class OracleDatabaseDialect extends GenericDatabaseDialect {
       final TableId table,
       Collection<ColumnId> keyColumns,
       Collection<ColumnId> nonKeyColumns
+  ) {
+    return buildMergeStatement(table, keyColumns, nonKeyColumns, true);
+  }
+
+  @Override
+  public String buildInsertIgnoreStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    if (rowCount != 1) {
+      throw new UnsupportedOperationException();
+    }
+    return buildMergeStatement(table, keyColumns, nonKeyColumns, false);
+  }
+
+  private String buildMergeStatement(
+      final TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      boolean updateMatched
   ) {
     // https://blogs.oracle.com/cmar/entry/using_merge_to_do_an
     final Transform<ColumnId> transform = (builder, col) -> {
@@ -284,7 +313,7 @@ public class OracleDatabaseDialect extends GenericDatabaseDialect {
            .transformedBy(transform)
            .of(keyColumns);
     builder.append(")");
-    if (nonKeyColumns != null && !nonKeyColumns.isEmpty()) {
+    if (updateMatched && nonKeyColumns != null && !nonKeyColumns.isEmpty()) {
       builder.append(" when matched then update set ");
       builder.appendList()
              .delimitedBy(",")
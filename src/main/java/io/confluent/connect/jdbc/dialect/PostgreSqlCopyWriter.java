@@ -0,0 +1,292 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.dialect;
+
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Time;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TimeZone;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect.BulkWriter;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+
+/**
+ * A {@link BulkWriter} that streams records into a PostgreSQL table with
+ * {@code COPY ... FROM STDIN} in text format, using the driver's {@link CopyManager}.
+ *
+ * <p>The columns appear in the same order as in the INSERT statements of the
+ * {@link PostgreSqlDatabaseDialect}: the key fields followed by the non-key fields.
+ */
+class PostgreSqlCopyWriter implements BulkWriter {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String NULL = "\\N";
+
+  private final Connection connection;
+  private final String copySql;
+  private final JdbcSinkConfig.PrimaryKeyMode pkMode;
+  private final SchemaPair schemaPair;
+  private final FieldsMetadata fieldsMetadata;
+  private final DateTimeFormatter dateFormat;
+  private final DateTimeFormatter timeFormat;
+  private final DateTimeFormatter timestampFormat;
+
+  PostgreSqlCopyWriter(
+      Connection connection,
+      String copySql,
+      JdbcSinkConfig.PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      TimeZone timeZone
+  ) {
+    this.connection = connection;
+    this.copySql = copySql;
+    this.pkMode = pkMode;
+    this.schemaPair = schemaPair;
+    this.fieldsMetadata = fieldsMetadata;
+    ZoneId zoneId = timeZone.toZoneId();
+    this.dateFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(zoneId);
+    this.timeFormat = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(zoneId);
+    // The offset is honored by timestamptz columns and ignored by timestamp columns
+    this.timestampFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSXXX")
+                                            .withZone(zoneId);
+  }
+
+  @Override
+  public long write(Collection<SinkRecord> records) throws SQLException {
+    CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+    CopyIn copyIn = copyManager.copyIn(copySql);
+    try {
+      StringBuilder rows = new StringBuilder(BUFFER_SIZE);
+      for (SinkRecord record : records) {
+        appendRecord(rows, record);
+        if (rows.length() >= BUFFER_SIZE) {
+          writeToCopy(copyIn, rows);
+        }
+      }
+      writeToCopy(copyIn, rows);
+      return copyIn.endCopy();
+    } finally {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+      }
+    }
+  }
+
+  private static void writeToCopy(CopyIn copyIn, StringBuilder rows) throws SQLException {
+    if (rows.length() > 0) {
+      byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+      copyIn.writeToCopy(bytes, 0, bytes.length);
+      rows.setLength(0);
+    }
+  }
+
+  /**
+   * Append the given record as one line of COPY text format.
+   *
+   * @param builder the builder to append to; may not be null
+   * @param record  the record; may not be null
+   */
+  void appendRecord(StringBuilder builder, SinkRecord record) {
+    boolean first = appendKeyFields(builder, record);
+    final Struct valueStruct = (Struct) record.value();
+    for (String fieldName : fieldsMetadata.nonKeyFieldNames) {
+      final Field field = record.valueSchema().field(fieldName);
+      first = appendColumn(builder, first, field.schema(), valueStruct.get(field));
+    }
+    builder.append('\n');
+  }
+
+  private boolean appendKeyFields(StringBuilder builder, SinkRecord record) {
+    boolean first = true;
+    switch (pkMode) {
+      case NONE:
+        break;
+
+      case KAFKA:
+        first = appendColumn(builder, first, Schema.STRING_SCHEMA, record.topic());
+        first = appendColumn(builder, first, Schema.INT32_SCHEMA, record.kafkaPartition());
+        first = appendColumn(builder, first, Schema.INT64_SCHEMA, record.kafkaOffset());
+        break;
+
+      case RECORD_KEY:
+        if (schemaPair.keySchema.type().isPrimitive()) {
+          first = appendColumn(builder, first, schemaPair.keySchema, record.key());
+        } else {
+          for (String fieldName : fieldsMetadata.keyFieldNames) {
+            final Field field = record.keySchema().field(fieldName);
+            final Object value = ((Struct) record.key()).get(field);
+            first = appendColumn(builder, first, field.schema(), value);
+          }
+        }
+        break;
+
+      case RECORD_VALUE:
+        for (String fieldName : fieldsMetadata.keyFieldNames) {
+          final Field field = record.valueSchema().field(fieldName);
+          final Object value = ((Struct) record.value()).get(field);
+          first = appendColumn(builder, first, field.schema(), value);
+        }
+        break;
+
+      default:
+        throw new ConnectException("Unknown primary key mode: " + pkMode);
+    }
+    return first;
+  }
+
+  private boolean appendColumn(StringBuilder builder, boolean first, Schema schema, Object value) {
+    if (!first) {
+      builder.append('\t');
+    }
+    if (value == null) {
+      builder.append(NULL);
+    } else {
+      appendEscaped(builder, format(schema, value));
+    }
+    return false;
+  }
+
+  private String format(Schema schema, Object value) {
+    if (schema.name() != null) {
+      switch (schema.name()) {
+        case Date.LOGICAL_NAME:
+          return dateFormat.format(Instant.ofEpochMilli(((java.util.Date) value).getTime()));
+        case Time.LOGICAL_NAME:
+          return timeFormat.format(Instant.ofEpochMilli(((java.util.Date) value).getTime()));
+        case Timestamp.LOGICAL_NAME:
+          return timestampFormat.format(Instant.ofEpochMilli(((java.util.Date) value).getTime()));
+        case Decimal.LOGICAL_NAME:
+          return value.toString();
+        default:
+          break;
+      }
+    }
+    switch (schema.type()) {
+      case INT8:
+      case INT16:
+      case INT32:
+      case INT64:
+      case FLOAT32:
+      case FLOAT64:
+      case STRING:
+        return value.toString();
+      case BOOLEAN:
+        return (Boolean) value ? "t" : "f";
+      case BYTES:
+        return "\\x" + hex(value);
+      case ARRAY:
+        return formatArray(schema.valueSchema(), value);
+      default:
+        throw new ConnectException("Unsupported source data type for COPY: " + schema.type());
+    }
+  }
+
+  private String formatArray(Schema elementSchema, Object value) {
+    final Collection<?> elements;
+    if (value instanceof Collection) {
+      elements = (Collection<?>) value;
+    } else if (value.getClass().isArray()) {
+      elements = Arrays.asList((Object[]) value);
+    } else {
+      throw new DataException(
+          String.format("Type '%s' is not supported for Array.", value.getClass().getName())
+      );
+    }
+    StringBuilder array = new StringBuilder("{");
+    boolean first = true;
+    for (Object element : elements) {
+      if (!first) {
+        array.append(',');
+      }
+      first = false;
+      if (element == null) {
+        array.append("NULL");
+      } else {
+        array.append('"');
+        for (char c : format(elementSchema, element).toCharArray()) {
+          if (c == '"' || c == '\\') {
+            array.append('\\');
+          }
+          array.append(c);
+        }
+        array.append('"');
+      }
+    }
+    return array.append('}').toString();
+  }
+
+  private static String hex(Object value) {
+    final byte[] bytes;
+    if (value instanceof ByteBuffer) {
+      final ByteBuffer buffer = ((ByteBuffer) value).slice();
+      bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+    } else {
+      bytes = (byte[]) value;
+    }
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+      hex.append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  private static void appendEscaped(StringBuilder builder, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '\t':
+          builder.append("\\t");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        case '\r':
+          builder.append("\\r");
+          break;
+        default:
+          builder.append(c);
+      }
+    }
+  }
+}
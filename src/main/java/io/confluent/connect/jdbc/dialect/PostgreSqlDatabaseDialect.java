@@ -28,16 +28,23 @@ import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Time;
 import org.apache.kafka.connect.data.Timestamp;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialectProvider.SubprotocolBasedProvider;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.AggregateFunction;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
 import io.confluent.connect.jdbc.source.ColumnMapping;
 import io.confluent.connect.jdbc.util.ColumnDefinition;
@@ -76,6 +83,8 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
   static final String JSONB_TYPE_NAME = "jsonb";
   static final String UUID_TYPE_NAME = "uuid";
 
+  private static final long DDL_LOCK_POLL_INTERVAL_MS = 100L;
+
   /**
    * Define the PG datatypes that require casting upon insert/update statements.
    */
@@ -267,12 +276,40 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
     }
   }
 
+  @Override
+  public int maxBindVariables() {
+    // The driver encodes the number of parameters as a signed 2-byte integer
+    return Short.MAX_VALUE;
+  }
+
+  @Override
+  public int maxIdentifierLength() {
+    // NAMEDATALEN - 1 of default builds, beyond which names are silently truncated
+    return 63;
+  }
+
+  @Override
+  protected boolean supportsRowValueComparisons() {
+    return true;
+  }
+
   @Override
   public String buildInsertStatement(
       TableId table,
       Collection<ColumnId> keyColumns,
       Collection<ColumnId> nonKeyColumns,
       TableDefinition definition
+  ) {
+    return buildInsertStatement(table, keyColumns, nonKeyColumns, definition, 1);
+  }
+
+  @Override
+  public String buildInsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
   ) {
     ExpressionBuilder builder = expressionBuilder();
     builder.append("INSERT INTO ");
@@ -282,15 +319,67 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
            .delimitedBy(",")
            .transformedBy(ExpressionBuilder.columnNames())
            .of(keyColumns, nonKeyColumns);
-    builder.append(") VALUES (");
+    builder.append(") VALUES ");
+    appendValueRows(builder, keyColumns, nonKeyColumns, definition, rowCount);
+    return builder.toString();
+  }
+
+  /**
+   * Build the {@code COPY ... FROM STDIN} statement used to bulk load rows into the given table.
+   *
+   * @param table         the identifier of the table; may not be null
+   * @param keyColumns    the identifiers of the key columns; may not be null but may be empty
+   * @param nonKeyColumns the identifiers of the other columns; may not be null but may be empty
+   * @return the COPY statement; never null
+   */
+  public String buildCopyStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("COPY ");
+    builder.append(table);
+    builder.append(" (");
     builder.appendList()
            .delimitedBy(",")
-           .transformedBy(this.columnValueVariables(definition))
+           .transformedBy(ExpressionBuilder.columnNames())
            .of(keyColumns, nonKeyColumns);
-    builder.append(")");
+    builder.append(") FROM STDIN");
     return builder.toString();
   }
 
+  @Override
+  public BulkWriter bulkWriter(
+      Connection connection,
+      TableId table,
+      PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      TableDefinition tableDefinition
+  ) {
+    final String sql = buildCopyStatement(
+        table,
+        columnIds(table, fieldsMetadata.keyFieldNames),
+        columnIds(table, fieldsMetadata.nonKeyFieldNames)
+    );
+    log.debug("Bulk loading with COPY statement: {}", sql);
+    return new PostgreSqlCopyWriter(
+        connection,
+        sql,
+        pkMode,
+        schemaPair,
+        fieldsMetadata,
+        timeZone()
+    );
+  }
+
+  private static List<ColumnId> columnIds(TableId table, Collection<String> names) {
+    return names.stream()
+                .map(name -> new ColumnId(table, name))
+                .collect(Collectors.toList());
+  }
+
   @Override
   public String buildUpdateStatement(
       TableId table,
@@ -323,10 +412,119 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
       Collection<ColumnId> nonKeyColumns,
       TableDefinition definition
   ) {
-    final Transform<ColumnId> transform = (builder, col) -> {
-      builder.appendColumnName(col.name())
-             .append("=EXCLUDED.")
-             .appendColumnName(col.name());
+    return buildUpsertQueryStatement(table, keyColumns, nonKeyColumns, definition, 1);
+  }
+
+  @Override
+  public String buildUpsertQueryStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("INSERT INTO ");
+    builder.append(table);
+    builder.append(" (");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") VALUES ");
+    appendValueRows(builder, keyColumns, nonKeyColumns, definition, rowCount);
+    appendOnConflictClause(builder, table, keyColumns, nonKeyColumns, definition);
+    return builder.toString();
+  }
+
+  @Override
+  public String buildInsertIgnoreStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("INSERT INTO ");
+    builder.append(table);
+    builder.append(" (");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") VALUES ");
+    appendValueRows(builder, keyColumns, nonKeyColumns, definition, rowCount);
+    // Unlike DO UPDATE, DO NOTHING accepts the same key more than once in one statement
+    appendOnConflictClause(builder, table, keyColumns, Collections.emptyList(), definition);
+    return builder.toString();
+  }
+
+  @Override
+  public String buildAggregateUpsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      Map<String, AggregateFunction> functions,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    if (nonKeyColumns.isEmpty()) {
+      return buildInsertIgnoreStatement(table, keyColumns, nonKeyColumns, definition, rowCount);
+    }
+    final Transform<ColumnId> stored = (b, col) -> {
+      b.append(table).append(".").appendColumnName(col.name());
+    };
+    final Transform<ColumnId> written = (b, col) -> {
+      b.append("EXCLUDED.").appendColumnName(col.name());
+    };
+
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("INSERT INTO ");
+    builder.append(table);
+    builder.append(" (");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") VALUES ");
+    appendValueRows(builder, keyColumns, nonKeyColumns, definition, rowCount);
+    builder.append(" ON CONFLICT (");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns);
+    builder.append(") DO UPDATE SET ");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(aggregateAssignments(functions, stored, written))
+           .of(nonKeyColumns);
+    return builder.toString();
+  }
+
+  @Override
+  public String buildCreateStagingTableStatement(
+      TableId table,
+      Collection<SinkRecordField> fields
+  ) {
+    // Temporary tables are private to the session and skip the write-ahead log
+    return buildCreateTableStatement(table, fields)
+        .replaceFirst("^CREATE TABLE ", "CREATE TEMPORARY TABLE ");
+  }
+
+  @Override
+  public String buildUpsertFromStagingStatement(
+      TableId table,
+      TableId stagingTable,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition
+  ) {
+    // The staging table is created from the record schemas, so columns such as json or uuid
+    // hold text and need the same casts as bound variables
+    final Transform<ColumnId> selectTransform = (builder, col) -> {
+      builder.appendColumnName(col.name());
+      builder.append(valueTypeCast(definition, col));
     };
 
     ExpressionBuilder builder = expressionBuilder();
@@ -337,12 +535,113 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
            .delimitedBy(",")
            .transformedBy(ExpressionBuilder.columnNames())
            .of(keyColumns, nonKeyColumns);
-    builder.append(") VALUES (");
+    builder.append(") SELECT ");
     builder.appendList()
            .delimitedBy(",")
-           .transformedBy(this.columnValueVariables(definition))
+           .transformedBy(selectTransform)
            .of(keyColumns, nonKeyColumns);
-    builder.append(") ON CONFLICT (");
+    builder.append(" FROM ");
+    builder.append(stagingTable);
+    appendOnConflictClause(builder, table, keyColumns, nonKeyColumns, definition);
+    return builder.toString();
+  }
+
+  @Override
+  public List<String> buildSwapTableStatements(
+      TableId table,
+      TableId shadowTable,
+      TableId retiredTable
+  ) {
+    if (retiredTable == null) {
+      return Collections.singletonList(buildRenameTableStatement(shadowTable, table.tableName()));
+    }
+    // DDL is transactional, so the swap is atomic with the rest of the transaction
+    return Arrays.asList(
+        buildRenameTableStatement(table, retiredTable.tableName()),
+        buildRenameTableStatement(shadowTable, table.tableName())
+    );
+  }
+
+  @Override
+  public boolean lockForDdl(
+      Connection connection,
+      TableId table,
+      long timeoutMs
+  ) throws SQLException {
+    // pg_advisory_lock() waits without a timeout, so poll the non-blocking variant instead
+    final long deadline = System.currentTimeMillis() + timeoutMs;
+    try (PreparedStatement statement = connection.prepareStatement(
+        "SELECT pg_try_advisory_lock(?)"
+    )) {
+      statement.setLong(1, advisoryLockKey(ddlLockName(table)));
+      while (true) {
+        try (ResultSet resultSet = statement.executeQuery()) {
+          if (resultSet.next() && resultSet.getBoolean(1)) {
+            return true;
+          }
+        }
+        final long remainingMs = deadline - System.currentTimeMillis();
+        if (remainingMs <= 0) {
+          return false;
+        }
+        try {
+          Thread.sleep(Math.min(DDL_LOCK_POLL_INTERVAL_MS, remainingMs));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void unlockForDdl(Connection connection, TableId table) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(
+        "SELECT pg_advisory_unlock(?)"
+    )) {
+      statement.setLong(1, advisoryLockKey(ddlLockName(table)));
+      statement.executeQuery().close();
+    }
+  }
+
+  /**
+   * Hash a lock name into the 64-bit key of a PostgreSQL advisory lock, using FNV-1a. Two tables
+   * with the same key only serialize each other's DDL.
+   */
+  static long advisoryLockKey(String name) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  /**
+   * Append the {@code ON CONFLICT} clause that updates the non-key columns of existing rows, or
+   * ignores the existing rows if there are no non-key columns. The update is restricted to rows
+   * with an older version or with different values if so configured.
+   *
+   * @param builder       the builder to append to; may not be null
+   * @param table         the identifier of the table; may not be null
+   * @param keyColumns    the identifiers of the key columns; may not be null
+   * @param nonKeyColumns the identifiers of the other columns; may not be null
+   * @param definition    the table definition; may be null if unknown
+   */
+  protected void appendOnConflictClause(
+      ExpressionBuilder builder,
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition
+  ) {
+    final Transform<ColumnId> transform = (b, col) -> {
+      b.appendColumnName(col.name())
+       .append("=EXCLUDED.")
+       .appendColumnName(col.name());
+    };
+
+    builder.append(" ON CONFLICT (");
     builder.appendList()
            .delimitedBy(",")
            .transformedBy(ExpressionBuilder.columnNames())
@@ -355,8 +654,54 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
               .delimitedBy(",")
               .transformedBy(transform)
               .of(nonKeyColumns);
+      appendUpsertCondition(builder, table, nonKeyColumns, definition);
     }
-    return builder.toString();
+  }
+
+  private void appendUpsertCondition(
+      ExpressionBuilder builder,
+      TableId table,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition
+  ) {
+    final ColumnId versionColumn = upsertVersionColumn(table, nonKeyColumns);
+    if (versionColumn != null) {
+      builder.append(" WHERE ");
+      builder.append(table).append(".").appendColumnName(versionColumn.name());
+      builder.append(" IS NULL OR EXCLUDED.").appendColumnName(versionColumn.name());
+      builder.append(" > ");
+      builder.append(table).append(".").appendColumnName(versionColumn.name());
+    } else if (upsertSkipsUnchanged()) {
+      // The json type has no equality operator, so its values are compared as jsonb
+      final Transform<ColumnId> stored = (b, col) -> {
+        b.append(table).append(".").appendColumnName(col.name());
+        b.append(comparisonCast(definition, col));
+      };
+      final Transform<ColumnId> excluded = (b, col) -> {
+        b.append("EXCLUDED.").appendColumnName(col.name());
+        b.append(comparisonCast(definition, col));
+      };
+      builder.append(" WHERE (");
+      builder.appendList()
+             .delimitedBy(",")
+             .transformedBy(stored)
+             .of(nonKeyColumns);
+      builder.append(") IS DISTINCT FROM (");
+      builder.appendList()
+             .delimitedBy(",")
+             .transformedBy(excluded)
+             .of(nonKeyColumns);
+      builder.append(")");
+    }
+  }
+
+  private static String comparisonCast(TableDefinition definition, ColumnId column) {
+    final ColumnDefinition columnDefn =
+        definition != null ? definition.definitionForColumn(column.name()) : null;
+    if (columnDefn != null && JSON_TYPE_NAME.equalsIgnoreCase(columnDefn.typeName())) {
+      return "::" + JSONB_TYPE_NAME;
+    }
+    return "";
   }
 
   @Override
@@ -447,6 +792,36 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
     return super.maybeBindPrimitive(statement, index, schema, value);
   }
 
+  /**
+   * Append the parenthesized, comma-separated rows of variables used in a {@code VALUES} clause,
+   * including any typecasts required by the column types.
+   *
+   * @param builder       the builder to append to; may not be null
+   * @param keyColumns    the identifiers of the key columns; may not be null
+   * @param nonKeyColumns the identifiers of the other columns; may not be null
+   * @param definition    the table definition; may be null if unknown
+   * @param rowCount      the number of rows
+   */
+  protected void appendValueRows(
+      ExpressionBuilder builder,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    for (int row = 0; row < rowCount; row++) {
+      if (row > 0) {
+        builder.append(",");
+      }
+      builder.append("(");
+      builder.appendList()
+             .delimitedBy(",")
+             .transformedBy(this.columnValueVariables(definition))
+             .of(keyColumns, nonKeyColumns);
+      builder.append(")");
+    }
+  }
+
   /**
    * Return the transform that produces an assignment expression each with the name of one of the
    * columns and the prepared statement variable. PostgreSQL may require the variable to have a
@@ -44,6 +44,7 @@ import io.confluent.connect.jdbc.util.ColumnId;
 import io.confluent.connect.jdbc.util.DateTimeUtils;
 import io.confluent.connect.jdbc.util.ExpressionBuilder;
 import io.confluent.connect.jdbc.util.IdentifierRules;
+import io.confluent.connect.jdbc.util.TableDefinition;
 import io.confluent.connect.jdbc.util.TableId;
 import io.confluent.connect.jdbc.util.ColumnDefinition.Mutability;
 import io.confluent.connect.jdbc.util.ColumnDefinition.Nullability;
@@ -320,6 +321,29 @@ public class SqlServerDatabaseDialect extends GenericDatabaseDialect {
       TableId table,
       Collection<ColumnId> keyColumns,
       Collection<ColumnId> nonKeyColumns
+  ) {
+    return buildMergeStatement(table, keyColumns, nonKeyColumns, true);
+  }
+
+  @Override
+  public String buildInsertIgnoreStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    if (rowCount != 1) {
+      throw new UnsupportedOperationException();
+    }
+    return buildMergeStatement(table, keyColumns, nonKeyColumns, false);
+  }
+
+  private String buildMergeStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      boolean updateMatched
   ) {
     ExpressionBuilder builder = expressionBuilder();
     builder.append("merge into ");
@@ -335,7 +359,7 @@ public class SqlServerDatabaseDialect extends GenericDatabaseDialect {
            .transformedBy(this::transformAs)
            .of(keyColumns);
     builder.append(")");
-    if (nonKeyColumns != null && !nonKeyColumns.isEmpty()) {
+    if (updateMatched && nonKeyColumns != null && !nonKeyColumns.isEmpty()) {
       builder.append(" when matched then update set ");
       builder.appendList()
              .delimitedBy(",")
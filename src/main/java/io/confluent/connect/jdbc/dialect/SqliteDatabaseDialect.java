@@ -22,15 +22,20 @@ import org.apache.kafka.connect.data.Time;
 import org.apache.kafka.connect.data.Timestamp;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialectProvider.SubprotocolBasedProvider;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.AggregateFunction;
 import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
 import io.confluent.connect.jdbc.util.ColumnId;
 import io.confluent.connect.jdbc.util.ExpressionBuilder;
+import io.confluent.connect.jdbc.util.ExpressionBuilder.Transform;
 import io.confluent.connect.jdbc.util.IdentifierRules;
+import io.confluent.connect.jdbc.util.TableDefinition;
 import io.confluent.connect.jdbc.util.TableId;
 
 /**
@@ -111,26 +116,223 @@ public class SqliteDatabaseDialect extends GenericDatabaseDialect {
     return queries;
   }
 
+  @Override
+  public int maxBindVariables() {
+    // Default SQLITE_MAX_VARIABLE_NUMBER of SQLite versions prior to 3.32.0
+    return 999;
+  }
+
+  @Override
+  protected boolean supportsRowValueComparisons() {
+    return true;
+  }
+
   @Override
   public String buildUpsertQueryStatement(
       TableId table,
       Collection<ColumnId> keyColumns,
       Collection<ColumnId> nonKeyColumns
   ) {
+    return buildUpsertQueryStatement(table, keyColumns, nonKeyColumns, null, 1);
+  }
+
+  @Override
+  public String buildUpsertQueryStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    final boolean conditional = isConditionalUpsert(table, nonKeyColumns);
     ExpressionBuilder builder = expressionBuilder();
-    builder.append("INSERT OR REPLACE INTO ");
+    builder.append(conditional ? "INSERT INTO " : "INSERT OR REPLACE INTO ");
     builder.append(table);
     builder.append("(");
     builder.appendList()
            .delimitedBy(",")
            .transformedBy(ExpressionBuilder.columnNames())
            .of(keyColumns, nonKeyColumns);
-    builder.append(") VALUES(");
-    builder.appendMultiple(",", "?", keyColumns.size() + nonKeyColumns.size());
-    builder.append(")");
+    builder.append(") VALUES");
+    appendValueRows(builder, keyColumns.size() + nonKeyColumns.size(), rowCount);
+    if (conditional) {
+      appendConditionalUpdate(builder, table, keyColumns, nonKeyColumns);
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public String buildInsertIgnoreStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("INSERT OR IGNORE INTO ");
+    builder.append(table);
+    builder.append("(");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") VALUES");
+    appendValueRows(builder, keyColumns.size() + nonKeyColumns.size(), rowCount);
+    return builder.toString();
+  }
+
+  @Override
+  public String buildAggregateUpsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      Map<String, AggregateFunction> functions,
+      TableDefinition definition,
+      int rowCount
+  ) {
+    if (nonKeyColumns.isEmpty()) {
+      return buildInsertIgnoreStatement(table, keyColumns, nonKeyColumns, definition, rowCount);
+    }
+    final Transform<ColumnId> stored = (b, col) -> {
+      b.append(table).append(".").appendColumnName(col.name());
+    };
+    final Transform<ColumnId> written = (b, col) -> {
+      b.append("excluded.").appendColumnName(col.name());
+    };
+
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("INSERT INTO ");
+    builder.append(table);
+    builder.append("(");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") VALUES");
+    appendValueRows(builder, keyColumns.size() + nonKeyColumns.size(), rowCount);
+    builder.append(" ON CONFLICT(");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns);
+    builder.append(") DO UPDATE SET ");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(aggregateAssignments(functions, stored, written))
+           .of(nonKeyColumns);
     return builder.toString();
   }
 
+  @Override
+  public String buildCreateStagingTableStatement(
+      TableId table,
+      Collection<SinkRecordField> fields
+  ) {
+    return buildCreateTableStatement(table, fields)
+        .replaceFirst("^CREATE TABLE ", "CREATE TEMP TABLE ");
+  }
+
+  @Override
+  public String buildUpsertFromStagingStatement(
+      TableId table,
+      TableId stagingTable,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition
+  ) {
+    final boolean conditional = isConditionalUpsert(table, nonKeyColumns);
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append(conditional ? "INSERT INTO " : "INSERT OR REPLACE INTO ");
+    builder.append(table);
+    builder.append("(");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") SELECT ");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(" FROM ");
+    builder.append(stagingTable);
+    if (conditional) {
+      // Without a WHERE clause, SQLite would parse ON CONFLICT as part of the join constraint
+      builder.append(" WHERE true");
+      appendConditionalUpdate(builder, table, keyColumns, nonKeyColumns);
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public List<String> buildSwapTableStatements(
+      TableId table,
+      TableId shadowTable,
+      TableId retiredTable
+  ) {
+    if (retiredTable == null) {
+      return Collections.singletonList(buildRenameTableStatement(shadowTable, table.tableName()));
+    }
+    // DDL is transactional, so the swap is atomic with the rest of the transaction
+    return Arrays.asList(
+        buildRenameTableStatement(table, retiredTable.tableName()),
+        buildRenameTableStatement(shadowTable, table.tableName())
+    );
+  }
+
+  /**
+   * Determine whether upserts only update some of the existing rows, in which case they are
+   * written with {@code ON CONFLICT ... DO UPDATE ... WHERE} rather than
+   * {@code INSERT OR REPLACE}.
+   */
+  private boolean isConditionalUpsert(TableId table, Collection<ColumnId> nonKeyColumns) {
+    return !nonKeyColumns.isEmpty()
+           && (upsertSkipsUnchanged() || upsertVersionColumn(table, nonKeyColumns) != null);
+  }
+
+  private void appendConditionalUpdate(
+      ExpressionBuilder builder,
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns
+  ) {
+    final Transform<ColumnId> update = (b, col) -> {
+      b.appendColumnName(col.name());
+      b.append("=excluded.");
+      b.appendColumnName(col.name());
+    };
+    final Transform<ColumnId> changed = (b, col) -> {
+      b.append(table).append(".").appendColumnName(col.name());
+      b.append(" IS NOT excluded.");
+      b.appendColumnName(col.name());
+    };
+
+    builder.append(" ON CONFLICT(");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns);
+    builder.append(") DO UPDATE SET ");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(update)
+           .of(nonKeyColumns);
+    builder.append(" WHERE ");
+    final ColumnId versionColumn = upsertVersionColumn(table, nonKeyColumns);
+    if (versionColumn != null) {
+      builder.append(table).append(".").appendColumnName(versionColumn.name());
+      builder.append(" IS NULL OR excluded.").appendColumnName(versionColumn.name());
+      builder.append(" > ");
+      builder.append(table).append(".").appendColumnName(versionColumn.name());
+    } else {
+      builder.appendList()
+             .delimitedBy(" OR ")
+             .transformedBy(changed)
+             .of(nonKeyColumns);
+    }
+  }
+
   @Override
   protected String currentTimestampDatabaseQuery() {
     return "SELECT strftime('%Y-%m-%d %H:%M:%S.%f','now')";
@@ -25,26 +25,42 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.DatabaseDialect.BulkWriter;
 import io.confluent.connect.jdbc.dialect.DatabaseDialect.StatementBinder;
+import io.confluent.connect.jdbc.dialect.DropOptions;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.TableDefinition;
 import io.confluent.connect.jdbc.util.TableId;
 
+import static io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode.AGGREGATE_UPSERT;
+import static io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode.BULK_UPSERT;
 import static io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode.INSERT;
+import static io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode.INSERT_IGNORE;
+import static io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode.SNAPSHOT;
+import static io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode.UPSERT;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 public class BufferedRecords {
   private static final Logger log = LoggerFactory.getLogger(BufferedRecords.class);
+  private static final AtomicLong STAGING_TABLE_COUNT = new AtomicLong();
 
   private final TableId tableId;
   private final JdbcSinkConfig config;
@@ -53,6 +69,7 @@ public class BufferedRecords {
   private final Connection connection;
 
   private List<SinkRecord> records = new ArrayList<>();
+  private long recordBytes = 0L;
   private Schema keySchema;
   private Schema valueSchema;
   private RecordValidator recordValidator;
@@ -62,6 +79,28 @@ public class BufferedRecords {
   private StatementBinder updateStatementBinder;
   private StatementBinder deleteStatementBinder;
   private boolean deletesInBatch = false;
+  private SchemaPair schemaPair;
+  private int rowsPerStatement = 1;
+  private PreparedStatement multiRowPreparedStatement;
+  private StatementBinder multiRowStatementBinder;
+  private int keysPerDelete = 1;
+  private PreparedStatement multiRowDeletePreparedStatement;
+  private StatementBinder multiRowDeleteStatementBinder;
+  private PrimaryKeyExtractor keyExtractor;
+  private BulkWriter bulkWriter;
+  private TableDefinition tableDefinition;
+  private TableDefinition insertDefinition;
+  private final TableId stagingTableId;
+  private String upsertFromStagingSql;
+  private boolean stagingTableCreated = false;
+  private final TableId shadowTableId;
+  private final TableId retiredTableId;
+  // The topic partition of the records of the table in snapshot mode, which have a single writer
+  private String snapshotPartition;
+  private final SchemaLayoutCache layouts;
+  private SchemaLayoutCache.Layout layout;
+  private final SinkMetrics.TableMetrics metrics;
+  private final RecordAggregator aggregator;
 
   public BufferedRecords(
       JdbcSinkConfig config,
@@ -70,63 +109,132 @@ public class BufferedRecords {
       DbStructure dbStructure,
       Connection connection
   ) {
+    this(
+        config,
+        tableId,
+        dbDialect,
+        dbStructure,
+        connection,
+        SinkMetrics.unregistered().table(tableId)
+    );
+  }
+
+  BufferedRecords(
+      JdbcSinkConfig config,
+      TableId tableId,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      Connection connection,
+      SinkMetrics.TableMetrics metrics
+  ) {
+    this.metrics = metrics;
     this.tableId = tableId;
     this.config = config;
     this.dbDialect = dbDialect;
     this.dbStructure = dbStructure;
     this.connection = connection;
     this.recordValidator = RecordValidator.create(config);
+    this.layouts = new SchemaLayoutCache(config, tableId.tableName());
+    this.aggregator = new RecordAggregator(config.aggregateColumns);
+    // Each buffer has its own staging table, since a discarded buffer may leave its table behind
+    this.stagingTableId = config.insertMode == BULK_UPSERT
+        ? new TableId(
+            null,
+            null,
+            stagingTableName(
+                tableId.tableName(),
+                STAGING_TABLE_COUNT.incrementAndGet(),
+                dbDialect.maxIdentifierLength()
+            )
+        )
+        : null;
+    // Unlike staging tables, the shadow table outlives the buffer until the snapshot is complete
+    this.shadowTableId = config.insertMode == SNAPSHOT
+        ? new TableId(tableId.catalogName(), tableId.schemaName(), tableId.tableName() + "_shadow")
+        : null;
+    this.retiredTableId = config.insertMode == SNAPSHOT
+        ? new TableId(tableId.catalogName(), tableId.schemaName(), tableId.tableName() + "_retired")
+        : null;
+  }
+
+  /**
+   * Derive the name of a staging table from the name of its destination table. Names that would
+   * exceed the dialect's limit are shortened to a prefix and a hash of the table name, keeping the
+   * number that makes the name unique, since some databases truncate long names silently.
+   *
+   * @param tableName the name of the destination table; may not be null
+   * @param number    the number of the staging table
+   * @param maxLength the maximum length of identifiers, or 0 if not known
+   * @return the name of the staging table; never null
+   */
+  static String stagingTableName(String tableName, long number, int maxLength) {
+    final String suffix = "_staging_" + number;
+    if (maxLength <= 0 || tableName.length() + suffix.length() <= maxLength) {
+      return tableName + suffix;
+    }
+    final String hash = "_" + Integer.toHexString(tableName.hashCode());
+    final int prefixLength = Math.max(0, maxLength - hash.length() - suffix.length());
+    return tableName.substring(0, prefixLength) + hash + suffix;
   }
 
   public List<SinkRecord> add(SinkRecord record) throws SQLException {
-    recordValidator.validate(record);
     final List<SinkRecord> flushed = new ArrayList<>();
+    if (config.insertMode == SNAPSHOT) {
+      checkSnapshotPartition(record);
+    }
+    if (isSnapshotStart(record)) {
+      // The buffered records belong to the incomplete snapshot whose rows are removed
+      flushed.addAll(flush());
+      dropShadowTable();
+    }
+    final boolean snapshotComplete = isSnapshotComplete(record);
+    if (snapshotComplete && isNull(record.value())) {
+      // A record without a value only marks the end of the snapshot, and is not written
+      flushed.addAll(flush());
+      swapShadowTable();
+      return flushed;
+    }
+    recordValidator.validate(record);
 
+    // For deletes, value and optionally value schema come in as null.
+    // We don't want to treat this as a schema change if key schemas is the same
+    // otherwise we flush unnecessarily.
+    final Schema recordValueSchema =
+        isNull(record.valueSchema()) ? valueSchema : record.valueSchema();
     boolean schemaChanged = false;
-    if (!Objects.equals(keySchema, record.keySchema())) {
+    if (keySchema != record.keySchema() || valueSchema != recordValueSchema) {
+      // Records of another schema with the same columns can still be written in this batch
+      schemaChanged = !sameColumns(record.keySchema(), recordValueSchema);
       keySchema = record.keySchema();
-      schemaChanged = true;
+      valueSchema = recordValueSchema;
     }
     if (isNull(record.valueSchema())) {
-      // For deletes, value and optionally value schema come in as null.
-      // We don't want to treat this as a schema change if key schemas is the same
-      // otherwise we flush unnecessarily.
       if (config.deleteEnabled) {
         deletesInBatch = true;
       }
-    } else if (Objects.equals(valueSchema, record.valueSchema())) {
-      if (config.deleteEnabled && deletesInBatch) {
-        // flush so an insert after a delete of same record isn't lost
-        flushed.addAll(flush());
-      }
-    } else {
-      // value schema is not null and has changed. This is a real schema change.
-      valueSchema = record.valueSchema();
-      schemaChanged = true;
+    } else if (!schemaChanged && config.deleteEnabled && deletesInBatch && !compactsByKey()) {
+      // flush so an insert after a delete of same record isn't lost
+      flushed.addAll(flush());
     }
-    if (schemaChanged || updateStatementBinder == null) {
+    if (schemaChanged || updateStatementBinder == null || tableDefinitionRefreshed()) {
+      if (schemaChanged && !records.isEmpty()) {
+        metrics.recordSchemaChangeFlush();
+      }
       // Each batch needs to have the same schemas, so get the buffered records out
       flushed.addAll(flush());
 
       // re-initialize everything that depends on the record schema
-      final SchemaPair schemaPair = new SchemaPair(
-          record.keySchema(),
-          record.valueSchema()
-      );
-      fieldsMetadata = FieldsMetadata.extract(
-          tableId.tableName(),
-          config.pkMode,
-          config.pkFields,
-          config.fieldsWhitelist,
-          schemaPair
-      );
+      layout = layouts.layout(keySchema, valueSchema);
+      schemaPair = layout.schemaPair;
+      fieldsMetadata = layout.fieldsMetadata;
       dbStructure.createOrAmendIfNecessary(
           config,
           connection,
-          tableId,
+          destinationTableId(),
           fieldsMetadata
       );
-      final String insertSql = getInsertSql();
+      tableDefinition = dbStructure.tableDefinition(connection, destinationTableId());
+      final String insertSql = getInsertSql(1);
       final String deleteSql = getDeleteSql();
       log.debug(
           "{} sql: {} deleteSql: {} meta: {}",
@@ -136,13 +244,18 @@ public class BufferedRecords {
           fieldsMetadata
       );
       close();
+      if (config.insertMode == BULK_UPSERT) {
+        createStagingTable();
+      }
+      // Look the definition up once, so that flushing never needs the shared table definitions
+      insertDefinition = insertTableDefinition();
       updatePreparedStatement = dbDialect.createPreparedStatement(connection, insertSql);
       updateStatementBinder = dbDialect.statementBinder(
           updatePreparedStatement,
           config.pkMode,
           schemaPair,
           fieldsMetadata,
-          dbStructure.tableDefinition(connection, tableId),
+          insertDefinition,
           config.insertMode
       );
       if (config.deleteEnabled && nonNull(deleteSql)) {
@@ -152,7 +265,25 @@ public class BufferedRecords {
             config.pkMode,
             schemaPair,
             fieldsMetadata,
-            dbStructure.tableDefinition(connection, tableId),
+            tableDefinition,
+            config.insertMode
+        );
+      }
+      prepareMultiRowDelete();
+      keyExtractor = new PrimaryKeyExtractor(config.pkMode, fieldsMetadata, schemaPair);
+      bulkWriter = createBulkWriter();
+      rowsPerStatement = rowsPerStatement();
+      multiRowStatementBinder = null;
+      if (rowsPerStatement > 1) {
+        final String multiRowSql = getInsertSql(rowsPerStatement);
+        log.debug("{} sql for {} rows: {}", config.insertMode, rowsPerStatement, multiRowSql);
+        multiRowPreparedStatement = dbDialect.createPreparedStatement(connection, multiRowSql);
+        multiRowStatementBinder = dbDialect.statementBinder(
+            multiRowPreparedStatement,
+            config.pkMode,
+            schemaPair,
+            fieldsMetadata,
+            insertDefinition,
             config.insertMode
         );
       }
@@ -164,33 +295,196 @@ public class BufferedRecords {
     }
 
     records.add(record);
+    recordBytes += RecordSizeEstimator.estimate(record);
 
-    if (records.size() >= config.batchSize) {
+    if (snapshotComplete) {
+      flushed.addAll(flush());
+      swapShadowTable();
+    } else if (records.size() >= config.batchSize
+        || (config.batchMaxBytes > 0 && recordBytes >= config.batchMaxBytes)) {
       flushed.addAll(flush());
     }
     return flushed;
   }
 
+  /**
+   * Determine whether the given record marks the start of a snapshot in {@code snapshot} mode.
+   *
+   * @param record the record; may not be null
+   * @return true if the record has the snapshot start header
+   */
+  private boolean isSnapshotStart(SinkRecord record) {
+    return config.insertMode == SNAPSHOT
+        && nonNull(record.headers().lastWithName(config.snapshotStartHeader));
+  }
+
+  /**
+   * Fail if the given record comes from another topic partition than the earlier records of the
+   * table, since snapshots that are written by several writers would be swapped in partially.
+   *
+   * @param record the record; may not be null
+   */
+  private void checkSnapshotPartition(SinkRecord record) {
+    final String partition = record.topic() + "-" + record.kafkaPartition();
+    if (isNull(snapshotPartition)) {
+      snapshotPartition = partition;
+    } else if (!snapshotPartition.equals(partition)) {
+      throw new ConnectException(String.format(
+          "Write to table '%s' in SNAPSHOT mode requires all records to come from a single topic "
+              + "partition, but records came from %s and %s",
+          tableId,
+          snapshotPartition,
+          partition
+      ));
+    }
+  }
+
+  /**
+   * Drop the shadow table that an earlier snapshot left behind without being completed, so that
+   * the snapshot that starts now does not include its rows. The statements are closed, so that
+   * the shadow table is created again for the first record of the new snapshot.
+   */
+  private void dropShadowTable() throws SQLException {
+    if (isNull(dbStructure.tableDefinition(connection, shadowTableId))) {
+      return;
+    }
+    closeStatements();
+    final String sql = dbDialect.buildDropTableStatement(shadowTableId, new DropOptions());
+    log.info("Dropping shadow table {} of an incomplete snapshot with sql: {}", shadowTableId, sql);
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate(sql);
+    } finally {
+      dbStructure.invalidate(shadowTableId);
+    }
+  }
+
+  /**
+   * Determine whether the given record marks the end of a snapshot in {@code snapshot} mode.
+   *
+   * @param record the record; may not be null
+   * @return true if the record has the snapshot complete header
+   */
+  private boolean isSnapshotComplete(SinkRecord record) {
+    return config.insertMode == SNAPSHOT
+        && nonNull(record.headers().lastWithName(config.snapshotCompleteHeader));
+  }
+
+  /**
+   * Replace the table with the shadow table of the snapshot that was just completed, and drop
+   * the replaced table. The statements are closed first, as some databases keep writing to the
+   * renamed table through them, and are prepared again with a new shadow table for the next
+   * snapshot.
+   */
+  private void swapShadowTable() throws SQLException {
+    if (isNull(dbStructure.tableDefinition(connection, shadowTableId))) {
+      log.warn("Ignoring the end of a snapshot of table '{}' without any records", tableId);
+      return;
+    }
+    closeStatements();
+    final List<String> statements = new ArrayList<>();
+    if (nonNull(dbStructure.tableDefinition(connection, retiredTableId))) {
+      // Left behind by an earlier swap, if the database does not roll back failed DDL statements
+      statements.add(dbDialect.buildDropTableStatement(retiredTableId, new DropOptions()));
+    }
+    final boolean tableExists = nonNull(dbStructure.tableDefinition(connection, tableId));
+    statements.addAll(swapTableStatements(tableExists ? retiredTableId : null));
+    if (tableExists) {
+      statements.add(dbDialect.buildDropTableStatement(retiredTableId, new DropOptions()));
+    }
+    log.info(
+        "Replacing table {} with shadow table {} with sql: {}",
+        tableId,
+        shadowTableId,
+        statements
+    );
+    // Not applied as DDL statements, which commit, so that databases with transactional DDL only
+    // replace the table when the last records of the snapshot are committed
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : statements) {
+        statement.executeUpdate(sql);
+      }
+    } finally {
+      dbStructure.invalidate(tableId);
+      dbStructure.invalidate(shadowTableId);
+      dbStructure.invalidate(retiredTableId);
+    }
+  }
+
+  private List<String> swapTableStatements(TableId retiredTable) {
+    try {
+      return dbDialect.buildSwapTableStatements(tableId, shadowTableId, retiredTable);
+    } catch (UnsupportedOperationException e) {
+      throw new ConnectException(String.format(
+          "Write to table '%s' in SNAPSHOT mode is not supported with the %s dialect.",
+          tableId,
+          dbDialect.name()
+      ));
+    }
+  }
+
+  /**
+   * Determine whether records of the given schemas have the same columns as the records of the
+   * current schemas, and can be written with the same statements. Comparing the layouts of cached
+   * schema instances avoids comparing the schemas themselves.
+   *
+   * @param newKeySchema   the key schema of the record; may be null
+   * @param newValueSchema the value schema of the record; may be null
+   * @return true if the current statements can write the record
+   */
+  private boolean sameColumns(Schema newKeySchema, Schema newValueSchema) {
+    if (isNull(layout)) {
+      return false;
+    }
+    final SchemaLayoutCache.Layout cached = layouts.cached(newKeySchema, newValueSchema);
+    if (nonNull(cached)) {
+      return cached.sameColumns(layout);
+    }
+    // Equal schemas in new instances, as some converters create them for every record
+    if (Objects.equals(keySchema, newKeySchema) && Objects.equals(valueSchema, newValueSchema)) {
+      return true;
+    }
+    return layouts.layout(newKeySchema, newValueSchema).sameColumns(layout);
+  }
+
   public List<SinkRecord> flush() throws SQLException {
     if (records.isEmpty()) {
       log.debug("Records is empty");
       return new ArrayList<>();
     }
     log.debug("Flushing {} buffered records", records.size());
-    for (SinkRecord record : records) {
+    final long flushStart = System.nanoTime();
+    List<SinkRecord> writtenRecords = records;
+    if (compactsByKey()) {
+      writtenRecords = lastRecordPerKey(records);
+      log.debug("Compacted buffered records to {} keys", writtenRecords.size());
+    } else if (config.insertMode == AGGREGATE_UPSERT) {
+      writtenRecords = aggregator.aggregate(records, keyExtractor);
+      log.debug("Aggregated buffered records to {} records", writtenRecords.size());
+    }
+    if (config.batchSortEnabled && keyExtractor.hasKey()) {
+      writtenRecords = sortedByKey(writtenRecords);
+    }
+    final List<SinkRecord> unboundRecords = new ArrayList<>();
+    final List<SinkRecord> deletes = new ArrayList<>();
+    for (SinkRecord record : writtenRecords) {
       if (isNull(record.value()) && nonNull(deleteStatementBinder)) {
-        deleteStatementBinder.bindRecord(record);
+        deletes.add(record);
       } else {
-        updateStatementBinder.bindRecord(record);
+        unboundRecords.add(record);
       }
     }
-    Optional<Long> totalUpdateCount = executeUpdates();
-    long totalDeleteCount = executeDeletes();
+    final long executeStart = System.nanoTime();
+    final Optional<Long> totalUpdateCount = config.insertMode == BULK_UPSERT
+        ? executeStagedUpserts(unboundRecords)
+        : executeInserts(unboundRecords);
+    long totalDeleteCount = executeDeletes(deletes);
+    final long executeEnd = System.nanoTime();
 
     final long expectedCount = updateRecordCount();
     log.trace("{} records:{} resulting in totalUpdateCount:{} totalDeleteCount:{}",
         config.insertMode, records.size(), totalUpdateCount, totalDeleteCount
     );
+    // Only plain inserts write every record, e.g. INSERT_IGNORE skips the keys that exist
     if (totalUpdateCount.filter(total -> total != expectedCount).isPresent()
         && config.insertMode == INSERT) {
       throw new ConnectException(String.format(
@@ -207,18 +501,196 @@ public class BufferedRecords {
       );
     }
 
+    metrics.recordFlush(
+        records.size(),
+        recordBytes,
+        totalUpdateCount.orElse(0L) + totalDeleteCount,
+        (executeEnd - flushStart) / 1e6,
+        (executeEnd - executeStart) / 1e6
+    );
+
     final List<SinkRecord> flushedRecords = records;
     records = new ArrayList<>();
+    recordBytes = 0L;
     deletesInBatch = false;
     return flushedRecords;
   }
 
+  /**
+   * Write the records with the bulk writer, multi-row statements or a batch of single-row
+   * statements, whichever is available.
+   *
+   * @return an optional count of all updated rows or an empty optional if no info is available
+   */
+  private Optional<Long> executeInserts(List<SinkRecord> updates) throws SQLException {
+    if (nonNull(bulkWriter)) {
+      return updates.isEmpty() ? Optional.of(0L) : Optional.of(bulkWriter.write(updates));
+    }
+    if (nonNull(multiRowStatementBinder)) {
+      return executeMultiRowUpdates(updates);
+    }
+    for (SinkRecord record : updates) {
+      updateStatementBinder.bindRecord(record);
+    }
+    return executeUpdates();
+  }
+
+  /**
+   * Load the records into the staging table, upsert the staging table into the
+   * destination table with a single statement, and then empty the staging table again.
+   *
+   * @return an optional count of all upserted rows
+   */
+  private Optional<Long> executeStagedUpserts(List<SinkRecord> updates) throws SQLException {
+    if (updates.isEmpty()) {
+      return Optional.of(0L);
+    }
+    executeInserts(updates);
+    try (Statement statement = connection.createStatement()) {
+      final long upsertCount = statement.executeUpdate(upsertFromStagingSql);
+      statement.executeUpdate(
+          dbDialect.expressionBuilder().append("DELETE FROM ").append(stagingTableId).toString()
+      );
+      return Optional.of(upsertCount);
+    }
+  }
+
+  /**
+   * Determine whether only the last record of each key in a batch is written. Since an upsert or
+   * a delete replaces the whole row, the last record alone determines the final state of its row,
+   * and none of the intermediate states are ever visible outside of the transaction.
+   *
+   * @return true if the buffered records are compacted by key before they are written
+   */
+  private boolean compactsByKey() {
+    // A set-based upsert cannot write the same row twice, so bulk upserts always compact
+    final boolean compactingMode = config.insertMode == BULK_UPSERT
+        || (config.insertMode == UPSERT && config.batchDedupeEnabled);
+    return compactingMode
+        && (config.pkMode == PrimaryKeyMode.RECORD_KEY
+            || config.pkMode == PrimaryKeyMode.RECORD_VALUE);
+  }
+
+  /**
+   * Keep only the last record of each key, which is either an upsert or a delete.
+   *
+   * @param records the records; may not be null
+   * @return the last record of each key; never null
+   */
+  private List<SinkRecord> lastRecordPerKey(List<SinkRecord> records) {
+    final Map<List<Object>, SinkRecord> lastRecords = new LinkedHashMap<>();
+    for (SinkRecord record : records) {
+      lastRecords.put(keyExtractor.keyValues(record), record);
+    }
+    return new ArrayList<>(lastRecords.values());
+  }
+
+  /**
+   * Sort the records by their primary key. The sort is stable, so records with the same key stay
+   * in the order they were received.
+   *
+   * @param records the records; may not be null
+   * @return a new list of the records in key order; never null
+   */
+  private List<SinkRecord> sortedByKey(List<SinkRecord> records) {
+    final List<Map.Entry<List<Object>, SinkRecord>> keyed = new ArrayList<>(records.size());
+    for (SinkRecord record : records) {
+      keyed.add(new SimpleImmutableEntry<>(keyExtractor.keyValues(record), record));
+    }
+    keyed.sort(Map.Entry.comparingByKey(PrimaryKeyExtractor.KEY_ORDER));
+    final List<SinkRecord> sorted = new ArrayList<>(records.size());
+    for (Map.Entry<List<Object>, SinkRecord> entry : keyed) {
+      sorted.add(entry.getValue());
+    }
+    return sorted;
+  }
+
   /**
    * @return an optional count of all updated rows or an empty optional if no info is available
    */
   private Optional<Long> executeUpdates() throws SQLException {
+    return addUpdateCounts(Optional.empty(), updatePreparedStatement.executeBatch());
+  }
+
+  /**
+   * Write the records with multi-row statements of {@link #rowsPerStatement} rows each. Rows that
+   * do not fill a whole statement are written with a statement sized to fit them.
+   *
+   * @return an optional count of all updated rows or an empty optional if no info is available
+   */
+  private Optional<Long> executeMultiRowUpdates(List<SinkRecord> updates) throws SQLException {
+    // An upsert statement may not write the same key twice, e.g. PostgreSQL rejects this with
+    // "ON CONFLICT DO UPDATE command cannot affect row a second time"
+    final boolean uniqueKeys = (config.insertMode == UPSERT || config.insertMode == SNAPSHOT)
+        && keyExtractor.hasKey();
+    final Set<List<Object>> keysInRows = new HashSet<>();
+    final List<SinkRecord> rows = new ArrayList<>(rowsPerStatement);
     Optional<Long> count = Optional.empty();
-    for (int updateCount : updatePreparedStatement.executeBatch()) {
+    int batchedStatements = 0;
+    for (SinkRecord record : updates) {
+      if (uniqueKeys && !keysInRows.add(keyExtractor.keyValues(record))) {
+        // Write everything before this record first so that per-key order is retained
+        count = executeRows(count, batchedStatements, rows);
+        batchedStatements = 0;
+        keysInRows.clear();
+        keysInRows.add(keyExtractor.keyValues(record));
+      }
+      rows.add(record);
+      if (rows.size() == rowsPerStatement) {
+        bindRows(multiRowStatementBinder, rows);
+        multiRowPreparedStatement.addBatch();
+        batchedStatements++;
+        rows.clear();
+        keysInRows.clear();
+      }
+    }
+    return executeRows(count, batchedStatements, rows);
+  }
+
+  private Optional<Long> executeRows(
+      Optional<Long> count,
+      int batchedStatements,
+      List<SinkRecord> rows
+  ) throws SQLException {
+    if (batchedStatements > 0) {
+      count = addUpdateCounts(count, multiRowPreparedStatement.executeBatch());
+    }
+    if (rows.size() == 1) {
+      updateStatementBinder.bindRecord(rows.get(0));
+      count = addUpdateCounts(count, updatePreparedStatement.executeBatch());
+    } else if (rows.size() > 1) {
+      final String sql = getInsertSql(rows.size());
+      try (PreparedStatement statement = dbDialect.createPreparedStatement(connection, sql)) {
+        bindRows(
+            dbDialect.statementBinder(
+                statement,
+                config.pkMode,
+                schemaPair,
+                fieldsMetadata,
+                insertDefinition,
+                config.insertMode
+            ),
+            rows
+        );
+        count = addUpdateCounts(count, new int[] {statement.executeUpdate()});
+      }
+    }
+    rows.clear();
+    return count;
+  }
+
+  private static void bindRows(
+      StatementBinder binder,
+      List<SinkRecord> rows
+  ) throws SQLException {
+    int index = 1;
+    for (SinkRecord row : rows) {
+      index = binder.bindRecord(index, row);
+    }
+  }
+
+  private static Optional<Long> addUpdateCounts(Optional<Long> count, int[] updateCounts) {
+    for (int updateCount : updateCounts) {
       if (updateCount != Statement.SUCCESS_NO_INFO) {
         count = count.isPresent()
             ? count.map(total -> total + updateCount)
@@ -228,16 +700,234 @@ public class BufferedRecords {
     return count;
   }
 
-  private long executeDeletes() throws SQLException {
-    long totalDeleteCount = 0;
-    if (nonNull(deletePreparedStatement)) {
-      for (int updateCount : deletePreparedStatement.executeBatch()) {
-        if (updateCount != Statement.SUCCESS_NO_INFO) {
-          totalDeleteCount += updateCount;
-        }
+  /**
+   * Create the dialect's bulk writer if bulk loading is enabled and supported.
+   *
+   * @return the bulk writer, or null if the records should be written with INSERT statements
+   */
+  private BulkWriter createBulkWriter() throws SQLException {
+    if (!config.insertBulkEnabled
+        || (config.insertMode != INSERT && config.insertMode != BULK_UPSERT)) {
+      return null;
+    }
+    try {
+      return dbDialect.bulkWriter(
+          connection,
+          insertTableId(),
+          config.pkMode,
+          schemaPair,
+          fieldsMetadata,
+          insertDefinition
+      );
+    } catch (UnsupportedOperationException e) {
+      log.warn(
+          "Bulk loading into table '{}' is not supported with the {} dialect, using INSERT "
+          + "statements instead",
+          insertTableId(),
+          dbDialect.name()
+      );
+      return null;
+    }
+  }
+
+  /**
+   * Determine how many records are written by each INSERT or UPSERT statement, based upon the
+   * dialect's limit on bind variables and the number of columns.
+   *
+   * @return the number of rows per statement; at least 1
+   */
+  private int rowsPerStatement() {
+    if (!config.insertMultiRowEnabled
+        || nonNull(bulkWriter)
+        || (config.insertMode != INSERT
+            && config.insertMode != UPSERT
+            && config.insertMode != BULK_UPSERT
+            && config.insertMode != INSERT_IGNORE
+            && config.insertMode != AGGREGATE_UPSERT
+            && config.insertMode != SNAPSHOT)) {
+      return 1;
+    }
+    final int maxBindVariables = dbDialect.maxBindVariables();
+    final int columnCount = fieldsMetadata.allFields.size();
+    if (maxBindVariables <= 0 || columnCount == 0) {
+      return 1;
+    }
+    return Math.max(1, Math.min(config.batchSize, maxBindVariables / columnCount));
+  }
+
+  /**
+   * Create the staging table of {@code bulk_upsert} mode for the current schemas. The table is
+   * dropped again by {@link #close()}, or by {@link #discard()} after a failed write.
+   */
+  private void createStagingTable() throws SQLException {
+    final String createSql;
+    try {
+      createSql = dbDialect.buildCreateStagingTableStatement(
+          stagingTableId,
+          fieldsMetadata.allFields.values()
+      );
+      upsertFromStagingSql = dbDialect.buildUpsertFromStagingStatement(
+          tableId,
+          stagingTableId,
+          asColumns(fieldsMetadata.keyFieldNames),
+          asColumns(fieldsMetadata.nonKeyFieldNames),
+          tableDefinition
+      );
+    } catch (UnsupportedOperationException e) {
+      throw new ConnectException(String.format(
+          "Write to table '%s' in BULK_UPSERT mode is not supported with the %s dialect.",
+          tableId,
+          dbDialect.name()
+      ));
+    }
+    log.debug(
+        "Creating staging table with sql: {} upsert sql: {}",
+        createSql,
+        upsertFromStagingSql
+    );
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate(createSql);
+    }
+    stagingTableCreated = true;
+  }
+
+  private void dropStagingTable() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate(dbDialect.buildDropTableStatement(stagingTableId, new DropOptions()));
+    }
+    stagingTableCreated = false;
+  }
+
+  /**
+   * Drop the staging table after a failed write, when it may have been created by an earlier
+   * write. The drop is committed on its own, since the buffer is not used again, and failures are
+   * ignored, as the creation of the table may have been rolled back with the write.
+   */
+  private void dropStagingTableQuietly() {
+    stagingTableCreated = false;
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate(dbDialect.buildDropTableStatement(stagingTableId, new DropOptions()));
+      connection.commit();
+    } catch (SQLException e) {
+      log.debug("Ignoring error dropping staging table {}", stagingTableId, e);
+      try {
+        connection.rollback();
+      } catch (SQLException sqle) {
+        log.debug("Ignoring error rolling back after dropping staging table", sqle);
+      }
+    }
+  }
+
+  /**
+   * @return the table written by the insert statements, which is the staging table in
+   *         {@code bulk_upsert} mode
+   */
+  private TableId insertTableId() {
+    return config.insertMode == BULK_UPSERT ? stagingTableId : destinationTableId();
+  }
+
+  /**
+   * @return the table that is created or amended for the records, which is the shadow table in
+   *         {@code snapshot} mode
+   */
+  private TableId destinationTableId() {
+    return config.insertMode == SNAPSHOT ? shadowTableId : tableId;
+  }
+
+  private TableDefinition insertTableDefinition() {
+    // The staging table matches the record schemas, so it needs no definition for casts
+    return config.insertMode == BULK_UPSERT ? null : tableDefinition;
+  }
+
+  /**
+   * Prepare the statement that deletes {@link #keysPerDelete} keys at once, if the dialect has a
+   * limit on bind variables and supports deleting several keys with one statement.
+   */
+  private void prepareMultiRowDelete() throws SQLException {
+    keysPerDelete = 1;
+    multiRowDeleteStatementBinder = null;
+    final int maxBindVariables = dbDialect.maxBindVariables();
+    final int keyCount = fieldsMetadata.keyFieldNames.size();
+    if (isNull(deletePreparedStatement) || maxBindVariables <= 0 || keyCount == 0) {
+      return;
+    }
+    final int keys = Math.min(config.batchSize, maxBindVariables / keyCount);
+    if (keys <= 1) {
+      return;
+    }
+    final String sql;
+    try {
+      sql = getDeleteSql(keys);
+    } catch (UnsupportedOperationException e) {
+      log.debug(
+          "Deleting one key per statement, as the {} dialect does not support more",
+          dbDialect.name()
+      );
+      return;
+    }
+    log.debug("deleteSql for {} keys: {}", keys, sql);
+    keysPerDelete = keys;
+    multiRowDeletePreparedStatement = dbDialect.createPreparedStatement(connection, sql);
+    multiRowDeleteStatementBinder = dbDialect.statementBinder(
+        multiRowDeletePreparedStatement,
+        config.pkMode,
+        schemaPair,
+        fieldsMetadata,
+        tableDefinition,
+        config.insertMode
+    );
+  }
+
+  /**
+   * Delete the rows of the given records with statements of {@link #keysPerDelete} keys each, or
+   * with a batch of single-key statements if the dialect cannot delete several keys at once.
+   *
+   * @return the number of deleted rows, as far as it is known
+   */
+  private long executeDeletes(List<SinkRecord> deletes) throws SQLException {
+    if (deletes.isEmpty()) {
+      return 0L;
+    }
+    if (isNull(multiRowDeleteStatementBinder)) {
+      for (SinkRecord record : deletes) {
+        deleteStatementBinder.bindRecord(record);
+      }
+      return addUpdateCounts(Optional.empty(), deletePreparedStatement.executeBatch()).orElse(0L);
+    }
+    Optional<Long> count = Optional.empty();
+    final int fullStatements = deletes.size() / keysPerDelete;
+    for (int i = 0; i < fullStatements; i++) {
+      bindRows(
+          multiRowDeleteStatementBinder,
+          deletes.subList(i * keysPerDelete, (i + 1) * keysPerDelete)
+      );
+      multiRowDeletePreparedStatement.addBatch();
+    }
+    if (fullStatements > 0) {
+      count = addUpdateCounts(count, multiRowDeletePreparedStatement.executeBatch());
+    }
+    final List<SinkRecord> rest = deletes.subList(fullStatements * keysPerDelete, deletes.size());
+    if (rest.size() == 1) {
+      deleteStatementBinder.bindRecord(rest.get(0));
+      count = addUpdateCounts(count, deletePreparedStatement.executeBatch());
+    } else if (rest.size() > 1) {
+      try (PreparedStatement statement =
+               dbDialect.createPreparedStatement(connection, getDeleteSql(rest.size()))) {
+        bindRows(
+            dbDialect.statementBinder(
+                statement,
+                config.pkMode,
+                schemaPair,
+                fieldsMetadata,
+                tableDefinition,
+                config.insertMode
+            ),
+            rest
+        );
+        count = addUpdateCounts(count, new int[] {statement.executeUpdate()});
       }
     }
-    return totalDeleteCount;
+    return count.orElse(0L);
   }
 
   private long updateRecordCount() {
@@ -248,7 +938,55 @@ public class BufferedRecords {
         .count();
   }
 
+  /**
+   * Determine whether the definition of the table was refreshed since the statements were
+   * prepared, for instance because the table was altered. This is only checked when no records
+   * are buffered, so that the statements are reused for the records of many puts.
+   *
+   * @return true if the statements have to be prepared again
+   */
+  private boolean tableDefinitionRefreshed() throws SQLException {
+    return records.isEmpty()
+        && nonNull(updateStatementBinder)
+        && dbStructure.tableDefinition(connection, destinationTableId()) != tableDefinition;
+  }
+
+  /**
+   * Get the connection that this buffer writes to.
+   *
+   * @return the connection; never null
+   */
+  Connection connection() {
+    return connection;
+  }
+
+  /**
+   * Close the statements and forget the buffered records without writing to the database, for
+   * instance after the transaction of a write was rolled back. The staging table is dropped as
+   * well, since the session may outlive the buffer, but failing to drop it is ignored. The
+   * transaction of the write must already have been committed or rolled back.
+   */
+  public void discard() throws SQLException {
+    records = new ArrayList<>();
+    recordBytes = 0L;
+    deletesInBatch = false;
+    try {
+      closeStatements();
+    } finally {
+      if (stagingTableCreated) {
+        dropStagingTableQuietly();
+      }
+    }
+  }
+
   public void close() throws SQLException {
+    closeStatements();
+    if (stagingTableCreated) {
+      dropStagingTable();
+    }
+  }
+
+  private void closeStatements() throws SQLException {
     log.debug(
         "Closing BufferedRecords with updatePreparedStatement: {} deletePreparedStatement: {}",
         updatePreparedStatement,
@@ -262,51 +1000,147 @@ public class BufferedRecords {
       deletePreparedStatement.close();
       deletePreparedStatement = null;
     }
+    if (nonNull(multiRowPreparedStatement)) {
+      multiRowPreparedStatement.close();
+      multiRowPreparedStatement = null;
+    }
+    if (nonNull(multiRowDeletePreparedStatement)) {
+      multiRowDeletePreparedStatement.close();
+      multiRowDeletePreparedStatement = null;
+    }
+    updateStatementBinder = null;
   }
 
-  private String getInsertSql() throws SQLException {
+  private String getInsertSql(int rowCount) throws SQLException {
     switch (config.insertMode) {
       case INSERT:
         return dbDialect.buildInsertStatement(
             tableId,
             asColumns(fieldsMetadata.keyFieldNames),
             asColumns(fieldsMetadata.nonKeyFieldNames),
-            dbStructure.tableDefinition(connection, tableId)
+            tableDefinition,
+            rowCount
         );
       case UPSERT:
-        if (fieldsMetadata.keyFieldNames.isEmpty()) {
+        checkKeyFieldsKnown();
+        try {
+          return dbDialect.buildUpsertQueryStatement(
+              tableId,
+              asColumns(fieldsMetadata.keyFieldNames),
+              asColumns(fieldsMetadata.nonKeyFieldNames),
+              tableDefinition,
+              rowCount
+          );
+        } catch (UnsupportedOperationException e) {
           throw new ConnectException(String.format(
-              "Write to table '%s' in UPSERT mode requires key field names to be known, check the"
-                  + " primary key configuration",
-              tableId
+              "Write to table '%s' in UPSERT mode is not supported with the %s dialect.",
+              tableId,
+              dbDialect.name()
           ));
         }
+      case INSERT_IGNORE:
+        checkKeyFieldsKnown();
         try {
-          return dbDialect.buildUpsertQueryStatement(
+          return dbDialect.buildInsertIgnoreStatement(
               tableId,
               asColumns(fieldsMetadata.keyFieldNames),
               asColumns(fieldsMetadata.nonKeyFieldNames),
-              dbStructure.tableDefinition(connection, tableId)
+              tableDefinition,
+              rowCount
           );
         } catch (UnsupportedOperationException e) {
           throw new ConnectException(String.format(
-              "Write to table '%s' in UPSERT mode is not supported with the %s dialect.",
+              "Write to table '%s' in INSERT_IGNORE mode is not supported with the %s dialect.",
               tableId,
               dbDialect.name()
           ));
         }
+      case AGGREGATE_UPSERT:
+        checkKeyFieldsKnown();
+        checkAggregateColumnsKnown();
+        try {
+          return dbDialect.buildAggregateUpsertStatement(
+              tableId,
+              asColumns(fieldsMetadata.keyFieldNames),
+              asColumns(fieldsMetadata.nonKeyFieldNames),
+              config.aggregateColumns,
+              tableDefinition,
+              rowCount
+          );
+        } catch (UnsupportedOperationException e) {
+          throw new ConnectException(String.format(
+              "Write to table '%s' in AGGREGATE_UPSERT mode is not supported with the %s "
+                  + "dialect.",
+              tableId,
+              dbDialect.name()
+          ));
+        }
+      case SNAPSHOT:
+        checkKeyFieldsKnown();
+        // Fail before the first snapshot is written if the table cannot be swapped in the end
+        swapTableStatements(retiredTableId);
+        // Upserted, so that redelivered records of the snapshot replace their rows
+        try {
+          return dbDialect.buildUpsertQueryStatement(
+              shadowTableId,
+              asColumns(fieldsMetadata.keyFieldNames),
+              asColumns(fieldsMetadata.nonKeyFieldNames),
+              tableDefinition,
+              rowCount
+          );
+        } catch (UnsupportedOperationException e) {
+          throw new ConnectException(String.format(
+              "Write to table '%s' in SNAPSHOT mode is not supported with the %s dialect.",
+              tableId,
+              dbDialect.name()
+          ));
+        }
+      case BULK_UPSERT:
+        checkKeyFieldsKnown();
+        return dbDialect.buildInsertStatement(
+            stagingTableId,
+            asColumns(fieldsMetadata.keyFieldNames),
+            asColumns(fieldsMetadata.nonKeyFieldNames),
+            null,
+            rowCount
+        );
       case UPDATE:
         return dbDialect.buildUpdateStatement(
             tableId,
             asColumns(fieldsMetadata.keyFieldNames),
             asColumns(fieldsMetadata.nonKeyFieldNames),
-            dbStructure.tableDefinition(connection, tableId)
+            tableDefinition
         );
       default:
         throw new ConnectException("Invalid insert mode");
     }
   }
 
+  private void checkKeyFieldsKnown() {
+    if (fieldsMetadata.keyFieldNames.isEmpty()) {
+      throw new ConnectException(String.format(
+          "Write to table '%s' in %s mode requires key field names to be known, check the"
+              + " primary key configuration",
+          tableId,
+          config.insertMode
+      ));
+    }
+  }
+
+  private void checkAggregateColumnsKnown() {
+    for (String column : config.aggregateColumns.keySet()) {
+      if (!fieldsMetadata.nonKeyFieldNames.contains(column)) {
+        throw new ConnectException(String.format(
+            "Write to table '%s' in %s mode requires the aggregate column '%s' to be a non-key "
+                + "field of the records",
+            tableId,
+            config.insertMode,
+            column
+        ));
+      }
+    }
+  }
+
   private String getDeleteSql() {
     String sql = null;
     if (config.deleteEnabled) {
@@ -316,10 +1150,7 @@ public class BufferedRecords {
             throw new ConnectException("Require primary keys to support delete");
           }
           try {
-            sql = dbDialect.buildDeleteStatement(
-                tableId,
-                asColumns(fieldsMetadata.keyFieldNames)
-            );
+            sql = getDeleteSql(1);
           } catch (UnsupportedOperationException e) {
             throw new ConnectException(String.format(
                 "Deletes to table '%s' are not supported with the %s dialect.",
@@ -336,6 +1167,14 @@ public class BufferedRecords {
     return sql;
   }
 
+  private String getDeleteSql(int keyCount) {
+    return dbDialect.buildDeleteStatement(
+        tableId,
+        asColumns(fieldsMetadata.keyFieldNames),
+        keyCount
+    );
+  }
+
   private Collection<ColumnId> asColumns(Collection<String> names) {
     return names.stream()
         .map(name -> new ColumnId(tableId, name))
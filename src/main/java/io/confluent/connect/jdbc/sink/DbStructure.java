@@ -15,6 +15,7 @@
 
 package io.confluent.connect.jdbc.sink;
 
+import org.apache.kafka.common.utils.SystemTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +40,7 @@ public class DbStructure {
 
   private final DatabaseDialect dbDialect;
   private final TableDefinitions tableDefns;
+  private volatile boolean ddlLocksSupported = true;
 
   public DbStructure(DatabaseDialect dbDialect) {
     this.dbDialect = dbDialect;
@@ -46,7 +48,31 @@ public class DbStructure {
   }
 
   /**
-   * Create or amend table.
+   * Create an instance whose cache of table definitions is configured by the connector
+   * configuration, and which may be shared with other tasks writing to the same database.
+   *
+   * @param dbDialect the database dialect; may not be null
+   * @param config    the connector configuration; may not be null
+   */
+  public DbStructure(DatabaseDialect dbDialect, JdbcSinkConfig config) {
+    this.dbDialect = dbDialect;
+    this.tableDefns = new TableDefinitions(
+        dbDialect,
+        config.tableDefinitionsCacheShared
+            ? String.join("|", dbDialect.name(), config.connectionUrl, config.connectionUser)
+            : null,
+        config.tableDefinitionsCacheMaxSize,
+        config.tableDefinitionsCacheTtlMs,
+        config.tableDefinitionsCacheMissingTtlMs,
+        new SystemTime()
+    );
+  }
+
+  /**
+   * Create or amend table. When the table needs DDL and the dialect supports advisory locks, the
+   * DDL is applied while holding the lock for the table, after re-reading its definition. The
+   * transaction of the connection is committed before waiting for the lock, as the DDL of the
+   * task holding the lock would otherwise wait for the rows this task wrote to the table.
    *
    * @param config the connector configuration
    * @param connection the database connection handle
@@ -60,11 +86,50 @@ public class DbStructure {
       final Connection connection,
       final TableId tableId,
       final FieldsMetadata fieldsMetadata
+  ) throws SQLException {
+    final TableDefinition tableDefn = tableDefns.get(connection, tableId);
+    if (tableDefn != null
+        && missingFields(fieldsMetadata.allFields.values(), tableDefn.columnNames()).isEmpty()) {
+      return false;
+    }
+    if (!lockForDdl(config, connection, tableId)) {
+      return createOrAmend(config, connection, tableId, fieldsMetadata);
+    }
+    try {
+      // Other tasks may have created or amended the table while this task waited for the lock
+      tableDefns.refresh(connection, tableId);
+      final boolean changed = createOrAmend(config, connection, tableId, fieldsMetadata);
+      dbDialect.unlockForDdl(connection, tableId);
+      return changed;
+    } catch (SQLException | RuntimeException e) {
+      // The failure may have aborted the transaction, which is rolled back after failures anyway,
+      // and the lock outlives the transaction, so it must still be released
+      try {
+        connection.rollback();
+      } catch (SQLException sqle) {
+        e.addSuppressed(sqle);
+      }
+      try {
+        dbDialect.unlockForDdl(connection, tableId);
+      } catch (SQLException sqle) {
+        e.addSuppressed(sqle);
+      }
+      throw e;
+    }
+  }
+
+  private boolean createOrAmend(
+      final JdbcSinkConfig config,
+      final Connection connection,
+      final TableId tableId,
+      final FieldsMetadata fieldsMetadata
   ) throws SQLException {
     if (tableDefns.get(connection, tableId) == null) {
       // Table does not yet exist, so attempt to create it ...
       try {
         create(config, connection, tableId, fieldsMetadata);
+        // The table may have been cached as missing
+        tableDefns.invalidate(tableId);
       } catch (SQLException sqle) {
         log.warn("Create failed, will attempt amend if table already exists", sqle);
         try {
@@ -80,6 +145,40 @@ public class DbStructure {
     return amendIfNecessary(config, connection, tableId, fieldsMetadata, config.maxRetries);
   }
 
+  /**
+   * Acquire the advisory lock that serializes the DDL of all tasks on the table, if enabled and
+   * supported by the dialect.
+   *
+   * @return whether the lock was acquired and must be released
+   */
+  private boolean lockForDdl(
+      final JdbcSinkConfig config,
+      final Connection connection,
+      final TableId tableId
+  ) throws SQLException {
+    if (config.ddlLockTimeoutMs <= 0 || !ddlLocksSupported) {
+      return false;
+    }
+    // The DDL statements commit the transaction as well, so this only commits it earlier
+    if (!connection.getAutoCommit()) {
+      connection.commit();
+    }
+    try {
+      if (dbDialect.lockForDdl(connection, tableId, config.ddlLockTimeoutMs)) {
+        return true;
+      }
+      log.warn(
+          "Timed out after {} ms waiting for the DDL lock on table {}, continuing without it",
+          config.ddlLockTimeoutMs,
+          tableId
+      );
+    } catch (UnsupportedOperationException e) {
+      log.debug("The {} dialect does not support DDL locks", dbDialect.name());
+      ddlLocksSupported = false;
+    }
+    return false;
+  }
+
   /**
    * Get the definition for the table with the given ID. This returns a cached definition if
    * there is one; otherwise, it reads the definition from the database
@@ -101,6 +200,16 @@ public class DbStructure {
     return tableDefns.refresh(connection, tableId);
   }
 
+  /**
+   * Forget the cached definition of the table with the given ID, for instance because writing to
+   * the table failed and the table may have been changed by others.
+   *
+   * @param tableId the ID of the table; may not be null
+   */
+  public void invalidate(TableId tableId) {
+    tableDefns.invalidate(tableId);
+  }
+
   /**
    * @throws SQLException if CREATE failed
    */
@@ -207,6 +316,7 @@ public class DbStructure {
       dbDialect.applyDdlStatements(connection, amendTableQueries);
     } catch (SQLException sqle) {
       if (maxRetries <= 0) {
+        tableDefns.invalidate(tableId);
         throw new TableAlterOrCreateException(
             String.format(
                 "Failed to amend %s '%s' to add missing fields: %s",
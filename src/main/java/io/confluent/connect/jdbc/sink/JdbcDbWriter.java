@@ -15,16 +15,32 @@
 
 package io.confluent.connect.jdbc.sink;
 
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.sink.SinkRecord;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.util.CachedConnectionProvider;
 import io.confluent.connect.jdbc.util.TableId;
 import org.slf4j.Logger;
@@ -37,16 +53,55 @@ public class JdbcDbWriter {
   private final DatabaseDialect dbDialect;
   private final DbStructure dbStructure;
   final CachedConnectionProvider cachedConnectionProvider;
+  private final List<CachedConnectionProvider> flushConnectionProviders = new ArrayList<>();
+  private ExecutorService flushExecutor;
+  // In access order, so that the buffers of the tables written longest ago are evicted first
+  private final Map<ShardId, BufferedRecords> bufferByShard = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<TableId, Integer> providerByTable = new HashMap<>();
+  private int nextTableIndex = 0;
+  private final SinkMetrics metrics;
+  private final TableRouter tableRouter;
+  private final OffsetStore offsetStore;
+  private final PrimaryKeySharder sharder;
+  private final Set<TableId> tablesCreatedAhead = new HashSet<>();
 
   JdbcDbWriter(final JdbcSinkConfig config, DatabaseDialect dbDialect, DbStructure dbStructure) {
+    this(config, dbDialect, dbStructure, SinkMetrics.unregistered());
+  }
+
+  JdbcDbWriter(
+      final JdbcSinkConfig config,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      SinkMetrics metrics
+  ) {
     this.config = config;
     this.dbDialect = dbDialect;
     this.dbStructure = dbStructure;
+    this.metrics = metrics;
+    this.tableRouter = new TableRouter(
+        config.tableNameFormat,
+        dbDialect,
+        config.timeZone.toZoneId()
+    );
+    this.offsetStore = config.offsetsTableName.isEmpty()
+                       ? null
+                       : new OffsetStore(config, dbDialect);
+    this.sharder = config.tableShards > 1 ? new PrimaryKeySharder(config) : null;
 
     this.cachedConnectionProvider = connectionProvider(
         config.connectionAttempts,
         config.connectionBackoffMs
     );
+    if (config.flushConnections > 1) {
+      // The additional connections are only opened once a write spans enough tables
+      flushConnectionProviders.add(cachedConnectionProvider);
+      for (int i = 1; i < config.flushConnections; i++) {
+        flushConnectionProviders.add(
+            connectionProvider(config.connectionAttempts, config.connectionBackoffMs)
+        );
+      }
+    }
   }
 
   protected CachedConnectionProvider connectionProvider(int maxConnAttempts, long retryBackoff) {
@@ -61,50 +116,430 @@ public class JdbcDbWriter {
 
   void write(final Collection<SinkRecord> records)
       throws SQLException, TableAlterOrCreateException {
+    if (!flushConnectionProviders.isEmpty()) {
+      writeConcurrently(records);
+      return;
+    }
+    final long writeStart = System.nanoTime();
     final Connection connection = cachedConnectionProvider.getConnection();
     try {
-      final Map<TableId, BufferedRecords> bufferByTable = new HashMap<>();
-      for (SinkRecord record : records) {
-        final TableId tableId = destinationTable(record.topic());
-        BufferedRecords buffer = bufferByTable.get(tableId);
+      final Collection<SinkRecord> unwritten = offsetStore != null
+                                               ? offsetStore.unwritten(connection, records)
+                                               : records;
+      final Map<TableId, BufferedRecords> buffersInWrite = new LinkedHashMap<>();
+      for (SinkRecord record : unwritten) {
+        final TableId tableId = destinationTable(record);
+        BufferedRecords buffer = buffersInWrite.get(tableId);
         if (buffer == null) {
-          buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, connection);
-          bufferByTable.put(tableId, buffer);
+          createTableAhead(connection, tableId, record);
+          buffer = bufferFor(new ShardId(tableId, 0), connection);
+          buffersInWrite.put(tableId, buffer);
         }
         buffer.add(record);
       }
-      for (Map.Entry<TableId, BufferedRecords> entry : bufferByTable.entrySet()) {
+      for (Map.Entry<TableId, BufferedRecords> entry : buffersInWrite.entrySet()) {
         TableId tableId = entry.getKey();
         BufferedRecords buffer = entry.getValue();
         log.debug("Flushing records in JDBC Writer for table ID: {}", tableId);
         buffer.flush();
-        buffer.close();
       }
+      final Map<TopicPartition, Long> offsets = offsetStore != null
+                                                ? offsetStore.store(connection, unwritten)
+                                                : null;
+      final long commitStart = System.nanoTime();
       connection.commit();
-    } catch (SQLException | TableAlterOrCreateException e) {
+      if (offsets != null) {
+        offsetStore.committed(offsets);
+      }
+      recordWrite(unwritten, writeStart, commitStart);
+      evictBuffers();
+    } catch (SQLException | RuntimeException e) {
       try {
         connection.rollback();
       } catch (SQLException sqle) {
         e.addSuppressed(sqle);
       } finally {
+        discardAfterFailure(e);
         throw e;
       }
     }
   }
 
+  /**
+   * Write the records like {@link #write(Collection)}, but spread the tables over the flush
+   * connections and flush the tables of each connection in parallel with the other connections.
+   * The connections are only committed once all tables have been flushed, and are all rolled back
+   * if any of them fails.
+   *
+   * <p>When tables are sharded, the records of each table are further spread over consecutive
+   * connections by the hash of their primary key.
+   */
+  private void writeConcurrently(final Collection<SinkRecord> records)
+      throws SQLException, TableAlterOrCreateException {
+    final long writeStart = System.nanoTime();
+    final Map<CachedConnectionProvider, Connection> connections = new IdentityHashMap<>();
+    final Map<Connection, List<BufferedRecords>> buffersByConnection = new IdentityHashMap<>();
+    try {
+      if (sharder != null) {
+        createOrAmendTables(records);
+      }
+      final Map<ShardId, BufferedRecords> buffersInWrite = new HashMap<>();
+      for (SinkRecord record : records) {
+        final ShardId shardId = new ShardId(
+            destinationTable(record),
+            sharder != null ? sharder.shard(record) : 0
+        );
+        BufferedRecords buffer = buffersInWrite.get(shardId);
+        if (buffer == null) {
+          final Connection connection = connections.computeIfAbsent(
+              providerFor(shardId),
+              CachedConnectionProvider::getConnection
+          );
+          createTableAhead(connection, shardId.tableId, record);
+          buffer = bufferFor(shardId, connection);
+          buffersInWrite.put(shardId, buffer);
+          buffersByConnection.computeIfAbsent(connection, c -> new ArrayList<>()).add(buffer);
+        }
+        buffer.add(record);
+      }
+      if (flushExecutor == null) {
+        // Created on demand, since closing the writer shuts it down but the writer may be reused
+        flushExecutor = Executors.newFixedThreadPool(flushConnectionProviders.size());
+      }
+      final List<Future<Void>> flushes = new ArrayList<>(buffersByConnection.size());
+      for (List<BufferedRecords> buffers : buffersByConnection.values()) {
+        flushes.add(flushExecutor.submit(() -> {
+          for (BufferedRecords buffer : buffers) {
+            buffer.flush();
+          }
+          return null;
+        }));
+      }
+      awaitFlushes(flushes);
+      log.debug("Committing {} connections", connections.size());
+      final long commitStart = System.nanoTime();
+      for (Connection connection : connections.values()) {
+        connection.commit();
+      }
+      recordWrite(records, writeStart, commitStart);
+      evictBuffers();
+    } catch (SQLException | RuntimeException e) {
+      for (Connection connection : connections.values()) {
+        try {
+          connection.rollback();
+        } catch (SQLException sqle) {
+          e.addSuppressed(sqle);
+        }
+      }
+      discardAfterFailure(e);
+      throw e;
+    }
+  }
+
+  private void recordWrite(Collection<SinkRecord> records, long writeStart, long commitStart) {
+    final long now = System.nanoTime();
+    metrics.recordWrite(records, (now - writeStart) / 1e6, (now - commitStart) / 1e6);
+  }
+
+  /**
+   * Create or amend the tables of the given records before any of them is written. A sharded
+   * table has uncommitted writes on several connections, which would block the DDL statements
+   * issued on any one of them.
+   */
+  private void createOrAmendTables(Collection<SinkRecord> records) throws SQLException {
+    final Connection connection = cachedConnectionProvider.getConnection();
+    // Converters reuse schema instances, so only check each instance once
+    final Map<TableId, Map<Schema, Set<Schema>>> keySchemasByValueSchema = new HashMap<>();
+    for (SinkRecord record : records) {
+      if (record.valueSchema() == null) {
+        // Deletes do not change the table
+        continue;
+      }
+      final TableId tableId = destinationTable(record);
+      final Set<Schema> keySchemas = keySchemasByValueSchema
+          .computeIfAbsent(tableId, t -> new IdentityHashMap<>())
+          .computeIfAbsent(
+              record.valueSchema(),
+              v -> Collections.newSetFromMap(new IdentityHashMap<>())
+          );
+      if (keySchemas.add(record.keySchema())) {
+        final SchemaPair schemaPair = new SchemaPair(record.keySchema(), record.valueSchema());
+        dbStructure.createOrAmendIfNecessary(
+            config,
+            connection,
+            tableId,
+            FieldsMetadata.extract(
+                tableId.tableName(),
+                config.pkMode,
+                config.pkFields,
+                config.fieldsWhitelist,
+                schemaPair
+            )
+        );
+      }
+    }
+  }
+
+  /**
+   * Create the table that records like the given one will be routed to after
+   * {@code table.create.ahead.ms}, if the tables are routed by time and the table differs from
+   * the destination table of the record. This is done for the first record of each table in a
+   * write, and each table is only created ahead once, so that the first write of each period does
+   * not wait for its table to be created.
+   */
+  private void createTableAhead(
+      Connection connection,
+      TableId tableId,
+      SinkRecord record
+  ) throws SQLException {
+    if (config.tableCreateAheadMs <= 0
+        || !tableRouter.routesByTime()
+        || record.valueSchema() == null) {
+      return;
+    }
+    final TableId aheadTableId = tableRouter.routeAhead(record, config.tableCreateAheadMs);
+    if (aheadTableId.equals(tableId) || tablesCreatedAhead.contains(aheadTableId)) {
+      return;
+    }
+    final SchemaPair schemaPair = new SchemaPair(record.keySchema(), record.valueSchema());
+    dbStructure.createOrAmendIfNecessary(
+        config,
+        connection,
+        aheadTableId,
+        FieldsMetadata.extract(
+            aheadTableId.tableName(),
+            config.pkMode,
+            config.pkFields,
+            config.fieldsWhitelist,
+            schemaPair
+        )
+    );
+    if (tablesCreatedAhead.size() >= TableRouter.MAX_ENTRIES) {
+      tablesCreatedAhead.clear();
+    }
+    tablesCreatedAhead.add(aheadTableId);
+  }
+
+  /**
+   * Get the flush connection provider of the given shard. The tables are assigned to the
+   * connections in turn, the shards of a table to the connections following that of the table,
+   * and each shard stays on its connection so that its buffer is reused.
+   */
+  private CachedConnectionProvider providerFor(ShardId shardId) {
+    final int tableIndex = providerByTable.computeIfAbsent(
+        shardId.tableId,
+        t -> nextTableIndex++
+    );
+    return flushConnectionProviders.get(
+        (tableIndex + shardId.shard) % flushConnectionProviders.size()
+    );
+  }
+
+  /**
+   * Get the buffer of the given shard of a table. Buffers are kept across writes, so that their
+   * prepared statements and metadata are reused, and are only replaced when their connection was
+   * re-established, after a failed write, or once they were evicted by {@link #evictBuffers()}.
+   */
+  private BufferedRecords bufferFor(ShardId shardId, Connection connection) {
+    BufferedRecords buffer = bufferByShard.get(shardId);
+    if (buffer != null && buffer.connection() != connection) {
+      log.debug("Discarding buffered records for table {} after reconnecting", shardId.tableId);
+      discardQuietly(buffer);
+      buffer = null;
+    }
+    if (buffer == null) {
+      buffer = new BufferedRecords(
+          config,
+          shardId.tableId,
+          dbDialect,
+          dbStructure,
+          connection,
+          metrics.table(shardId.tableId)
+      );
+      bufferByShard.put(shardId, buffer);
+    }
+    return buffer;
+  }
+
+  /**
+   * Close the least recently written buffers beyond {@link JdbcSinkConfig#tableBuffersMaxSize},
+   * once a write has been committed and all buffers have been flushed. Routing by time or by
+   * field values may write to ever more tables, and each buffer holds prepared statements and
+   * possibly a staging table. A table whose buffers are all closed loses its
+   * metrics, and may be assigned another flush connection when it is written again.
+   */
+  private void evictBuffers() {
+    final Iterator<Map.Entry<ShardId, BufferedRecords>> buffers =
+        bufferByShard.entrySet().iterator();
+    while (bufferByShard.size() > config.tableBuffersMaxSize && buffers.hasNext()) {
+      final Map.Entry<ShardId, BufferedRecords> eldest = buffers.next();
+      buffers.remove();
+      final TableId tableId = eldest.getKey().tableId;
+      log.debug("Closing the buffer of table {}, which was not written recently", tableId);
+      try {
+        eldest.getValue().close();
+      } catch (SQLException e) {
+        log.warn("Ignoring error closing the buffer of table {}", tableId, e);
+      }
+      if (bufferByShard.keySet().stream().noneMatch(shardId -> shardId.tableId.equals(tableId))) {
+        providerByTable.remove(tableId);
+        metrics.removeTable(tableId);
+      }
+    }
+  }
+
+  /**
+   * @return the number of buffers kept between writes
+   */
+  int bufferCount() {
+    return bufferByShard.size();
+  }
+
+  /**
+   * Discard the buffers after a failed write, and forget the cached definitions of their tables,
+   * since the failure may have been caused by others changing the tables. The definitions are
+   * kept after deadlocks, serialization failures and lost connections, which do not hint at that.
+   */
+  private void discardAfterFailure(Exception failure) {
+    if (!(failure instanceof SQLException)
+        || !SqlErrorCategory.of((SQLException) failure).keepsTableDefinitions()) {
+      bufferByShard.keySet().forEach(shardId -> dbStructure.invalidate(shardId.tableId));
+    }
+    discardBuffers();
+  }
+
+  private void discardBuffers() {
+    bufferByShard.values().forEach(JdbcDbWriter::discardQuietly);
+    bufferByShard.clear();
+  }
+
+  private static void discardQuietly(BufferedRecords buffer) {
+    try {
+      buffer.discard();
+    } catch (SQLException e) {
+      log.warn("Ignoring error discarding buffered records", e);
+    }
+  }
+
+  /**
+   * Wait for all flushes to complete, and rethrow the failure of the first flush that failed.
+   * Always waits for every flush, so that no connection is still in use once this returns.
+   */
+  private static void awaitFlushes(List<Future<Void>> flushes) throws SQLException {
+    Throwable failure = null;
+    for (Future<Void> flush : flushes) {
+      try {
+        flush.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        } else {
+          failure.addSuppressed(e.getCause());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        flushes.forEach(f -> f.cancel(true));
+        throw new ConnectException("Interrupted while flushing records", e);
+      }
+    }
+    if (failure instanceof SQLException) {
+      throw (SQLException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new ConnectException(failure);
+    }
+  }
+
   void closeQuietly() {
+    discardBuffers();
+    if (flushExecutor != null) {
+      flushExecutor.shutdownNow();
+      flushExecutor = null;
+    }
+    for (CachedConnectionProvider provider : flushConnectionProviders) {
+      if (provider != cachedConnectionProvider) {
+        provider.close();
+      }
+    }
     cachedConnectionProvider.close();
   }
 
-  TableId destinationTable(String topic) {
-    final String tableName = config.tableNameFormat.replace("${topic}", topic);
-    if (tableName.isEmpty()) {
-      throw new ConnectException(String.format(
-          "Destination table name for topic '%s' is empty using the format string '%s'",
-          topic,
-          config.tableNameFormat
-      ));
+  /**
+   * Get the offsets of the last records written from the given partitions, as stored in the
+   * offsets table. The task resumes consuming after these offsets.
+   *
+   * @param partitions the partitions; may not be null
+   * @return the offsets of the partitions with written records; never null, and empty if offsets
+   *         are not stored in the database
+   * @throws SQLException if the offsets cannot be read
+   */
+  Map<TopicPartition, Long> writtenOffsets(
+      Collection<TopicPartition> partitions
+  ) throws SQLException {
+    if (offsetStore == null) {
+      return Collections.emptyMap();
+    }
+    final Connection connection = cachedConnectionProvider.getConnection();
+    final Map<TopicPartition, Long> offsets;
+    try {
+      offsets = offsetStore.load(connection, partitions);
+    } catch (SQLException | RuntimeException e) {
+      try {
+        connection.rollback();
+      } catch (SQLException sqle) {
+        e.addSuppressed(sqle);
+      }
+      throw e;
+    }
+    connection.commit();
+    return offsets;
+  }
+
+  /**
+   * Forget the stored offsets of partitions that are no longer assigned to the task.
+   *
+   * @param partitions the partitions; may not be null
+   */
+  void forgetOffsets(Collection<TopicPartition> partitions) {
+    if (offsetStore != null) {
+      offsetStore.forget(partitions);
+    }
+  }
+
+  TableId destinationTable(SinkRecord record) {
+    return tableRouter.route(record);
+  }
+
+  /**
+   * A table, or one shard of a sharded table. Unsharded tables only have shard 0.
+   */
+  private static final class ShardId {
+    private final TableId tableId;
+    private final int shard;
+
+    private ShardId(TableId tableId, int shard) {
+      this.tableId = tableId;
+      this.shard = shard;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ShardId)) {
+        return false;
+      }
+      final ShardId that = (ShardId) o;
+      return shard == that.shard && tableId.equals(that.tableId);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * tableId.hashCode() + shard;
     }
-    return dbDialect.parseTableIdentifier(tableName);
   }
 }
@@ -21,6 +21,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -48,10 +49,32 @@ public class JdbcSinkConfig extends AbstractConfig {
   public enum InsertMode {
     INSERT,
     UPSERT,
-    UPDATE;
+    UPDATE,
+    BULK_UPSERT,
+    INSERT_IGNORE,
+    AGGREGATE_UPSERT,
+    SNAPSHOT;
 
   }
 
+  /**
+   * The insert modes that can write the same records again without changing the result.
+   */
+  private static final Set<InsertMode> IDEMPOTENT_INSERT_MODES = Collections.unmodifiableSet(
+      EnumSet.of(
+          InsertMode.UPSERT,
+          InsertMode.BULK_UPSERT,
+          InsertMode.INSERT_IGNORE,
+          InsertMode.UPDATE
+      )
+  );
+
+  public enum AggregateFunction {
+    SUM,
+    MIN,
+    MAX;
+  }
+
   public enum PrimaryKeyMode {
     NONE,
     KAFKA,
@@ -109,9 +132,40 @@ public class JdbcSinkConfig extends AbstractConfig {
       "A format string for the destination table name, which may contain '${topic}' as a "
       + "placeholder for the originating topic name.\n"
       + "For example, ``kafka_${topic}`` for the topic 'orders' will map to the table name "
-      + "'kafka_orders'.";
+      + "'kafka_orders'.\n"
+      + "The format may also contain '${partition}' for the Kafka partition of the record, and "
+      + "'${key.<field>}' or '${value.<field>}' for the value of a field of the record key or "
+      + "value, which must then be a struct with a non-null value for that field. For example, "
+      + "``${topic}_${value.region}`` routes each record by its 'region' field.\n"
+      + "Records can be routed to tables by time with '${timestamp:<pattern>}' for the record "
+      + "timestamp, or '${key.<field>:<pattern>}' or '${value.<field>:<pattern>}' for a "
+      + "timestamp or epoch milliseconds field, formatted in the ``db.timezone`` with a "
+      + "``java.time.format.DateTimeFormatter`` pattern. For example, "
+      + "``${topic}_${timestamp:yyyyMMdd}`` writes each day into its own table, which keeps "
+      + "tables and their indexes small and lets old data be dropped with its table.";
   private static final String TABLE_NAME_FORMAT_DISPLAY = "Table Name Format";
 
+  public static final String TABLE_CREATE_AHEAD_MS = "table.create.ahead.ms";
+  private static final long TABLE_CREATE_AHEAD_MS_DEFAULT = 0L;
+  private static final String TABLE_CREATE_AHEAD_MS_DOC =
+      "When the ``table.name.format`` routes records by time, create the table that records "
+      + "will be routed to this many milliseconds after a written record, so that the first "
+      + "records of each period do not wait for the table to be created. For example, with "
+      + "daily tables, 3600000 creates the table of the next day during the last hour of each "
+      + "day. Requires ``auto.create``. The default of 0 only creates tables when records are "
+      + "written to them.";
+  private static final String TABLE_CREATE_AHEAD_MS_DISPLAY = "Create Tables Ahead (millis)";
+
+  public static final String DDL_LOCK_TIMEOUT_MS = "ddl.lock.timeout.ms";
+  private static final long DDL_LOCK_TIMEOUT_MS_DEFAULT = 60000L;
+  private static final String DDL_LOCK_TIMEOUT_MS_DOC =
+      "The maximum time in milliseconds to wait for the advisory lock that serializes the "
+      + "``auto.create`` and ``auto.evolve`` DDL of all tasks on a table, with dialects that "
+      + "support advisory locks. Once a task holds the lock, it re-reads the table definition, "
+      + "so that only the first task creates or alters the table. If the lock is not acquired "
+      + "in time, the DDL is attempted without it. A value of 0 disables locking.";
+  private static final String DDL_LOCK_TIMEOUT_MS_DISPLAY = "DDL Lock Timeout (millis)";
+
   public static final String MAX_RETRIES = "max.retries";
   private static final int MAX_RETRIES_DEFAULT = 10;
   private static final String MAX_RETRIES_DOC =
@@ -131,6 +185,166 @@ public class JdbcSinkConfig extends AbstractConfig {
       + " table, when possible.";
   private static final String BATCH_SIZE_DISPLAY = "Batch Size";
 
+  public static final String AGGREGATE_COLUMNS = "aggregate.columns";
+  private static final String AGGREGATE_COLUMNS_DEFAULT = "";
+  private static final String AGGREGATE_COLUMNS_DOC =
+      "List of comma-separated ``column:function`` pairs that define how ``aggregate_upsert`` "
+      + "mode combines the values of a non-key column, where the function is ``sum``, ``min`` "
+      + "or ``max``, e.g. ``count:sum,latency_max:max``. Null values are ignored. Columns that "
+      + "are not listed are overwritten with the last value. Records that are written again, "
+      + "for instance after a failed batch is retried or the task is rebalanced, would be added "
+      + "to ``sum`` columns twice, so ``sum`` requires ``offsets.table.name``, which skips "
+      + "records that were already written.";
+  private static final String AGGREGATE_COLUMNS_DISPLAY = "Aggregate Columns";
+
+  public static final String SNAPSHOT_COMPLETE_HEADER = "snapshot.complete.header";
+  private static final String SNAPSHOT_COMPLETE_HEADER_DEFAULT = "snapshot.complete";
+  private static final String SNAPSHOT_COMPLETE_HEADER_DOC =
+      "The name of the header that marks the last record of a snapshot in ``snapshot`` mode. The "
+      + "record with this header is written like any other unless its value is null, in which "
+      + "case it only marks the end of the snapshot. The value of the header is ignored.";
+  private static final String SNAPSHOT_COMPLETE_HEADER_DISPLAY = "Snapshot Complete Header";
+
+  public static final String SNAPSHOT_START_HEADER = "snapshot.start.header";
+  private static final String SNAPSHOT_START_HEADER_DEFAULT = "snapshot.start";
+  private static final String SNAPSHOT_START_HEADER_DOC =
+      "The name of the header that marks the first record of a snapshot in ``snapshot`` mode. "
+      + "The rows left in the shadow table by an earlier snapshot that was never completed are "
+      + "removed before the record is written. The value of the header is ignored.";
+  private static final String SNAPSHOT_START_HEADER_DISPLAY = "Snapshot Start Header";
+
+  // Not defined by the connector, but passed to it along with the rest of its configuration
+  private static final String TASKS_MAX = "tasks.max";
+
+  public static final String BATCH_MAX_BYTES = "batch.max.bytes";
+  private static final long BATCH_MAX_BYTES_DEFAULT = 0L;
+  private static final String BATCH_MAX_BYTES_DOC =
+      "The maximum estimated size in bytes of the keys and values of the records batched together "
+      + "for one table. A batch is written as soon as it holds ``batch.size`` records or this "
+      + "many bytes, whichever comes first, so that batches of wide records stay small while "
+      + "batches of narrow records fill up. The size of a record is estimated from the lengths "
+      + "of its strings and byte arrays and fixed sizes for other values. Set to 0 to only limit "
+      + "batches by ``batch.size``.";
+  private static final String BATCH_MAX_BYTES_DISPLAY = "Batch Max Bytes";
+
+  public static final String INSERT_MULTIROW_ENABLED = "insert.multirow.enabled";
+  private static final String INSERT_MULTIROW_ENABLED_DEFAULT = "false";
+  private static final String INSERT_MULTIROW_ENABLED_DOC =
+      "Whether to write several records with each ``INSERT`` or upsert statement, using a "
+      + "multi-row ``VALUES`` clause. The number of rows per statement is derived from the "
+      + "dialect's limit on bind variables and the number of columns, and never exceeds ``"
+      + BATCH_SIZE + "``. Applies to all modes except ``update``, and is ignored for dialects "
+      + "that do not support multi-row statements, and when the records are bulk loaded.";
+  private static final String INSERT_MULTIROW_ENABLED_DISPLAY = "Multi-Row Inserts";
+
+  public static final String INSERT_BULK_ENABLED = "insert.bulk.enabled";
+  private static final String INSERT_BULK_ENABLED_DEFAULT = "false";
+  private static final String INSERT_BULK_ENABLED_DOC =
+      "Whether to load the records of ``insert`` mode batches, or the staging tables of "
+      + "``bulk_upsert`` mode, with the dialect's bulk load protocol instead of ``INSERT`` "
+      + "statements, e.g. ``COPY ... FROM STDIN`` for PostgreSQL. Ignored for other modes and "
+      + "for dialects that do not support bulk loading.";
+  private static final String INSERT_BULK_ENABLED_DISPLAY = "Bulk Inserts";
+
+  public static final String FLUSH_CONNECTIONS = "flush.connections";
+  private static final int FLUSH_CONNECTIONS_DEFAULT = 1;
+  private static final String FLUSH_CONNECTIONS_DOC =
+      "The maximum number of connections used to flush the records of different tables "
+      + "concurrently. With the default of 1, all tables are written one after the other on a "
+      + "single connection. With more connections, each table is written on one of them and the "
+      + "connections are committed together once every table has been written, or all rolled back "
+      + "if any table fails. A failure while committing may leave the tables on the connections "
+      + "that were already committed written, and the records are then written again, so more "
+      + "than one connection requires an ``insert.mode`` that is idempotent: ``upsert``, "
+      + "``bulk_upsert``, ``insert_ignore`` or ``update``.";
+  private static final String FLUSH_CONNECTIONS_DISPLAY = "Flush Connections";
+
+  public static final String BATCH_DEDUPE_ENABLED = "batch.dedupe.enabled";
+  private static final String BATCH_DEDUPE_ENABLED_DEFAULT = "false";
+  private static final String BATCH_DEDUPE_ENABLED_DOC =
+      "Whether to write only the last record of each primary key within a batch in ``upsert`` "
+      + "mode, which is either an upsert or, with ``delete.enabled``, a delete. This also "
+      + "avoids flushing the batch early when a record follows a delete. Requires ``pk.mode`` to "
+      + "be ``record_key`` or ``record_value``. The ``bulk_upsert`` mode always does this.";
+  private static final String BATCH_DEDUPE_ENABLED_DISPLAY = "Deduplicate Batches By Key";
+
+  public static final String BATCH_SORT_ENABLED = "batch.sort.enabled";
+  private static final String BATCH_SORT_ENABLED_DEFAULT = "false";
+  private static final String BATCH_SORT_ENABLED_DOC =
+      "Whether to write the records of each batch in the order of their primary key, keeping "
+      + "the order of the records with the same key. Tasks that write overlapping keys then lock "
+      + "rows in the same order, which avoids deadlocks between them, and inserts into the "
+      + "primary key index are more local. Has no effect when ``pk.mode`` is ``none``.";
+  private static final String BATCH_SORT_ENABLED_DISPLAY = "Sort Batches By Key";
+
+  public static final String UPSERT_SKIP_UNCHANGED = "upsert.skip.unchanged";
+  private static final String UPSERT_SKIP_UNCHANGED_DEFAULT = "false";
+  private static final String UPSERT_SKIP_UNCHANGED_DOC =
+      "Whether upserts in ``upsert`` and ``bulk_upsert`` mode only update an existing row when "
+      + "at least one of its non-key values differs from the record, e.g. with ``IS DISTINCT "
+      + "FROM``. Skipping unchanged rows avoids rewriting them when records are replayed. "
+      + "Supported by the PostgreSQL, MySQL and SQLite dialects; MySQL never rewrites unchanged "
+      + "rows anyway.";
+  private static final String UPSERT_SKIP_UNCHANGED_DISPLAY = "Skip Unchanged Upserts";
+
+  public static final String UPSERT_VERSION_COLUMN = "upsert.version.column";
+  private static final String UPSERT_VERSION_COLUMN_DEFAULT = "";
+  private static final String UPSERT_VERSION_COLUMN_DOC =
+      "The name of a non-key column, such as a version number or a last modified timestamp, "
+      + "that upserts in ``upsert`` and ``bulk_upsert`` mode compare: an existing row is only "
+      + "updated when the value of the record is greater than the stored value, or no value is "
+      + "stored, so that older records never overwrite newer ones. Takes precedence over "
+      + "``upsert.skip.unchanged``. Supported by the PostgreSQL, MySQL and SQLite dialects. Leave "
+      + "empty to update existing rows regardless of their version.";
+  private static final String UPSERT_VERSION_COLUMN_DISPLAY = "Upsert Version Column";
+
+  public static final String PIPELINE_ENABLED = "pipeline.enabled";
+  private static final String PIPELINE_ENABLED_DEFAULT = "false";
+  private static final String PIPELINE_ENABLED_DOC =
+      "Whether to write records to the database on a separate thread of the task. When enabled, "
+      + "records are only queued by the task and written in batches of up to ``batch.size`` "
+      + "records, or of the records queued within ``pipeline.linger.ms``. Only the offsets of "
+      + "records that have been committed to the database are committed to Kafka.";
+  private static final String PIPELINE_ENABLED_DISPLAY = "Pipelined Writes";
+
+  public static final String PIPELINE_QUEUE_SIZE = "pipeline.queue.size";
+  private static final int PIPELINE_QUEUE_SIZE_DEFAULT = 10000;
+  private static final String PIPELINE_QUEUE_SIZE_DOC =
+      "The maximum number of records queued for writing when ``pipeline.enabled`` is set. The "
+      + "task stops consuming records while the queue is full.";
+  private static final String PIPELINE_QUEUE_SIZE_DISPLAY = "Pipeline Queue Size";
+
+  public static final String PIPELINE_LINGER_MS = "pipeline.linger.ms";
+  private static final long PIPELINE_LINGER_MS_DEFAULT = 100L;
+  private static final String PIPELINE_LINGER_MS_DOC =
+      "The maximum time in milliseconds to wait for more records before writing a batch smaller "
+      + "than ``batch.size`` when ``pipeline.enabled`` is set.";
+  private static final String PIPELINE_LINGER_MS_DISPLAY = "Pipeline Linger (millis)";
+
+  public static final String OFFSETS_TABLE_NAME = "offsets.table.name";
+  private static final String OFFSETS_TABLE_NAME_DEFAULT = "";
+  private static final String OFFSETS_TABLE_NAME_DOC =
+      "The name of a table in which to store the offset of the last record written from each "
+      + "topic partition, in the same transaction as the records. When set, records that were "
+      + "already written are skipped when they are redelivered, and the task resumes consuming "
+      + "after the stored offsets, so that even ``insert`` mode writes each record exactly once. "
+      + "Since DDL statements commit the transaction, records written in the same batch before "
+      + "a table is created or altered may still be written twice. "
+      + "The table is created if it does not exist. Cannot be combined with a "
+      + "``flush.connections`` above 1. Leave empty to not store offsets in the database.";
+  private static final String OFFSETS_TABLE_NAME_DISPLAY = "Offsets Table Name";
+
+  public static final String TABLE_SHARDS = "table.shards";
+  private static final int TABLE_SHARDS_DEFAULT = 1;
+  private static final String TABLE_SHARDS_DOC =
+      "The number of shards to split the records of each table into by the hash of their primary "
+      + "key, to write a single table on several of the ``flush.connections`` in parallel. "
+      + "Records with the same key are always written in order on the same connection, and all "
+      + "connections are committed together. Requires a ``pk.mode`` other than ``none`` and at "
+      + "most as many shards as ``flush.connections``. Useful with ``upsert`` and ``update`` "
+      + "modes on databases whose writes to one table scale with the number of connections.";
+  private static final String TABLE_SHARDS_DISPLAY = "Table Shards";
+
   public static final String DELETE_ENABLED = "delete.enabled";
   private static final String DELETE_ENABLED_DEFAULT = "false";
   private static final String DELETE_ENABLED_DOC =
@@ -152,6 +366,55 @@ public class JdbcSinkConfig extends AbstractConfig {
       + "to the record schema by issuing ``ALTER``.";
   private static final String AUTO_EVOLVE_DISPLAY = "Auto-Evolve";
 
+  public static final String TABLE_DEFINITIONS_CACHE_SHARED = "table.definitions.cache.shared";
+  private static final String TABLE_DEFINITIONS_CACHE_SHARED_DEFAULT = "false";
+  private static final String TABLE_DEFINITIONS_CACHE_SHARED_DOC =
+      "Whether the definitions of the destination tables read from the database are cached once "
+      + "per worker for all tasks of connectors with the same connection URL, user and dialect, "
+      + "rather than once per task. A shared cache survives the restart of a task's writer after "
+      + "an error.";
+  private static final String TABLE_DEFINITIONS_CACHE_SHARED_DISPLAY =
+      "Share Table Definitions Cache";
+
+  public static final String TABLE_DEFINITIONS_CACHE_MAX_SIZE =
+      "table.definitions.cache.max.size";
+  private static final int TABLE_DEFINITIONS_CACHE_MAX_SIZE_DEFAULT = 10000;
+  private static final String TABLE_DEFINITIONS_CACHE_MAX_SIZE_DOC =
+      "The maximum number of table definitions cached, beyond which the least recently used "
+      + "definitions are evicted. A shared cache is sized by the first task that uses it.";
+  private static final String TABLE_DEFINITIONS_CACHE_MAX_SIZE_DISPLAY =
+      "Table Definitions Cache Size";
+
+  public static final String TABLE_BUFFERS_MAX_SIZE = "table.buffers.max.size";
+  private static final int TABLE_BUFFERS_MAX_SIZE_DEFAULT = 1000;
+  private static final String TABLE_BUFFERS_MAX_SIZE_DOC =
+      "The maximum number of tables, or table shards, whose prepared statements are kept open "
+      + "between writes, beyond which those of the tables written longest ago are closed. In "
+      + "``bulk_upsert`` mode each of them also keeps a staging table. Should be at least the "
+      + "number of tables that a task writes regularly, e.g. when routing records by field values "
+      + "or timestamps, since tables whose statements were closed prepare them again.";
+  private static final String TABLE_BUFFERS_MAX_SIZE_DISPLAY = "Table Buffers Size";
+
+  public static final String TABLE_DEFINITIONS_CACHE_TTL_MS = "table.definitions.cache.ttl.ms";
+  private static final long TABLE_DEFINITIONS_CACHE_TTL_MS_DEFAULT = 0L;
+  private static final String TABLE_DEFINITIONS_CACHE_TTL_MS_DOC =
+      "The time in milliseconds after which a cached table definition is read from the database "
+      + "again, for instance to notice columns added by other applications. With the default of "
+      + "0, definitions are only read again after the connector altered the table or failed to "
+      + "write to it.";
+  private static final String TABLE_DEFINITIONS_CACHE_TTL_MS_DISPLAY =
+      "Table Definitions Cache TTL (millis)";
+
+  public static final String TABLE_DEFINITIONS_CACHE_MISSING_TTL_MS =
+      "table.definitions.cache.missing.ttl.ms";
+  private static final long TABLE_DEFINITIONS_CACHE_MISSING_TTL_MS_DEFAULT = 0L;
+  private static final String TABLE_DEFINITIONS_CACHE_MISSING_TTL_MS_DOC =
+      "The time in milliseconds for which it is cached that a table does not exist, so that "
+      + "looking it up again does not query the database catalog. With the default of 0, missing "
+      + "tables are not cached.";
+  private static final String TABLE_DEFINITIONS_CACHE_MISSING_TTL_MS_DISPLAY =
+      "Missing Tables Cache TTL (millis)";
+
   public static final String INSERT_MODE = "insert.mode";
   private static final String INSERT_MODE_DEFAULT = "insert";
   private static final String INSERT_MODE_DOC =
@@ -163,7 +426,32 @@ public class JdbcSinkConfig extends AbstractConfig {
       + "the connector, e.g. ``INSERT OR IGNORE``.\n"
       + "``update``\n"
       + "    Use the appropriate update semantics for the target database if it is supported by "
-      + "the connector, e.g. ``UPDATE``.";
+      + "the connector, e.g. ``UPDATE``.\n"
+      + "``bulk_upsert``\n"
+      + "    Load each batch into a temporary staging table and upsert it into the destination "
+      + "table with a single set-based statement, e.g. ``INSERT ... SELECT ... ON CONFLICT``. Only "
+      + "the last record of each key in a batch is written.\n"
+      + "``insert_ignore``\n"
+      + "    Insert new rows and skip records whose key already exists in the table, using the "
+      + "appropriate semantics for the target database if it is supported by the connector, e.g. "
+      + "``INSERT ... ON CONFLICT DO NOTHING``. Only the first record of each key is written, so "
+      + "redelivered records of append-only topics are written once.\n"
+      + "``aggregate_upsert``\n"
+      + "    Combine the records of each key in a batch and upsert the result, combining it with "
+      + "the existing row in the same way: the ``aggregate.columns`` are summed or hold the "
+      + "minimum or maximum, e.g. ``SET c = c + EXCLUDED.c``, and the other columns hold the last "
+      + "value. For topics of deltas, such as counters. Requires ``pk.mode`` to be ``record_key`` "
+      + "or ``record_value``.\n"
+      + "``snapshot``\n"
+      + "    Insert the records of each full snapshot of a table into a shadow table, and replace "
+      + "the table with the shadow table by renaming both once a record with the "
+      + "``snapshot.complete.header`` header marks the end of the snapshot. Rows that are not "
+      + "part of the snapshot are removed with the old table, and a record with the "
+      + "``snapshot.start.header`` header removes the rows of an incomplete earlier snapshot from "
+      + "the shadow table. The shadow table is written with upserts, so that redelivered records "
+      + "are written once. Requires ``auto.create``, a ``pk.mode`` other than ``none`` and a "
+      + "single writer per table, i.e. deletes, ``table.shards``, more than one task and topics "
+      + "with several partitions are not supported.";
   private static final String INSERT_MODE_DISPLAY = "Insert Mode";
 
   public static final String PK_FIELDS = "pk.fields";
@@ -377,6 +665,189 @@ public class JdbcSinkConfig extends AbstractConfig {
             ConfigDef.Width.MEDIUM,
             TABLE_TYPES_DISPLAY
         )
+        .define(
+            INSERT_MULTIROW_ENABLED,
+            ConfigDef.Type.BOOLEAN,
+            INSERT_MULTIROW_ENABLED_DEFAULT,
+            ConfigDef.Importance.LOW,
+            INSERT_MULTIROW_ENABLED_DOC,
+            WRITES_GROUP,
+            5,
+            ConfigDef.Width.SHORT,
+            INSERT_MULTIROW_ENABLED_DISPLAY
+        )
+        .define(
+            INSERT_BULK_ENABLED,
+            ConfigDef.Type.BOOLEAN,
+            INSERT_BULK_ENABLED_DEFAULT,
+            ConfigDef.Importance.LOW,
+            INSERT_BULK_ENABLED_DOC,
+            WRITES_GROUP,
+            6,
+            ConfigDef.Width.SHORT,
+            INSERT_BULK_ENABLED_DISPLAY
+        )
+        .define(
+            FLUSH_CONNECTIONS,
+            ConfigDef.Type.INT,
+            FLUSH_CONNECTIONS_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            FLUSH_CONNECTIONS_DOC,
+            WRITES_GROUP,
+            7,
+            ConfigDef.Width.SHORT,
+            FLUSH_CONNECTIONS_DISPLAY
+        )
+        .define(
+            BATCH_DEDUPE_ENABLED,
+            ConfigDef.Type.BOOLEAN,
+            BATCH_DEDUPE_ENABLED_DEFAULT,
+            ConfigDef.Importance.LOW,
+            BATCH_DEDUPE_ENABLED_DOC,
+            WRITES_GROUP,
+            8,
+            ConfigDef.Width.SHORT,
+            BATCH_DEDUPE_ENABLED_DISPLAY
+        )
+        .define(
+            PIPELINE_ENABLED,
+            ConfigDef.Type.BOOLEAN,
+            PIPELINE_ENABLED_DEFAULT,
+            ConfigDef.Importance.LOW,
+            PIPELINE_ENABLED_DOC,
+            WRITES_GROUP,
+            9,
+            ConfigDef.Width.SHORT,
+            PIPELINE_ENABLED_DISPLAY
+        )
+        .define(
+            PIPELINE_QUEUE_SIZE,
+            ConfigDef.Type.INT,
+            PIPELINE_QUEUE_SIZE_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            PIPELINE_QUEUE_SIZE_DOC,
+            WRITES_GROUP,
+            10,
+            ConfigDef.Width.SHORT,
+            PIPELINE_QUEUE_SIZE_DISPLAY
+        )
+        .define(
+            PIPELINE_LINGER_MS,
+            ConfigDef.Type.LONG,
+            PIPELINE_LINGER_MS_DEFAULT,
+            NON_NEGATIVE_INT_VALIDATOR,
+            ConfigDef.Importance.LOW,
+            PIPELINE_LINGER_MS_DOC,
+            WRITES_GROUP,
+            11,
+            ConfigDef.Width.SHORT,
+            PIPELINE_LINGER_MS_DISPLAY
+        )
+        .define(
+            OFFSETS_TABLE_NAME,
+            ConfigDef.Type.STRING,
+            OFFSETS_TABLE_NAME_DEFAULT,
+            ConfigDef.Importance.LOW,
+            OFFSETS_TABLE_NAME_DOC,
+            WRITES_GROUP,
+            12,
+            ConfigDef.Width.LONG,
+            OFFSETS_TABLE_NAME_DISPLAY
+        )
+        .define(
+            TABLE_SHARDS,
+            ConfigDef.Type.INT,
+            TABLE_SHARDS_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            TABLE_SHARDS_DOC,
+            WRITES_GROUP,
+            13,
+            ConfigDef.Width.SHORT,
+            TABLE_SHARDS_DISPLAY
+        )
+        .define(
+            BATCH_SORT_ENABLED,
+            ConfigDef.Type.BOOLEAN,
+            BATCH_SORT_ENABLED_DEFAULT,
+            ConfigDef.Importance.LOW,
+            BATCH_SORT_ENABLED_DOC,
+            WRITES_GROUP,
+            14,
+            ConfigDef.Width.SHORT,
+            BATCH_SORT_ENABLED_DISPLAY
+        )
+        .define(
+            UPSERT_SKIP_UNCHANGED,
+            ConfigDef.Type.BOOLEAN,
+            UPSERT_SKIP_UNCHANGED_DEFAULT,
+            ConfigDef.Importance.LOW,
+            UPSERT_SKIP_UNCHANGED_DOC,
+            WRITES_GROUP,
+            15,
+            ConfigDef.Width.SHORT,
+            UPSERT_SKIP_UNCHANGED_DISPLAY
+        )
+        .define(
+            UPSERT_VERSION_COLUMN,
+            ConfigDef.Type.STRING,
+            UPSERT_VERSION_COLUMN_DEFAULT,
+            ConfigDef.Importance.LOW,
+            UPSERT_VERSION_COLUMN_DOC,
+            WRITES_GROUP,
+            16,
+            ConfigDef.Width.MEDIUM,
+            UPSERT_VERSION_COLUMN_DISPLAY
+        )
+        .define(
+            BATCH_MAX_BYTES,
+            ConfigDef.Type.LONG,
+            BATCH_MAX_BYTES_DEFAULT,
+            ConfigDef.Range.atLeast(0),
+            ConfigDef.Importance.MEDIUM,
+            BATCH_MAX_BYTES_DOC,
+            WRITES_GROUP,
+            17,
+            ConfigDef.Width.MEDIUM,
+            BATCH_MAX_BYTES_DISPLAY
+        )
+        .define(
+            AGGREGATE_COLUMNS,
+            ConfigDef.Type.LIST,
+            AGGREGATE_COLUMNS_DEFAULT,
+            ConfigDef.Importance.LOW,
+            AGGREGATE_COLUMNS_DOC,
+            WRITES_GROUP,
+            18,
+            ConfigDef.Width.LONG,
+            AGGREGATE_COLUMNS_DISPLAY
+        )
+        .define(
+            SNAPSHOT_COMPLETE_HEADER,
+            ConfigDef.Type.STRING,
+            SNAPSHOT_COMPLETE_HEADER_DEFAULT,
+            new ConfigDef.NonEmptyString(),
+            ConfigDef.Importance.LOW,
+            SNAPSHOT_COMPLETE_HEADER_DOC,
+            WRITES_GROUP,
+            19,
+            ConfigDef.Width.MEDIUM,
+            SNAPSHOT_COMPLETE_HEADER_DISPLAY
+        )
+        .define(
+            SNAPSHOT_START_HEADER,
+            ConfigDef.Type.STRING,
+            SNAPSHOT_START_HEADER_DEFAULT,
+            new ConfigDef.NonEmptyString(),
+            ConfigDef.Importance.LOW,
+            SNAPSHOT_START_HEADER_DOC,
+            WRITES_GROUP,
+            20,
+            ConfigDef.Width.MEDIUM,
+            SNAPSHOT_START_HEADER_DISPLAY
+        )
         // Data Mapping
         .define(
             TABLE_NAME_FORMAT,
@@ -467,6 +938,89 @@ public class JdbcSinkConfig extends AbstractConfig {
             QUOTE_SQL_IDENTIFIERS_DISPLAY,
             QUOTE_METHOD_RECOMMENDER
         )
+        .define(
+            TABLE_DEFINITIONS_CACHE_SHARED,
+            ConfigDef.Type.BOOLEAN,
+            TABLE_DEFINITIONS_CACHE_SHARED_DEFAULT,
+            ConfigDef.Importance.LOW,
+            TABLE_DEFINITIONS_CACHE_SHARED_DOC,
+            DDL_GROUP,
+            4,
+            ConfigDef.Width.SHORT,
+            TABLE_DEFINITIONS_CACHE_SHARED_DISPLAY
+        )
+        .define(
+            TABLE_DEFINITIONS_CACHE_MAX_SIZE,
+            ConfigDef.Type.INT,
+            TABLE_DEFINITIONS_CACHE_MAX_SIZE_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            TABLE_DEFINITIONS_CACHE_MAX_SIZE_DOC,
+            DDL_GROUP,
+            5,
+            ConfigDef.Width.SHORT,
+            TABLE_DEFINITIONS_CACHE_MAX_SIZE_DISPLAY
+        )
+        .define(
+            TABLE_BUFFERS_MAX_SIZE,
+            ConfigDef.Type.INT,
+            TABLE_BUFFERS_MAX_SIZE_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            TABLE_BUFFERS_MAX_SIZE_DOC,
+            DDL_GROUP,
+            6,
+            ConfigDef.Width.SHORT,
+            TABLE_BUFFERS_MAX_SIZE_DISPLAY
+        )
+        .define(
+            TABLE_DEFINITIONS_CACHE_TTL_MS,
+            ConfigDef.Type.LONG,
+            TABLE_DEFINITIONS_CACHE_TTL_MS_DEFAULT,
+            NON_NEGATIVE_INT_VALIDATOR,
+            ConfigDef.Importance.LOW,
+            TABLE_DEFINITIONS_CACHE_TTL_MS_DOC,
+            DDL_GROUP,
+            7,
+            ConfigDef.Width.SHORT,
+            TABLE_DEFINITIONS_CACHE_TTL_MS_DISPLAY
+        )
+        .define(
+            TABLE_DEFINITIONS_CACHE_MISSING_TTL_MS,
+            ConfigDef.Type.LONG,
+            TABLE_DEFINITIONS_CACHE_MISSING_TTL_MS_DEFAULT,
+            NON_NEGATIVE_INT_VALIDATOR,
+            ConfigDef.Importance.LOW,
+            TABLE_DEFINITIONS_CACHE_MISSING_TTL_MS_DOC,
+            DDL_GROUP,
+            8,
+            ConfigDef.Width.SHORT,
+            TABLE_DEFINITIONS_CACHE_MISSING_TTL_MS_DISPLAY
+        )
+        .define(
+            TABLE_CREATE_AHEAD_MS,
+            ConfigDef.Type.LONG,
+            TABLE_CREATE_AHEAD_MS_DEFAULT,
+            ConfigDef.Range.atLeast(0),
+            ConfigDef.Importance.LOW,
+            TABLE_CREATE_AHEAD_MS_DOC,
+            DDL_GROUP,
+            9,
+            ConfigDef.Width.SHORT,
+            TABLE_CREATE_AHEAD_MS_DISPLAY
+        )
+        .define(
+            DDL_LOCK_TIMEOUT_MS,
+            ConfigDef.Type.LONG,
+            DDL_LOCK_TIMEOUT_MS_DEFAULT,
+            ConfigDef.Range.atLeast(0),
+            ConfigDef.Importance.LOW,
+            DDL_LOCK_TIMEOUT_MS_DOC,
+            DDL_GROUP,
+            10,
+            ConfigDef.Width.SHORT,
+            DDL_LOCK_TIMEOUT_MS_DISPLAY
+        )
         // Retries
         .define(
             MAX_RETRIES,
@@ -501,11 +1055,34 @@ public class JdbcSinkConfig extends AbstractConfig {
   public final long connectionBackoffMs;
   public final String tableNameFormat;
   public final int batchSize;
+  public final long batchMaxBytes;
   public final boolean deleteEnabled;
+  public final boolean insertMultiRowEnabled;
+  public final boolean insertBulkEnabled;
+  public final int flushConnections;
+  public final boolean batchDedupeEnabled;
+  public final boolean batchSortEnabled;
+  public final boolean pipelineEnabled;
+  public final int pipelineQueueSize;
+  public final long pipelineLingerMs;
+  public final String offsetsTableName;
+  public final int tableShards;
+  public final boolean upsertSkipUnchanged;
+  public final String upsertVersionColumn;
+  public final Map<String, AggregateFunction> aggregateColumns;
+  public final String snapshotCompleteHeader;
+  public final String snapshotStartHeader;
   public final int maxRetries;
   public final int retryBackoffMs;
   public final boolean autoCreate;
   public final boolean autoEvolve;
+  public final boolean tableDefinitionsCacheShared;
+  public final int tableDefinitionsCacheMaxSize;
+  public final int tableBuffersMaxSize;
+  public final long tableDefinitionsCacheTtlMs;
+  public final long tableDefinitionsCacheMissingTtlMs;
+  public final long tableCreateAheadMs;
+  public final long ddlLockTimeoutMs;
   public final InsertMode insertMode;
   public final PrimaryKeyMode pkMode;
   public final List<String> pkFields;
@@ -524,11 +1101,34 @@ public class JdbcSinkConfig extends AbstractConfig {
     connectionBackoffMs = getLong(CONNECTION_BACKOFF);
     tableNameFormat = getString(TABLE_NAME_FORMAT).trim();
     batchSize = getInt(BATCH_SIZE);
+    batchMaxBytes = getLong(BATCH_MAX_BYTES);
     deleteEnabled = getBoolean(DELETE_ENABLED);
+    insertMultiRowEnabled = getBoolean(INSERT_MULTIROW_ENABLED);
+    insertBulkEnabled = getBoolean(INSERT_BULK_ENABLED);
+    flushConnections = getInt(FLUSH_CONNECTIONS);
+    batchDedupeEnabled = getBoolean(BATCH_DEDUPE_ENABLED);
+    batchSortEnabled = getBoolean(BATCH_SORT_ENABLED);
+    pipelineEnabled = getBoolean(PIPELINE_ENABLED);
+    pipelineQueueSize = getInt(PIPELINE_QUEUE_SIZE);
+    pipelineLingerMs = getLong(PIPELINE_LINGER_MS);
+    offsetsTableName = getString(OFFSETS_TABLE_NAME).trim();
+    tableShards = getInt(TABLE_SHARDS);
+    upsertSkipUnchanged = getBoolean(UPSERT_SKIP_UNCHANGED);
+    upsertVersionColumn = getString(UPSERT_VERSION_COLUMN).trim();
+    aggregateColumns = parseAggregateColumns(getList(AGGREGATE_COLUMNS));
+    snapshotCompleteHeader = getString(SNAPSHOT_COMPLETE_HEADER).trim();
+    snapshotStartHeader = getString(SNAPSHOT_START_HEADER).trim();
     maxRetries = getInt(MAX_RETRIES);
     retryBackoffMs = getInt(RETRY_BACKOFF_MS);
     autoCreate = getBoolean(AUTO_CREATE);
     autoEvolve = getBoolean(AUTO_EVOLVE);
+    tableDefinitionsCacheShared = getBoolean(TABLE_DEFINITIONS_CACHE_SHARED);
+    tableDefinitionsCacheMaxSize = getInt(TABLE_DEFINITIONS_CACHE_MAX_SIZE);
+    tableBuffersMaxSize = getInt(TABLE_BUFFERS_MAX_SIZE);
+    tableDefinitionsCacheTtlMs = getLong(TABLE_DEFINITIONS_CACHE_TTL_MS);
+    tableDefinitionsCacheMissingTtlMs = getLong(TABLE_DEFINITIONS_CACHE_MISSING_TTL_MS);
+    tableCreateAheadMs = getLong(TABLE_CREATE_AHEAD_MS);
+    ddlLockTimeoutMs = getLong(DDL_LOCK_TIMEOUT_MS);
     insertMode = InsertMode.valueOf(getString(INSERT_MODE).toUpperCase());
     pkMode = PrimaryKeyMode.valueOf(getString(PK_MODE).toUpperCase());
     pkFields = getList(PK_FIELDS);
@@ -541,9 +1141,82 @@ public class JdbcSinkConfig extends AbstractConfig {
       throw new ConfigException(
           "Primary key mode must be 'record_key' when delete support is enabled");
     }
+    if (!offsetsTableName.isEmpty() && flushConnections > 1) {
+      throw new ConfigException(
+          "Offsets cannot be stored in the database when more than one flush connection is used");
+    }
+    if (flushConnections > 1 && !IDEMPOTENT_INSERT_MODES.contains(insertMode)) {
+      throw new ConfigException(
+          "More than one flush connection requires the upsert, bulk_upsert, insert_ignore or "
+          + "update insert mode, as records are written again after a partially committed write");
+    }
+    if (tableShards > 1 && pkMode == PrimaryKeyMode.NONE) {
+      throw new ConfigException("Primary key mode must not be 'none' when tables are sharded");
+    }
+    if (tableShards > flushConnections) {
+      throw new ConfigException(
+          "The number of table shards must not exceed the number of flush connections");
+    }
+    if (insertMode == InsertMode.AGGREGATE_UPSERT
+        && pkMode != PrimaryKeyMode.RECORD_KEY
+        && pkMode != PrimaryKeyMode.RECORD_VALUE) {
+      throw new ConfigException(
+          "Primary key mode must be 'record_key' or 'record_value' in aggregate_upsert mode");
+    }
+    if (insertMode == InsertMode.AGGREGATE_UPSERT
+        && offsetsTableName.isEmpty()
+        && aggregateColumns.containsValue(AggregateFunction.SUM)) {
+      throw new ConfigException(
+          "Summing columns in aggregate_upsert mode requires offsets to be stored in the database "
+          + "with " + OFFSETS_TABLE_NAME + ", so that redelivered records are not summed twice");
+    }
+    if (insertMode == InsertMode.SNAPSHOT && (!autoCreate || deleteEnabled || tableShards > 1)) {
+      throw new ConfigException(
+          "Snapshot mode requires auto-creation, and supports neither deletes nor table shards");
+    }
+    if (insertMode == InsertMode.SNAPSHOT && pkMode == PrimaryKeyMode.NONE) {
+      throw new ConfigException(
+          "Primary key mode must not be 'none' in snapshot mode, so that redelivered records of a "
+          + "snapshot replace their rows in the shadow table");
+    }
+    if (insertMode == InsertMode.SNAPSHOT && maxTasks(props) > 1) {
+      throw new ConfigException(
+          "Snapshot mode requires a single task, as each snapshot must be written by one writer");
+    }
     tableTypes = TableType.parse(getList(TABLE_TYPES_CONFIG));
   }
 
+  private static int maxTasks(Map<?, ?> props) {
+    final Object value = props.get(TASKS_MAX);
+    if (value == null) {
+      return 1;
+    }
+    try {
+      return Integer.parseInt(value.toString().trim());
+    } catch (NumberFormatException e) {
+      throw new ConfigException(TASKS_MAX, value, "Must be an integer");
+    }
+  }
+
+  private static Map<String, AggregateFunction> parseAggregateColumns(List<String> pairs) {
+    final Map<String, AggregateFunction> columns = new LinkedHashMap<>();
+    for (String pair : pairs) {
+      final int colon = pair.lastIndexOf(':');
+      final String column = colon > 0 ? pair.substring(0, colon).trim() : "";
+      final String function = colon > 0 ? pair.substring(colon + 1).trim().toUpperCase() : "";
+      if (column.isEmpty() || Arrays.stream(AggregateFunction.values())
+          .noneMatch(value -> value.name().equals(function))) {
+        throw new ConfigException(
+            AGGREGATE_COLUMNS,
+            pair,
+            "Must be a column name and one of sum, min or max separated by a colon"
+        );
+      }
+      columns.put(column, AggregateFunction.valueOf(function));
+    }
+    return Collections.unmodifiableMap(columns);
+  }
+
   private String getPasswordValue(String key) {
     Password password = getPassword(key);
     if (password != null) {
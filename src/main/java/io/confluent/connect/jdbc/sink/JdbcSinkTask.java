@@ -26,9 +26,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 import io.confluent.connect.jdbc.dialect.DatabaseDialects;
@@ -41,12 +43,15 @@ public class JdbcSinkTask extends SinkTask {
   DatabaseDialect dialect;
   JdbcSinkConfig config;
   JdbcDbWriter writer;
+  PipelinedWriter pipeline;
+  SinkMetrics metrics;
   int remainingRetries;
 
   @Override
   public void start(final Map<String, String> props) {
     log.info("Starting JDBC Sink task");
     config = new JdbcSinkConfig(props);
+    metrics = SinkMetrics.register(config.connectorName);
     initWriter();
     remainingRetries = config.maxRetries;
     try {
@@ -55,6 +60,10 @@ public class JdbcSinkTask extends SinkTask {
       // Will occur in Connect runtimes earlier than 2.6
       reporter = null;
     }
+    if (config.pipelineEnabled) {
+      pipeline = new PipelinedWriter(config, this::writeWithRetries);
+      pipeline.start();
+    }
   }
 
   void initWriter() {
@@ -63,9 +72,9 @@ public class JdbcSinkTask extends SinkTask {
     } else {
       dialect = DatabaseDialects.findBestFor(config.connectionUrl, config);
     }
-    final DbStructure dbStructure = new DbStructure(dialect);
+    final DbStructure dbStructure = new DbStructure(dialect, config);
     log.info("Initializing writer using SQL dialect: {}", dialect.getClass().getSimpleName());
-    writer = new JdbcDbWriter(config, dialect, dbStructure);
+    writer = new JdbcDbWriter(config, dialect, dbStructure, metrics);
   }
 
   @Override
@@ -80,11 +89,15 @@ public class JdbcSinkTask extends SinkTask {
         + "database...",
         recordsCount, first.topic(), first.kafkaPartition(), first.kafkaOffset()
     );
+    if (pipeline != null) {
+      pipeline.put(records);
+      return;
+    }
     try {
-      writer.write(records);
+      writeRetryingInProcess(records);
     } catch (TableAlterOrCreateException tace) {
       if (reporter != null) {
-        unrollAndRetry(records);
+        retryInHalves(records);
       } else {
         throw tace;
       }
@@ -100,15 +113,16 @@ public class JdbcSinkTask extends SinkTask {
         totalExceptions++;
       }
       SQLException sqlAllMessagesException = getAllMessagesException(sqle);
-      if (remainingRetries > 0) {
+      if (remainingRetries > 0 && !isReportedRightAway(sqle)) {
         writer.closeQuietly();
         initWriter();
         remainingRetries--;
+        metrics.recordRetry();
         context.timeout(config.retryBackoffMs);
         throw new RetriableException(sqlAllMessagesException);
       } else {
         if (reporter != null) {
-          unrollAndRetry(records);
+          retryInHalves(records);
         } else {
           log.error(
               "Failing task after exhausting retries; "
@@ -126,19 +140,159 @@ public class JdbcSinkTask extends SinkTask {
     remainingRetries = config.maxRetries;
   }
 
-  private void unrollAndRetry(Collection<SinkRecord> records) {
-    writer.closeQuietly();
-    for (SinkRecord record : records) {
+  /**
+   * Write the records, retrying in-process after deadlocks, serialization failures and lost
+   * connections, which keeps the dialect and the cached table definitions. Only a lost connection
+   * is closed, so that the writer reconnects.
+   *
+   * @throws SQLException if the write failed with any other error, or the retries ran out
+   */
+  private void writeRetryingInProcess(Collection<SinkRecord> records) throws SQLException {
+    while (true) {
+      try {
+        writer.write(records);
+        return;
+      } catch (SQLException sqle) {
+        final SqlErrorCategory category = SqlErrorCategory.of(sqle);
+        if (!category.isRetriedInProcess() || remainingRetries <= 0) {
+          throw sqle;
+        }
+        log.warn(
+            "Write of {} records failed with a {} error, retrying in-process, remainingRetries={}",
+            records.size(),
+            category,
+            remainingRetries,
+            sqle
+        );
+        if (category == SqlErrorCategory.CONNECTION) {
+          writer.closeQuietly();
+        }
+        remainingRetries--;
+        metrics.recordRetry();
+        try {
+          Thread.sleep(jitteredBackoffMs());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new ConnectException("Interrupted while waiting to retry the write", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return a random backoff between half and all of the configured backoff, so that tasks that
+   *     failed together, such as both sides of a deadlock, do not retry at the same time
+   */
+  private long jitteredBackoffMs() {
+    final long backoffMs = config.retryBackoffMs;
+    return backoffMs <= 0 ? 0 : ThreadLocalRandom.current().nextLong(backoffMs / 2, backoffMs + 1);
+  }
+
+  /**
+   * @return whether the failed records are reported without retrying, since the error is a
+   *     constraint violation that retrying the same records will not fix
+   */
+  private boolean isReportedRightAway(SQLException sqle) {
+    return reporter != null && SqlErrorCategory.of(sqle) == SqlErrorCategory.CONSTRAINT;
+  }
+
+  /**
+   * Write the records on the pipeline's writer thread, which retries failed writes itself rather
+   * than having the framework redeliver the records.
+   */
+  void writeWithRetries(Collection<SinkRecord> records) throws InterruptedException {
+    int retriesLeft = config.maxRetries;
+    while (true) {
       try {
-        writer.write(Collections.singletonList(record));
+        writer.write(records);
+        return;
       } catch (TableAlterOrCreateException tace) {
-        reporter.report(record, tace);
-        writer.closeQuietly();
+        if (reporter == null) {
+          throw tace;
+        }
+        retryInHalves(records);
+        return;
       } catch (SQLException sqle) {
-        SQLException sqlAllMessagesException = getAllMessagesException(sqle);
-        reporter.report(record, sqlAllMessagesException);
-        writer.closeQuietly();
+        log.warn(
+            "Write of {} records failed, remainingRetries={}",
+            records.size(),
+            retriesLeft,
+            sqle
+        );
+        final SqlErrorCategory category = SqlErrorCategory.of(sqle);
+        if (retriesLeft > 0 && !isReportedRightAway(sqle)) {
+          if (category == SqlErrorCategory.CONNECTION || !category.isRetriedInProcess()) {
+            writer.closeQuietly();
+          }
+          retriesLeft--;
+          metrics.recordRetry();
+          Thread.sleep(category.isRetriedInProcess() ? jitteredBackoffMs() : config.retryBackoffMs);
+        } else if (reporter != null) {
+          retryInHalves(records);
+          return;
+        } else {
+          throw new ConnectException(getAllMessagesException(sqle));
+        }
+      }
+    }
+  }
+
+  /**
+   * Retry a batch that failed for good in halves, with a new budget of in-process retries for the
+   * deadlocks, serialization failures and lost connections of the smaller writes.
+   */
+  private void retryInHalves(Collection<SinkRecord> records) {
+    remainingRetries = config.maxRetries;
+    unrollAndRetry(records);
+  }
+
+  /**
+   * Retry a failed batch by writing each half of it, and recursively the halves of any half that
+   * fails, so that only the records that fail on their own are reported while the others are
+   * still written in batches.
+   */
+  private void unrollAndRetry(Collection<SinkRecord> records) {
+    writer.closeQuietly();
+    metrics.recordUnroll();
+    final List<SinkRecord> batch = new ArrayList<>(records);
+    if (batch.size() == 1) {
+      retry(batch);
+      return;
+    }
+    final int middle = batch.size() / 2;
+    retry(batch.subList(0, middle));
+    retry(batch.subList(middle, batch.size()));
+  }
+
+  private void retry(List<SinkRecord> records) {
+    try {
+      writeRetryingInProcess(records);
+    } catch (TableAlterOrCreateException tace) {
+      retryOrReport(records, tace);
+    } catch (SQLException sqle) {
+      final SqlErrorCategory category = SqlErrorCategory.of(sqle);
+      if (category.isRetriedInProcess()) {
+        // The error is not caused by the records, so they must not be reported as errant
+        throw new ConnectException(
+            String.format(
+                "Write of %d records failed with a %s error after exhausting retries",
+                records.size(),
+                category
+            ),
+            getAllMessagesException(sqle)
+        );
       }
+      retryOrReport(records, getAllMessagesException(sqle));
+    }
+  }
+
+  private void retryOrReport(List<SinkRecord> records, Exception e) {
+    if (records.size() > 1) {
+      unrollAndRetry(records);
+    } else {
+      reporter.report(records.get(0), e);
+      metrics.recordReported();
+      writer.closeQuietly();
     }
   }
 
@@ -157,9 +311,53 @@ public class JdbcSinkTask extends SinkTask {
     // Not necessary
   }
 
+  @Override
+  public Map<TopicPartition, OffsetAndMetadata> preCommit(
+      Map<TopicPartition, OffsetAndMetadata> currentOffsets
+  ) {
+    if (pipeline == null) {
+      return super.preCommit(currentOffsets);
+    }
+    // Records still queued or being written must not have their offsets committed
+    return pipeline.committedOffsets(currentOffsets.keySet());
+  }
+
+  @Override
+  public void open(Collection<TopicPartition> partitions) {
+    if (pipeline != null) {
+      // The writer is not thread-safe, so it is only used here once the writer thread is idle,
+      // which it stays until the task queues more records
+      pipeline.drain();
+    }
+    final Map<TopicPartition, Long> writtenOffsets;
+    try {
+      writtenOffsets = writer.writtenOffsets(partitions);
+    } catch (SQLException sqle) {
+      throw new ConnectException(getAllMessagesException(sqle));
+    }
+    // Resume after the records that the offsets table shows were already written
+    for (Map.Entry<TopicPartition, Long> entry : writtenOffsets.entrySet()) {
+      context.offset(entry.getKey(), entry.getValue() + 1);
+    }
+  }
+
+  @Override
+  public void close(Collection<TopicPartition> partitions) {
+    if (pipeline != null) {
+      // Finish writing what was queued, so none of it is written once the partitions move on
+      pipeline.drain();
+      pipeline.forget(partitions);
+    }
+    writer.forgetOffsets(partitions);
+  }
+
   public void stop() {
     log.info("Stopping task");
     try {
+      if (pipeline != null) {
+        pipeline.stop();
+        pipeline = null;
+      }
       writer.closeQuietly();
     } finally {
       try {
@@ -170,6 +368,10 @@ public class JdbcSinkTask extends SinkTask {
         log.warn("Error while closing the {} dialect: ", dialect.name(), t);
       } finally {
         dialect = null;
+        if (metrics != null) {
+          metrics.close();
+          metrics = null;
+        }
       }
     }
   }
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
+import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.ExpressionBuilder;
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * Stores the offset of the last record written from each topic partition in a table of the
+ * destination database, in the same transaction as the records themselves. Records at or before
+ * the stored offset of their partition have already been written, and are skipped when they are
+ * redelivered.
+ *
+ * <p>The table has one row per connector and topic partition, which is inserted when the offset of
+ * the partition is first read. It is created without a primary key so that it can be created with
+ * the type mappings of every dialect. Since sink tasks are not fenced, the task that a rebalance
+ * took a partition from may still be writing its records when the task that is now assigned the
+ * partition writes them again. Each write therefore first locks the rows of its partitions with an
+ * update that does not change them, and reads their offsets again while holding the locks, so that
+ * the records that the other task committed in the meantime are skipped.
+ */
+class OffsetStore {
+  private static final Logger log = LoggerFactory.getLogger(OffsetStore.class);
+
+  static final String CONNECTOR_COLUMN = "connector_name";
+  static final String TOPIC_COLUMN = "kafka_topic";
+  static final String PARTITION_COLUMN = "kafka_partition";
+  static final String OFFSET_COLUMN = "kafka_offset";
+
+  private final DatabaseDialect dialect;
+  private final String connectorName;
+  private final TableId table;
+  private final List<ColumnId> keyColumns;
+  private final List<ColumnId> offsetColumns;
+  private final Map<TopicPartition, Long> appliedOffsets = new HashMap<>();
+  private boolean tableExists;
+
+  OffsetStore(JdbcSinkConfig config, DatabaseDialect dialect) {
+    this.dialect = dialect;
+    this.connectorName = config.connectorName != null ? config.connectorName : "";
+    this.table = dialect.parseTableIdentifier(config.offsetsTableName);
+    this.keyColumns = Arrays.asList(
+        new ColumnId(table, CONNECTOR_COLUMN),
+        new ColumnId(table, TOPIC_COLUMN),
+        new ColumnId(table, PARTITION_COLUMN)
+    );
+    this.offsetColumns = Collections.singletonList(new ColumnId(table, OFFSET_COLUMN));
+  }
+
+  /**
+   * Get the stored offsets of the given partitions, reading those that are not known yet and
+   * creating the table if it does not exist. This may commit the connection, so it must not be
+   * called while records are being written.
+   *
+   * @param connection the connection; may not be null
+   * @param partitions the partitions; may not be null
+   * @return the offsets of the last written records of the partitions that have any; never null
+   * @throws SQLException if the offsets cannot be read
+   */
+  synchronized Map<TopicPartition, Long> load(
+      Connection connection,
+      Collection<TopicPartition> partitions
+  ) throws SQLException {
+    final Map<TopicPartition, Long> offsets = new HashMap<>();
+    for (TopicPartition partition : partitions) {
+      Long offset = appliedOffsets.get(partition);
+      if (offset == null) {
+        offset = read(connection, partition);
+        appliedOffsets.put(partition, offset);
+      }
+      if (offset >= 0) {
+        offsets.put(partition, offset);
+      }
+    }
+    return offsets;
+  }
+
+  /**
+   * Get the records that have not been written yet, reading the stored offsets of their
+   * partitions if necessary. This may commit the connection, so it must be called before any of
+   * the records are written. The rows of the partitions stay locked until the transaction of the
+   * connection ends, so that no other task writes the records of the partitions in the meantime.
+   *
+   * @param connection the connection; may not be null
+   * @param records    the records; may not be null
+   * @return the records after the stored offsets of their partitions; never null
+   * @throws SQLException if the offsets cannot be read
+   */
+  synchronized Collection<SinkRecord> unwritten(
+      Connection connection,
+      Collection<SinkRecord> records
+  ) throws SQLException {
+    final Set<TopicPartition> partitions = new HashSet<>();
+    for (SinkRecord record : records) {
+      partitions.add(partition(record));
+    }
+    load(connection, partitions);
+    for (TopicPartition partition : partitions) {
+      lock(connection, partition);
+    }
+    final List<SinkRecord> unwritten = new ArrayList<>(records.size());
+    for (SinkRecord record : records) {
+      if (record.kafkaOffset() > appliedOffsets.get(partition(record))) {
+        unwritten.add(record);
+      }
+    }
+    if (unwritten.size() < records.size()) {
+      log.debug(
+          "Skipping {} records that were already written",
+          records.size() - unwritten.size()
+      );
+    }
+    return unwritten;
+  }
+
+  /**
+   * Store the offsets of the last of the given records of each partition in the table, as part of
+   * the transaction of the connection that writes the records.
+   *
+   * @param connection the connection; may not be null
+   * @param records    the written records; may not be null
+   * @return the stored offsets, to pass to {@link #committed(Map)}; never null
+   * @throws SQLException if the offsets cannot be stored
+   */
+  Map<TopicPartition, Long> store(
+      Connection connection,
+      Collection<SinkRecord> records
+  ) throws SQLException {
+    final Map<TopicPartition, Long> offsets = new HashMap<>();
+    for (SinkRecord record : records) {
+      offsets.merge(partition(record), record.kafkaOffset(), Math::max);
+    }
+    if (offsets.isEmpty()) {
+      return offsets;
+    }
+    final String update = dialect.buildUpdateStatement(table, keyColumns, offsetColumns, null);
+    final List<TopicPartition> inserts = new ArrayList<>();
+    try (PreparedStatement statement = dialect.createPreparedStatement(connection, update)) {
+      for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+        statement.setLong(1, entry.getValue());
+        bindKey(statement, 2, entry.getKey());
+        if (statement.executeUpdate() == 0) {
+          inserts.add(entry.getKey());
+        }
+      }
+    }
+    // Only if the row was removed since it was inserted when the offset was first read
+    for (TopicPartition partition : inserts) {
+      insert(connection, partition, offsets.get(partition));
+    }
+    return offsets;
+  }
+
+  /**
+   * Record that the transaction that stored the given offsets was committed.
+   *
+   * @param offsets the offsets returned by {@link #store(Connection, Collection)}; may not be null
+   */
+  synchronized void committed(Map<TopicPartition, Long> offsets) {
+    appliedOffsets.putAll(offsets);
+  }
+
+  /**
+   * Forget the offsets of partitions that are no longer assigned to the task, since another task
+   * may write their records before they are assigned to this task again.
+   *
+   * @param partitions the partitions; may not be null
+   */
+  synchronized void forget(Collection<TopicPartition> partitions) {
+    appliedOffsets.keySet().removeAll(partitions);
+  }
+
+  private long read(Connection connection, TopicPartition partition) throws SQLException {
+    createTableIfNecessary(connection);
+    final Long offset = storedOffset(connection, partition);
+    if (offset == null) {
+      // Inserted right away, so that writes can lock the row of the partition
+      insert(connection, partition, -1L);
+      connection.commit();
+      return -1L;
+    }
+    if (offset >= 0) {
+      log.info("Records of {} up to offset {} were already written", partition, offset);
+    }
+    return offset;
+  }
+
+  /**
+   * Lock the row of the given partition until the transaction of the connection ends, and skip
+   * the records that another task wrote since the offset of the partition was read.
+   */
+  private void lock(Connection connection, TopicPartition partition) throws SQLException {
+    final ExpressionBuilder builder = dialect.expressionBuilder();
+    builder.append("UPDATE ");
+    builder.append(table);
+    builder.append(" SET ");
+    builder.appendColumnName(OFFSET_COLUMN);
+    builder.append(" = ");
+    builder.appendColumnName(OFFSET_COLUMN);
+    builder.append(" WHERE ");
+    builder.appendList()
+           .delimitedBy(" AND ")
+           .transformedBy(ExpressionBuilder.columnNamesWith(" = ?"))
+           .of(keyColumns);
+    final String update = builder.toString();
+    try (PreparedStatement statement = dialect.createPreparedStatement(connection, update)) {
+      bindKey(statement, 1, partition);
+      statement.executeUpdate();
+    }
+    final Long offset = storedOffset(connection, partition);
+    if (offset != null && offset > appliedOffsets.get(partition)) {
+      log.warn(
+          "Records of {} up to offset {} were written by another task, which was assigned the "
+          + "partition before",
+          partition,
+          offset
+      );
+      appliedOffsets.put(partition, offset);
+    }
+  }
+
+  /**
+   * @return the highest offset stored for the partition, or null if the partition has no row
+   */
+  private Long storedOffset(Connection connection, TopicPartition partition) throws SQLException {
+    final ExpressionBuilder builder = dialect.expressionBuilder();
+    builder.append("SELECT MAX(");
+    builder.appendColumnName(OFFSET_COLUMN);
+    builder.append(") FROM ");
+    builder.append(table);
+    builder.append(" WHERE ");
+    builder.appendList()
+           .delimitedBy(" AND ")
+           .transformedBy(ExpressionBuilder.columnNamesWith(" = ?"))
+           .of(keyColumns);
+    final String query = builder.toString();
+    try (PreparedStatement statement = dialect.createPreparedStatement(connection, query)) {
+      bindKey(statement, 1, partition);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        if (resultSet.next()) {
+          final long offset = resultSet.getLong(1);
+          if (!resultSet.wasNull()) {
+            return offset;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  private void insert(
+      Connection connection,
+      TopicPartition partition,
+      long offset
+  ) throws SQLException {
+    final String insert = dialect.buildInsertStatement(table, keyColumns, offsetColumns, null);
+    try (PreparedStatement statement = dialect.createPreparedStatement(connection, insert)) {
+      bindKey(statement, 1, partition);
+      statement.setLong(4, offset);
+      statement.executeUpdate();
+    }
+  }
+
+  private void createTableIfNecessary(Connection connection) throws SQLException {
+    if (tableExists || dialect.tableExists(connection, table)) {
+      tableExists = true;
+      return;
+    }
+    log.info("Creating table {} to store the offsets of written records", table);
+    final List<SinkRecordField> fields = Arrays.asList(
+        new SinkRecordField(Schema.STRING_SCHEMA, CONNECTOR_COLUMN, false),
+        new SinkRecordField(Schema.STRING_SCHEMA, TOPIC_COLUMN, false),
+        new SinkRecordField(Schema.INT32_SCHEMA, PARTITION_COLUMN, false),
+        new SinkRecordField(Schema.INT64_SCHEMA, OFFSET_COLUMN, false)
+    );
+    dialect.applyDdlStatements(
+        connection,
+        Collections.singletonList(dialect.buildCreateTableStatement(table, fields))
+    );
+    tableExists = true;
+  }
+
+  private void bindKey(
+      PreparedStatement statement,
+      int index,
+      TopicPartition partition
+  ) throws SQLException {
+    statement.setString(index, connectorName);
+    statement.setString(index + 1, partition.topic());
+    statement.setInt(index + 2, partition.partition());
+  }
+
+  private static TopicPartition partition(SinkRecord record) {
+    return new TopicPartition(record.topic(), record.kafkaPartition());
+  }
+}
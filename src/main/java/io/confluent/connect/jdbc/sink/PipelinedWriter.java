@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the records handed to it by the task on a separate thread, so that the task can keep
+ * consuming while a batch is being written. Records are written in batches of up to
+ * {@code batch.size} records, or of whatever was queued within {@code pipeline.linger.ms} of the
+ * first record of the batch. The bounded queue blocks {@link #put(Collection)} while it is full.
+ *
+ * <p>Only the offsets of records whose batch has been written are reported by
+ * {@link #committedOffsets(Collection)}. A failure of the writer thread stops it, and is thrown
+ * from the next call made by the task.
+ */
+class PipelinedWriter {
+  private static final Logger log = LoggerFactory.getLogger(PipelinedWriter.class);
+
+  private static final long POLL_MS = 100L;
+
+  /**
+   * Writes and commits one batch of records, retrying or reporting failures as configured.
+   */
+  interface BatchWriter {
+    void write(List<SinkRecord> records) throws InterruptedException;
+  }
+
+  private final BatchWriter batchWriter;
+  private final int batchSize;
+  private final long lingerMs;
+  private final BlockingQueue<SinkRecord> queue;
+  private final Map<TopicPartition, OffsetAndMetadata> committedOffsets = new HashMap<>();
+  private final Thread thread;
+  private volatile boolean running = true;
+
+  // Guarded by this
+  private long queuedCount = 0;
+  private long writtenCount = 0;
+  private Throwable failure;
+
+  PipelinedWriter(JdbcSinkConfig config, BatchWriter batchWriter) {
+    this.batchWriter = batchWriter;
+    this.batchSize = config.batchSize;
+    this.lingerMs = config.pipelineLingerMs;
+    this.queue = new ArrayBlockingQueue<>(config.pipelineQueueSize);
+    this.thread = new Thread(this::run, "jdbc-sink-writer-" + config.connectorName);
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  /**
+   * Queue the records for writing, blocking while the queue is full.
+   *
+   * @param records the records to write; may not be null
+   * @throws ConnectException if the writer thread has failed
+   */
+  void put(Collection<SinkRecord> records) {
+    for (SinkRecord record : records) {
+      try {
+        while (!queue.offer(record, POLL_MS, TimeUnit.MILLISECONDS)) {
+          checkFailure();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ConnectException("Interrupted while queueing records for writing", e);
+      }
+      synchronized (this) {
+        queuedCount++;
+      }
+    }
+    checkFailure();
+  }
+
+  /**
+   * Wait until every record queued so far has been written.
+   *
+   * @throws ConnectException if the writer thread has failed or the wait was interrupted
+   */
+  synchronized void drain() {
+    final long target = queuedCount;
+    while (writtenCount < target) {
+      checkFailure();
+      try {
+        wait(POLL_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ConnectException("Interrupted while waiting for records to be written", e);
+      }
+    }
+    checkFailure();
+  }
+
+  /**
+   * Get the offsets to commit for the given partitions, which are those following the last
+   * written record of each partition. Partitions without written records are omitted.
+   *
+   * @param partitions the partitions assigned to the task; may not be null
+   * @return the offsets to commit; never null
+   * @throws ConnectException if the writer thread has failed
+   */
+  synchronized Map<TopicPartition, OffsetAndMetadata> committedOffsets(
+      Collection<TopicPartition> partitions
+  ) {
+    checkFailure();
+    final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    for (TopicPartition partition : partitions) {
+      final OffsetAndMetadata offset = committedOffsets.get(partition);
+      if (offset != null) {
+        offsets.put(partition, offset);
+      }
+    }
+    return offsets;
+  }
+
+  /**
+   * Forget the written offsets of partitions that are no longer assigned to the task.
+   *
+   * @param partitions the partitions; may not be null
+   */
+  synchronized void forget(Collection<TopicPartition> partitions) {
+    committedOffsets.keySet().removeAll(partitions);
+  }
+
+  /**
+   * Stop the writer thread, abandoning any records that have not been written yet.
+   */
+  void stop() {
+    running = false;
+    thread.interrupt();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    queue.clear();
+  }
+
+  private synchronized void checkFailure() {
+    if (failure != null) {
+      throw new ConnectException("Writing records to the database failed", failure);
+    }
+  }
+
+  private void run() {
+    final List<SinkRecord> batch = new ArrayList<>(batchSize);
+    try {
+      while (running) {
+        final SinkRecord first = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        final long deadline = System.currentTimeMillis() + lingerMs;
+        while (batch.size() < batchSize) {
+          queue.drainTo(batch, batchSize - batch.size());
+          final long remainingMs = deadline - System.currentTimeMillis();
+          if (batch.size() >= batchSize || remainingMs <= 0) {
+            break;
+          }
+          final SinkRecord next = queue.poll(remainingMs, TimeUnit.MILLISECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        log.debug("Writing {} queued records", batch.size());
+        batchWriter.write(batch);
+        written(batch);
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      log.debug("Writer thread interrupted, abandoning {} records", batch.size());
+    } catch (Throwable t) {
+      log.error("Writer thread failed, the task will fail on its next call", t);
+      synchronized (this) {
+        failure = t;
+        notifyAll();
+      }
+    }
+  }
+
+  private synchronized void written(List<SinkRecord> batch) {
+    for (SinkRecord record : batch) {
+      final TopicPartition partition =
+          new TopicPartition(record.topic(), record.kafkaPartition());
+      final OffsetAndMetadata offset = committedOffsets.get(partition);
+      if (offset == null || offset.offset() <= record.kafkaOffset()) {
+        committedOffsets.put(partition, new OffsetAndMetadata(record.kafkaOffset() + 1));
+      }
+    }
+    writtenCount += batch.size();
+    notifyAll();
+  }
+}
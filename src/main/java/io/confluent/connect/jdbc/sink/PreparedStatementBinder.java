@@ -25,6 +25,9 @@ import org.apache.kafka.connect.sink.SinkRecord;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 import io.confluent.connect.jdbc.dialect.DatabaseDialect.StatementBinder;
@@ -42,6 +45,13 @@ public class PreparedStatementBinder implements StatementBinder {
   private final JdbcSinkConfig.InsertMode insertMode;
   private final DatabaseDialect dialect;
   private final TableDefinition tabDef;
+  // Fields and column definitions resolved once for the schemas, in placeholder order
+  private final Schema keyStructSchema;
+  private final Schema valueSchema;
+  private final Field[] keyFields;
+  private final ColumnDefinition[] keyColumns;
+  private final Field[] nonKeyFields;
+  private final ColumnDefinition[] nonKeyColumns;
 
   @Deprecated
   public PreparedStatementBinder(
@@ -79,10 +89,67 @@ public class PreparedStatementBinder implements StatementBinder {
     this.fieldsMetadata = fieldsMetadata;
     this.insertMode = insertMode;
     this.tabDef = tabDef;
+
+    final List<String> keyNames = keyColumnNames();
+    this.keyFields = new Field[keyNames.size()];
+    this.keyColumns = new ColumnDefinition[keyNames.size()];
+    this.keyStructSchema = keyStructSchema(pkMode, schemaPair);
+    for (int i = 0; i < keyNames.size(); i++) {
+      keyFields[i] = keyStructSchema == null ? null : keyStructSchema.field(keyNames.get(i));
+      keyColumns[i] = columnDefinition(keyNames.get(i));
+    }
+    this.valueSchema = schemaPair == null ? null : schemaPair.valueSchema;
+    this.nonKeyFields = new Field[fieldsMetadata.nonKeyFieldNames.size()];
+    this.nonKeyColumns = new ColumnDefinition[nonKeyFields.length];
+    int i = 0;
+    for (String fieldName : fieldsMetadata.nonKeyFieldNames) {
+      nonKeyFields[i] = valueSchema == null ? null : valueSchema.field(fieldName);
+      nonKeyColumns[i++] = columnDefinition(fieldName);
+    }
+  }
+
+  private List<String> keyColumnNames() {
+    switch (pkMode) {
+      case KAFKA:
+        return JdbcSinkConfig.DEFAULT_KAFKA_PK_NAMES;
+      case RECORD_KEY:
+      case RECORD_VALUE:
+        return new ArrayList<>(fieldsMetadata.keyFieldNames);
+      default:
+        return Collections.emptyList();
+    }
+  }
+
+  private static Schema keyStructSchema(
+      JdbcSinkConfig.PrimaryKeyMode pkMode,
+      SchemaPair schemaPair
+  ) {
+    if (schemaPair == null) {
+      return null;
+    }
+    switch (pkMode) {
+      case RECORD_KEY:
+        final Schema keySchema = schemaPair.keySchema;
+        return keySchema == null || keySchema.type().isPrimitive() ? null : keySchema;
+      case RECORD_VALUE:
+        return schemaPair.valueSchema;
+      default:
+        return null;
+    }
+  }
+
+  private ColumnDefinition columnDefinition(String fieldName) {
+    return tabDef == null ? null : tabDef.definitionForColumn(fieldName);
   }
 
   @Override
   public void bindRecord(SinkRecord record) throws SQLException {
+    bindRecord(1, record);
+    statement.addBatch();
+  }
+
+  @Override
+  public int bindRecord(int index, SinkRecord record) throws SQLException {
     final Struct valueStruct = (Struct) record.value();
     final boolean isDelete = isNull(valueStruct);
     // Assumption: the relevant SQL has placeholders for keyFieldNames first followed by
@@ -92,27 +159,30 @@ public class PreparedStatementBinder implements StatementBinder {
     //             the relevant SQL has placeholders for nonKeyFieldNames first followed by
     //             keyFieldNames, in iteration order for all UPDATE queries
 
-    int index = 1;
     if (isDelete) {
-      bindKeyFields(record, index);
+      index = bindKeyFields(record, index);
     } else {
       switch (insertMode) {
         case INSERT:
         case UPSERT:
+        case BULK_UPSERT:
+        case INSERT_IGNORE:
+        case AGGREGATE_UPSERT:
+        case SNAPSHOT:
           index = bindKeyFields(record, index);
-          bindNonKeyFields(record, valueStruct, index);
+          index = bindNonKeyFields(record, valueStruct, index);
           break;
 
         case UPDATE:
           index = bindNonKeyFields(record, valueStruct, index);
-          bindKeyFields(record, index);
+          index = bindKeyFields(record, index);
           break;
         default:
           throw new AssertionError();
 
       }
     }
-    statement.addBatch();
+    return index;
   }
 
   protected int bindKeyFields(SinkRecord record, int index) throws SQLException {
@@ -125,34 +195,36 @@ public class PreparedStatementBinder implements StatementBinder {
 
       case KAFKA: {
         assert fieldsMetadata.keyFieldNames.size() == 3;
-        bindField(index++, Schema.STRING_SCHEMA, record.topic(),
-            JdbcSinkConfig.DEFAULT_KAFKA_PK_NAMES.get(0));
-        bindField(index++, Schema.INT32_SCHEMA, record.kafkaPartition(),
-            JdbcSinkConfig.DEFAULT_KAFKA_PK_NAMES.get(1));
-        bindField(index++, Schema.INT64_SCHEMA, record.kafkaOffset(),
-            JdbcSinkConfig.DEFAULT_KAFKA_PK_NAMES.get(2));
+        bindField(index++, Schema.STRING_SCHEMA, record.topic(), keyColumns[0]);
+        bindField(index++, Schema.INT32_SCHEMA, record.kafkaPartition(), keyColumns[1]);
+        bindField(index++, Schema.INT64_SCHEMA, record.kafkaOffset(), keyColumns[2]);
       }
       break;
 
       case RECORD_KEY: {
         if (schemaPair.keySchema.type().isPrimitive()) {
           assert fieldsMetadata.keyFieldNames.size() == 1;
-          bindField(index++, schemaPair.keySchema, record.key(),
-              fieldsMetadata.keyFieldNames.iterator().next());
+          bindField(index++, schemaPair.keySchema, record.key(), keyColumns[0]);
         } else {
-          for (String fieldName : fieldsMetadata.keyFieldNames) {
-            final Field field = schemaPair.keySchema.field(fieldName);
-            bindField(index++, field.schema(), ((Struct) record.key()).get(field), fieldName);
-          }
+          index = bindStructFields(
+              (Struct) record.key(),
+              keyStructSchema,
+              keyFields,
+              keyColumns,
+              index
+          );
         }
       }
       break;
 
       case RECORD_VALUE: {
-        for (String fieldName : fieldsMetadata.keyFieldNames) {
-          final Field field = schemaPair.valueSchema.field(fieldName);
-          bindField(index++, field.schema(), ((Struct) record.value()).get(field), fieldName);
-        }
+        index = bindStructFields(
+            (Struct) record.value(),
+            keyStructSchema,
+            keyFields,
+            keyColumns,
+            index
+        );
       }
       break;
 
@@ -167,9 +239,22 @@ public class PreparedStatementBinder implements StatementBinder {
       Struct valueStruct,
       int index
   ) throws SQLException {
-    for (final String fieldName : fieldsMetadata.nonKeyFieldNames) {
-      final Field field = record.valueSchema().field(fieldName);
-      bindField(index++, field.schema(), valueStruct.get(field), fieldName);
+    return bindStructFields(valueStruct, valueSchema, nonKeyFields, nonKeyColumns, index);
+  }
+
+  private int bindStructFields(
+      Struct struct,
+      Schema resolvedSchema,
+      Field[] fields,
+      ColumnDefinition[] columns,
+      int index
+  ) throws SQLException {
+    // A batch may hold records of other schema instances with the same columns, whose field
+    // indexes can differ from those resolved for this binder's schemas
+    final boolean resolved = struct.schema() == resolvedSchema;
+    for (int i = 0; i < fields.length; i++) {
+      final Field field = resolved ? fields[i] : struct.schema().field(fields[i].name());
+      bindField(index++, field.schema(), struct.get(field), columns[i]);
     }
     return index;
   }
@@ -182,7 +267,11 @@ public class PreparedStatementBinder implements StatementBinder {
 
   protected void bindField(int index, Schema schema, Object value, String fieldName)
       throws SQLException {
-    ColumnDefinition colDef = tabDef == null ? null : tabDef.definitionForColumn(fieldName);
+    bindField(index, schema, value, columnDefinition(fieldName));
+  }
+
+  private void bindField(int index, Schema schema, Object value, ColumnDefinition colDef)
+      throws SQLException {
     dialect.bindField(statement, index, schema, value, colDef);
   }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+
+/**
+ * Extracts the values of the primary key columns from a record, in the order of
+ * {@link FieldsMetadata#keyFieldNames}. The extracted values can be compared with
+ * {@link List#equals(Object)} and used as hash keys.
+ */
+class PrimaryKeyExtractor {
+
+  /**
+   * Orders extracted key values column by column, with nulls first. Values of the same comparable
+   * type are compared naturally, and any others by their string form.
+   */
+  static final Comparator<List<Object>> KEY_ORDER = (left, right) -> {
+    final int size = Math.min(left.size(), right.size());
+    for (int i = 0; i < size; i++) {
+      final int result = compareValues(left.get(i), right.get(i));
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Integer.compare(left.size(), right.size());
+  };
+
+  private final JdbcSinkConfig.PrimaryKeyMode pkMode;
+  private final FieldsMetadata fieldsMetadata;
+  private final SchemaPair schemaPair;
+
+  PrimaryKeyExtractor(
+      JdbcSinkConfig.PrimaryKeyMode pkMode,
+      FieldsMetadata fieldsMetadata,
+      SchemaPair schemaPair
+  ) {
+    this.pkMode = pkMode;
+    this.fieldsMetadata = fieldsMetadata;
+    this.schemaPair = schemaPair;
+  }
+
+  /**
+   * Determine whether records written with this extractor have primary key values at all.
+   *
+   * @return true if the primary key mode defines key columns, or false otherwise
+   */
+  boolean hasKey() {
+    return pkMode != JdbcSinkConfig.PrimaryKeyMode.NONE
+           && !fieldsMetadata.keyFieldNames.isEmpty();
+  }
+
+  /**
+   * Get the primary key values of the given record.
+   *
+   * @param record the record; may not be null
+   * @return the key values in key column order; never null but empty if the primary key mode
+   *         is {@code none}
+   */
+  List<Object> keyValues(SinkRecord record) {
+    switch (pkMode) {
+      case NONE:
+        return Collections.emptyList();
+
+      case KAFKA:
+        return Arrays.asList(record.topic(), record.kafkaPartition(), record.kafkaOffset());
+
+      case RECORD_KEY:
+        if (schemaPair.keySchema.type().isPrimitive()) {
+          return Collections.singletonList(comparable(record.key()));
+        }
+        return fieldValues((Struct) record.key());
+
+      case RECORD_VALUE:
+        return fieldValues((Struct) record.value());
+
+      default:
+        throw new ConnectException("Unknown primary key mode: " + pkMode);
+    }
+  }
+
+  private List<Object> fieldValues(Struct struct) {
+    final List<Object> values = new ArrayList<>(fieldsMetadata.keyFieldNames.size());
+    for (String fieldName : fieldsMetadata.keyFieldNames) {
+      values.add(comparable(struct.get(fieldName)));
+    }
+    return values;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compareValues(Object left, Object right) {
+    if (left == right) {
+      return 0;
+    } else if (left == null) {
+      return -1;
+    } else if (right == null) {
+      return 1;
+    } else if (left instanceof Comparable && left.getClass() == right.getClass()) {
+      return ((Comparable<Object>) left).compareTo(right);
+    }
+    return String.valueOf(left).compareTo(String.valueOf(right));
+  }
+
+  private static Object comparable(Object value) {
+    // byte arrays use identity equality, so wrap them to compare by content
+    if (value instanceof byte[]) {
+      return ByteBuffer.wrap((byte[]) value);
+    }
+    return value;
+  }
+}
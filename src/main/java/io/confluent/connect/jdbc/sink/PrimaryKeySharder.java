@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.Arrays;
+import java.util.List;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
+
+/**
+ * Assigns the records of a table to shards by the hash of their primary key, so that the shards
+ * can be written in parallel while all records with the same key stay in order in one shard.
+ * The key is determined like the primary key columns: from the Kafka coordinates, or from the
+ * {@code pk.fields} of the record key or value, or from all of their fields if none are
+ * configured.
+ */
+class PrimaryKeySharder {
+
+  private final int shards;
+  private final PrimaryKeyMode pkMode;
+  private final List<String> pkFields;
+
+  PrimaryKeySharder(JdbcSinkConfig config) {
+    this.shards = config.tableShards;
+    this.pkMode = config.pkMode;
+    this.pkFields = config.pkFields;
+  }
+
+  /**
+   * Get the shard of the given record.
+   *
+   * @param record the record; may not be null
+   * @return the shard, from 0 to {@code table.shards} - 1
+   */
+  int shard(SinkRecord record) {
+    return Math.floorMod(hash(record), shards);
+  }
+
+  private int hash(SinkRecord record) {
+    switch (pkMode) {
+      case KAFKA:
+        return Arrays.hashCode(new Object[] {
+            record.topic(),
+            record.kafkaPartition(),
+            record.kafkaOffset()
+        });
+      case RECORD_KEY:
+        return hash(record.key());
+      case RECORD_VALUE:
+        return hash(record.value());
+      default:
+        // Without a primary key, no two records need to be written in order
+        return Long.hashCode(record.kafkaOffset());
+    }
+  }
+
+  private int hash(Object object) {
+    if (!(object instanceof Struct)) {
+      return Arrays.deepHashCode(new Object[] {object});
+    }
+    final Struct struct = (Struct) object;
+    final Object[] values;
+    if (pkFields.isEmpty()) {
+      final List<Field> fields = struct.schema().fields();
+      values = new Object[fields.size()];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = struct.get(fields.get(i));
+      }
+    } else {
+      values = new Object[pkFields.size()];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = struct.get(pkFields.get(i));
+      }
+    }
+    return Arrays.deepHashCode(values);
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.AggregateFunction;
+
+/**
+ * Combines the records of each key in a batch into one record for {@code aggregate_upsert} mode.
+ * The {@code aggregate.columns} of the combined record hold the sum, minimum or maximum of the
+ * values of the records, ignoring nulls, and the other fields hold the values of the last record.
+ */
+class RecordAggregator {
+
+  private final Map<String, AggregateFunction> functions;
+
+  RecordAggregator(Map<String, AggregateFunction> functions) {
+    this.functions = functions;
+  }
+
+  /**
+   * Combine the records with the same key. Deletes are not combined, and follow the combined
+   * records in the order they were received.
+   *
+   * @param records      the records of one batch, which all have the same columns; may not be
+   *                     null
+   * @param keyExtractor the extractor of the primary key values; may not be null
+   * @return one record per key, followed by the deletes; never null
+   * @throws DataException if the values of a column cannot be combined with its function
+   */
+  List<SinkRecord> aggregate(List<SinkRecord> records, PrimaryKeyExtractor keyExtractor) {
+    final Map<List<Object>, Aggregate> aggregates = new LinkedHashMap<>();
+    final List<SinkRecord> deletes = new ArrayList<>();
+    for (SinkRecord record : records) {
+      if (record.value() == null) {
+        deletes.add(record);
+        continue;
+      }
+      final List<Object> key = keyExtractor.keyValues(record);
+      final Aggregate aggregate = aggregates.get(key);
+      if (aggregate == null) {
+        aggregates.put(key, new Aggregate(record));
+      } else {
+        aggregate.add(record);
+      }
+    }
+    final List<SinkRecord> aggregated = new ArrayList<>(aggregates.size() + deletes.size());
+    for (Aggregate aggregate : aggregates.values()) {
+      aggregated.add(aggregate.toRecord());
+    }
+    aggregated.addAll(deletes);
+    return aggregated;
+  }
+
+  private class Aggregate {
+    private SinkRecord last;
+    private Struct value;
+    private boolean copied;
+
+    Aggregate(SinkRecord record) {
+      this.last = record;
+      this.value = (Struct) record.value();
+    }
+
+    void add(SinkRecord record) {
+      final Struct next = (Struct) record.value();
+      final Struct previous = value;
+      if (!copied) {
+        // Copy the value once, so that the values of the records themselves are never changed
+        value = new Struct(next.schema());
+        copied = true;
+      }
+      for (Field field : next.schema().fields()) {
+        final AggregateFunction function = functions.get(field.name());
+        final Object nextValue = next.get(field);
+        value.put(
+            field.name(),
+            function == null
+            ? nextValue
+            : combine(function, field.name(), previous.get(field.name()), nextValue)
+        );
+      }
+      last = record;
+    }
+
+    SinkRecord toRecord() {
+      return last.newRecord(
+          last.topic(),
+          last.kafkaPartition(),
+          last.keySchema(),
+          last.key(),
+          last.valueSchema(),
+          value,
+          last.timestamp()
+      );
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object combine(
+      AggregateFunction function,
+      String field,
+      Object current,
+      Object next
+  ) {
+    if (current == null) {
+      return next;
+    }
+    if (next == null) {
+      return current;
+    }
+    switch (function) {
+      case SUM:
+        return sum(field, current, next);
+      case MIN:
+      case MAX:
+        if (!(current instanceof Comparable)) {
+          throw new DataException(String.format(
+              "Cannot aggregate field '%s' with %s, as its values of type %s are not comparable",
+              field,
+              function,
+              current.getClass().getSimpleName()
+          ));
+        }
+        final int comparison = ((Comparable<Object>) current).compareTo(next);
+        if (function == AggregateFunction.MIN) {
+          return comparison <= 0 ? current : next;
+        }
+        return comparison >= 0 ? current : next;
+      default:
+        throw new AssertionError(function);
+    }
+  }
+
+  private static Object sum(String field, Object current, Object next) {
+    if (current instanceof Byte) {
+      return (byte) ((Byte) current + (Byte) next);
+    }
+    if (current instanceof Short) {
+      return (short) ((Short) current + (Short) next);
+    }
+    if (current instanceof Integer) {
+      return (Integer) current + (Integer) next;
+    }
+    if (current instanceof Long) {
+      return (Long) current + (Long) next;
+    }
+    if (current instanceof Float) {
+      return (Float) current + (Float) next;
+    }
+    if (current instanceof Double) {
+      return (Double) current + (Double) next;
+    }
+    if (current instanceof BigDecimal) {
+      return ((BigDecimal) current).add((BigDecimal) next);
+    }
+    throw new DataException(String.format(
+        "Cannot sum field '%s', as its values of type %s are not numbers",
+        field,
+        current.getClass().getSimpleName()
+    ));
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Estimates the number of bytes that the key and value of a record take up when they are bound
+ * to a statement. The estimate counts fixed sizes for numbers, dates and booleans, the length of
+ * strings and byte arrays, and the sum of the fields, elements or entries of structs, arrays and
+ * maps. It does not serialize anything, so it is cheap enough to compute for every record, but it
+ * ignores per-value overheads of the drivers and the wire protocols.
+ */
+final class RecordSizeEstimator {
+
+  private static final long FIXED_SIZE = 8L;
+
+  private RecordSizeEstimator() {
+  }
+
+  /**
+   * Estimate the size of the key and value of the given record.
+   *
+   * @param record the record; may not be null
+   * @return the estimated size in bytes; never negative
+   */
+  static long estimate(SinkRecord record) {
+    return estimate(record.key()) + estimate(record.value());
+  }
+
+  private static long estimate(Object value) {
+    if (value == null) {
+      return 0L;
+    }
+    if (value instanceof String) {
+      // Exact for ASCII, which most strings written to tables mostly are
+      return ((String) value).length();
+    }
+    if (value instanceof byte[]) {
+      return ((byte[]) value).length;
+    }
+    if (value instanceof ByteBuffer) {
+      return ((ByteBuffer) value).remaining();
+    }
+    if (value instanceof Boolean || value instanceof Byte) {
+      return 1L;
+    }
+    if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).unscaledValue().bitLength() / 8 + 1;
+    }
+    if (value instanceof Number || value instanceof Date) {
+      return FIXED_SIZE;
+    }
+    if (value instanceof Struct) {
+      final Struct struct = (Struct) value;
+      long size = 0L;
+      for (Field field : struct.schema().fields()) {
+        size += estimate(struct.get(field));
+      }
+      return size;
+    }
+    if (value instanceof Collection) {
+      long size = 0L;
+      for (Object element : (Collection<?>) value) {
+        size += estimate(element);
+      }
+      return size;
+    }
+    if (value instanceof Map) {
+      long size = 0L;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        size += estimate(entry.getKey()) + estimate(entry.getValue());
+      }
+      return size;
+    }
+    return FIXED_SIZE;
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
+
+/**
+ * A bounded cache of the {@link FieldsMetadata} of the record schemas written to one table, keyed
+ * by the identity of the schema instances. Converters generally reuse one schema instance per
+ * schema version, so this avoids both the deep comparison of schemas and the extraction of their
+ * fields whenever the records of a topic alternate between a few schema versions.
+ *
+ * <p>Each entry also has a layout that determines the SQL and the binding of records: the column
+ * names, their order, and the properties of their schemas. Records of schemas with equal layouts
+ * can be written with the same statements.
+ */
+class SchemaLayoutCache {
+
+  static final int MAX_ENTRIES = 32;
+
+  /**
+   * The fields and layout of one pair of key and value schemas.
+   */
+  static final class Layout {
+    final SchemaPair schemaPair;
+    final FieldsMetadata fieldsMetadata;
+    private final List<Object> columns;
+
+    private Layout(SchemaPair schemaPair, FieldsMetadata fieldsMetadata) {
+      this.schemaPair = schemaPair;
+      this.fieldsMetadata = fieldsMetadata;
+      this.columns = new ArrayList<>();
+      columns.add(new ArrayList<>(fieldsMetadata.keyFieldNames));
+      columns.add(new ArrayList<>(fieldsMetadata.nonKeyFieldNames));
+      for (SinkRecordField field : fieldsMetadata.allFields.values()) {
+        columns.add(Arrays.asList(
+            field.name(),
+            field.isPrimaryKey(),
+            field.schemaType(),
+            field.schemaName(),
+            field.schemaParameters(),
+            field.isOptional(),
+            field.defaultValue()
+        ));
+      }
+    }
+
+    /**
+     * Determine whether records of this layout can be written with the statements of another.
+     *
+     * @param other the other layout; may be null
+     * @return true if both layouts have the same columns
+     */
+    boolean sameColumns(Layout other) {
+      return other != null && (other == this || columns.equals(other.columns));
+    }
+  }
+
+  private final JdbcSinkConfig config;
+  private final String tableName;
+  private final Map<IdentityKey, Layout> layouts =
+      new LinkedHashMap<IdentityKey, Layout>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<IdentityKey, Layout> eldest) {
+          return size() > MAX_ENTRIES;
+        }
+      };
+
+  SchemaLayoutCache(JdbcSinkConfig config, String tableName) {
+    this.config = config;
+    this.tableName = tableName;
+  }
+
+  /**
+   * Get the cached layout of the given schema instances, if any.
+   *
+   * @param keySchema   the key schema; may be null
+   * @param valueSchema the value schema; may be null
+   * @return the layout, or null if these instances are not cached
+   */
+  Layout cached(Schema keySchema, Schema valueSchema) {
+    return layouts.get(new IdentityKey(keySchema, valueSchema));
+  }
+
+  /**
+   * Get the layout of the given schema instances, extracting and caching it if necessary.
+   *
+   * @param keySchema   the key schema; may be null
+   * @param valueSchema the value schema; may be null
+   * @return the layout; never null
+   */
+  Layout layout(Schema keySchema, Schema valueSchema) {
+    return layouts.computeIfAbsent(new IdentityKey(keySchema, valueSchema), key -> {
+      final SchemaPair schemaPair = new SchemaPair(keySchema, valueSchema);
+      return new Layout(
+          schemaPair,
+          FieldsMetadata.extract(
+              tableName,
+              config.pkMode,
+              config.pkFields,
+              config.fieldsWhitelist,
+              schemaPair
+          )
+      );
+    });
+  }
+
+  private static final class IdentityKey {
+    private final Schema keySchema;
+    private final Schema valueSchema;
+
+    private IdentityKey(Schema keySchema, Schema valueSchema) {
+      this.keySchema = keySchema;
+      this.valueSchema = valueSchema;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof IdentityKey)) {
+        return false;
+      }
+      final IdentityKey that = (IdentityKey) o;
+      return keySchema == that.keySchema && valueSchema == that.valueSchema;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(keySchema) + System.identityHashCode(valueSchema);
+    }
+  }
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.KafkaMetricsContext;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.MetricsReporter;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.CumulativeCount;
+import org.apache.kafka.common.metrics.stats.CumulativeSum;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.metrics.stats.Percentile;
+import org.apache.kafka.common.metrics.stats.Percentiles;
+import org.apache.kafka.common.metrics.stats.Percentiles.BucketSizing;
+import org.apache.kafka.common.metrics.stats.Rate;
+import org.apache.kafka.common.utils.SystemTime;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * The metrics of the write path of one sink task, which are registered as MBeans in the
+ * {@code kafka.connect.jdbc} domain. The task metrics are tagged with the connector name and the
+ * id of the task, and the table metrics additionally with the destination table.
+ */
+class SinkMetrics implements AutoCloseable {
+
+  static final String JMX_PREFIX = "kafka.connect.jdbc";
+  static final String TASK_GROUP = "jdbc-sink-task-metrics";
+  static final String TABLE_GROUP = "jdbc-sink-table-metrics";
+
+  // Values beyond these maximums all fall into the last histogram bucket. The buckets widen
+  // linearly, so that 2000 buckets up to 10 seconds are about 3 milliseconds wide around one
+  // second, and narrower below
+  private static final double MAX_LATENCY_MS = 10_000;
+  private static final double MAX_BATCH_SIZE = 10_000;
+  private static final int HISTOGRAM_BYTES = 8_000;
+
+  // Connect runs each task on a thread named after the id of the task, e.g. task-thread-sink-0
+  private static final String TASK_THREAD_PREFIX = "task-thread-";
+  // The task numbers in use per connector, for tasks whose thread does not name their id
+  private static final Map<String, BitSet> TASK_NUMBERS = new HashMap<>();
+
+  private final Metrics metrics;
+  private final Map<String, String> tags;
+  // The number taken from TASK_NUMBERS, which is returned when the metrics are closed; or -1
+  private final int taskNumber;
+  private final ConcurrentMap<TableId, TableMetrics> tableMetrics = new ConcurrentHashMap<>();
+  private final Sensor records;
+  private final Sensor writeSize;
+  private final Sensor writeTime;
+  private final Sensor commitTime;
+  private final Sensor recordLag;
+  private final Sensor retries;
+  private final Sensor unrolls;
+  private final Sensor reportedRecords;
+
+  /**
+   * Create the metrics of a task and register them with JMX. This must be called on the thread
+   * of the task, whose name has the id of the task. Outside of a Connect worker, tasks are
+   * numbered from 0 per connector instead, reusing the numbers of closed tasks.
+   *
+   * @param connectorName the name of the connector; may be null
+   * @return the metrics; never null
+   */
+  static SinkMetrics register(String connectorName) {
+    final String connector = String.valueOf(connectorName);
+    final int taskId = taskId(connector, Thread.currentThread().getName());
+    final int taskNumber = taskId < 0 ? takeTaskNumber(connector) : -1;
+    final Map<String, String> tags = new LinkedHashMap<>();
+    tags.put("connector", connector);
+    tags.put("task", String.valueOf(taskId < 0 ? taskNumber : taskId));
+    final List<MetricsReporter> reporters = Collections.singletonList(new JmxReporter());
+    return new SinkMetrics(
+        new Metrics(
+            new MetricConfig(),
+            reporters,
+            new SystemTime(),
+            new KafkaMetricsContext(JMX_PREFIX)
+        ),
+        tags,
+        taskNumber
+    );
+  }
+
+  /**
+   * Get the id of the task from the name of the thread that Connect runs it on.
+   *
+   * @param connector  the name of the connector; may not be null
+   * @param threadName the name of the thread; may not be null
+   * @return the id of the task, or -1 if the thread is not named after a task of the connector
+   */
+  static int taskId(String connector, String threadName) {
+    final String prefix = TASK_THREAD_PREFIX + connector + "-";
+    if (!threadName.startsWith(prefix)) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(threadName.substring(prefix.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static int takeTaskNumber(String connector) {
+    synchronized (TASK_NUMBERS) {
+      final BitSet numbers = TASK_NUMBERS.computeIfAbsent(connector, c -> new BitSet());
+      final int number = numbers.nextClearBit(0);
+      numbers.set(number);
+      return number;
+    }
+  }
+
+  private static void returnTaskNumber(String connector, int number) {
+    synchronized (TASK_NUMBERS) {
+      final BitSet numbers = TASK_NUMBERS.get(connector);
+      if (numbers != null) {
+        numbers.clear(number);
+        if (numbers.isEmpty()) {
+          TASK_NUMBERS.remove(connector);
+        }
+      }
+    }
+  }
+
+  /**
+   * Create metrics that are only kept in memory, for instance for writers created in tests.
+   *
+   * @return the metrics; never null
+   */
+  static SinkMetrics unregistered() {
+    return new SinkMetrics(new Metrics(), Collections.emptyMap());
+  }
+
+  SinkMetrics(Metrics metrics, Map<String, String> tags) {
+    this(metrics, tags, -1);
+  }
+
+  private SinkMetrics(Metrics metrics, Map<String, String> tags, int taskNumber) {
+    this.metrics = metrics;
+    this.tags = tags;
+    this.taskNumber = taskNumber;
+
+    records = metrics.sensor("records");
+    records.add(name("record-rate", "The number of records written per second."), new Rate());
+    records.add(name("record-total", "The number of records written."), new CumulativeSum());
+
+    writeSize = metrics.sensor("write-size");
+    writeSize.add(
+        name("write-size-avg", "The average number of records written at once."),
+        new Avg()
+    );
+    writeSize.add(
+        name("write-size-max", "The maximum number of records written at once."),
+        new Max()
+    );
+    writeSize.add(percentiles(
+        "write-size",
+        TASK_GROUP,
+        tags,
+        "the number of records written at once",
+        MAX_BATCH_SIZE
+    ));
+    writeTime = latencySensor(
+        "write-time",
+        TASK_GROUP,
+        tags,
+        "write-time",
+        "writing and committing one batch of records to the database"
+    );
+    commitTime = latencySensor("commit-time", TASK_GROUP, tags, "commit-time", "committing");
+
+    recordLag = metrics.sensor("record-lag");
+    recordLag.add(
+        name("record-lag-avg", "The average time in milliseconds from the timestamp of a "
+            + "record to its commit to the database."),
+        new Avg()
+    );
+    recordLag.add(
+        name("record-lag-max", "The maximum time in milliseconds from the timestamp of a "
+            + "record to its commit to the database."),
+        new Max()
+    );
+
+    retries = countSensor("retry", "failed writes that were retried");
+    unrolls = countSensor("unroll", "failed batches that were split to isolate failed records");
+    reportedRecords = countSensor(
+        "reported-record",
+        "records reported to the errant record reporter"
+    );
+  }
+
+  /**
+   * Get the metrics of the given table, registering them the first time.
+   *
+   * @param tableId the table; may not be null
+   * @return the table metrics; never null
+   */
+  TableMetrics table(TableId tableId) {
+    return tableMetrics.computeIfAbsent(tableId, TableMetrics::new);
+  }
+
+  /**
+   * Remove the metrics of the given table, for instance once its buffer was closed because the
+   * table was not written recently, so that the metrics of ever more tables are not kept. The
+   * metrics are registered again if the table is written again.
+   *
+   * @param tableId the table; may not be null
+   */
+  void removeTable(TableId tableId) {
+    final TableMetrics removed = tableMetrics.remove(tableId);
+    if (removed != null) {
+      removed.remove();
+    }
+  }
+
+  /**
+   * Record a write of the given records that was committed to the database.
+   *
+   * @param written       the written records; may not be null
+   * @param writeTimeMs   the time the write took in milliseconds
+   * @param commitTimeMs  the time the commit took in milliseconds
+   */
+  void recordWrite(Collection<SinkRecord> written, double writeTimeMs, double commitTimeMs) {
+    final long now = System.currentTimeMillis();
+    records.record(written.size(), now);
+    writeSize.record(written.size(), now);
+    writeTime.record(writeTimeMs, now);
+    commitTime.record(commitTimeMs, now);
+    for (SinkRecord record : written) {
+      if (record.timestamp() != null && record.timestamp() >= 0) {
+        recordLag.record(now - record.timestamp(), now);
+      }
+    }
+  }
+
+  void recordRetry() {
+    retries.record();
+  }
+
+  void recordUnroll() {
+    unrolls.record();
+  }
+
+  void recordReported() {
+    reportedRecords.record();
+  }
+
+  @Override
+  public void close() {
+    metrics.close();
+    if (taskNumber >= 0) {
+      returnTaskNumber(tags.get("connector"), taskNumber);
+    }
+  }
+
+  private MetricName name(String name, String description) {
+    return metrics.metricName(name, TASK_GROUP, description, tags);
+  }
+
+  private Sensor countSensor(String name, String what) {
+    final Sensor sensor = metrics.sensor(name);
+    sensor.add(name(name + "-total", "The number of " + what + "."), new CumulativeCount());
+    return sensor;
+  }
+
+  /**
+   * Create a sensor of latencies with their average, maximum and a histogram of percentiles.
+   */
+  private Sensor latencySensor(
+      String sensorName,
+      String group,
+      Map<String, String> metricTags,
+      String name,
+      String what
+  ) {
+    final Sensor sensor = metrics.sensor(sensorName);
+    sensor.add(
+        metrics.metricName(name + "-avg", group,
+            "The average time in milliseconds spent " + what + ".", metricTags),
+        new Avg()
+    );
+    sensor.add(
+        metrics.metricName(name + "-max", group,
+            "The maximum time in milliseconds spent " + what + ".", metricTags),
+        new Max()
+    );
+    sensor.add(percentiles(
+        name,
+        group,
+        metricTags,
+        "the time in milliseconds spent " + what,
+        MAX_LATENCY_MS
+    ));
+    return sensor;
+  }
+
+  /**
+   * Create the median, 95th and 99th percentiles of a distribution of values up to the given
+   * maximum.
+   */
+  private Percentiles percentiles(
+      String name,
+      String group,
+      Map<String, String> metricTags,
+      String what,
+      double max
+  ) {
+    return new Percentiles(
+        HISTOGRAM_BYTES,
+        max,
+        BucketSizing.LINEAR,
+        new Percentile(
+            metrics.metricName(name + "-p50", group, "The median of " + what + ".", metricTags),
+            50
+        ),
+        new Percentile(
+            metrics.metricName(name + "-p95", group,
+                "The 95th percentile of " + what + ".", metricTags),
+            95
+        ),
+        new Percentile(
+            metrics.metricName(name + "-p99", group,
+                "The 99th percentile of " + what + ".", metricTags),
+            99
+        )
+    );
+  }
+
+  /**
+   * The metrics of the writes to one table.
+   */
+  class TableMetrics {
+    private final Map<String, String> tableTags;
+    private final Sensor flushTime;
+    private final Sensor executeTime;
+    private final Sensor flushSize;
+    private final Sensor flushBytes;
+    private final Sensor rows;
+    private final Sensor schemaChangeFlushes;
+
+    private TableMetrics(TableId tableId) {
+      tableTags = new LinkedHashMap<>(tags);
+      tableTags.put("table", tableId.toString());
+      final String prefix = "table." + tableId + ".";
+
+      flushTime = latencySensor(
+          prefix + "flush-time",
+          TABLE_GROUP,
+          tableTags,
+          "flush-time",
+          "on one flush, including the compaction of records by key and the binding of deletes"
+      );
+      executeTime = latencySensor(
+          prefix + "execute-time",
+          TABLE_GROUP,
+          tableTags,
+          "execute-time",
+          "executing the statements of one flush, which interleaves the binding of inserted rows"
+      );
+
+      flushSize = metrics.sensor(prefix + "flush-size");
+      flushSize.add(
+          tableName("flush-size-avg", "The average number of records written by one flush."),
+          new Avg()
+      );
+      flushSize.add(
+          tableName("flush-size-max", "The maximum number of records written by one flush."),
+          new Max()
+      );
+      flushSize.add(percentiles(
+          "flush-size",
+          TABLE_GROUP,
+          tableTags,
+          "the number of records written by one flush",
+          MAX_BATCH_SIZE
+      ));
+
+      flushBytes = metrics.sensor(prefix + "flush-bytes");
+      flushBytes.add(
+          tableName("flush-bytes-avg",
+              "The average estimated size in bytes of the records written by one flush."),
+          new Avg()
+      );
+      flushBytes.add(
+          tableName("flush-bytes-max",
+              "The maximum estimated size in bytes of the records written by one flush."),
+          new Max()
+      );
+      flushBytes.add(
+          tableName("bytes-rate",
+              "The estimated size in bytes of the records written per second."),
+          new Rate()
+      );
+
+      rows = metrics.sensor(prefix + "rows");
+      rows.add(
+          tableName("rows-affected-rate", "The number of rows affected per second."),
+          new Rate()
+      );
+      rows.add(
+          tableName("rows-affected-total", "The number of rows affected."),
+          new CumulativeSum()
+      );
+
+      schemaChangeFlushes = metrics.sensor(prefix + "schema-change-flushes");
+      schemaChangeFlushes.add(
+          tableName(
+              "schema-change-flush-total",
+              "The number of flushes forced by records of a schema with different columns."
+          ),
+          new CumulativeCount()
+      );
+    }
+
+    /**
+     * Record a flush of the given number of records.
+     *
+     * @param recordCount   the number of records flushed
+     * @param recordBytes   the estimated size of the records flushed in bytes
+     * @param rowsAffected  the number of rows reported as affected
+     * @param flushTimeMs   the time the flush took in milliseconds
+     * @param executeTimeMs the part of the flush time spent executing statements, in milliseconds
+     */
+    void recordFlush(
+        int recordCount,
+        long recordBytes,
+        long rowsAffected,
+        double flushTimeMs,
+        double executeTimeMs
+    ) {
+      final long now = System.currentTimeMillis();
+      flushSize.record(recordCount, now);
+      flushBytes.record(recordBytes, now);
+      rows.record(rowsAffected, now);
+      flushTime.record(flushTimeMs, now);
+      executeTime.record(executeTimeMs, now);
+    }
+
+    void recordSchemaChangeFlush() {
+      schemaChangeFlushes.record();
+    }
+
+    private void remove() {
+      for (Sensor sensor : Arrays.asList(
+          flushTime,
+          executeTime,
+          flushSize,
+          flushBytes,
+          rows,
+          schemaChangeFlushes
+      )) {
+        metrics.removeSensor(sensor.name());
+      }
+    }
+
+    private MetricName tableName(String name, String description) {
+      return metrics.metricName(name, TABLE_GROUP, description, tableTags);
+    }
+  }
+}
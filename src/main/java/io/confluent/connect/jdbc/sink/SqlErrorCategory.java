@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * The category of the error that failed a write, as classified by the SQLStates of the exceptions
+ * in its chain, which decides how much of the writer's state is thrown away before the write is
+ * retried.
+ */
+enum SqlErrorCategory {
+
+  /**
+   * The transaction was rolled back to break a deadlock. The connection, dialect and cached table
+   * definitions are still good, so the write is retried in-process after a short jittered pause.
+   */
+  DEADLOCK,
+
+  /**
+   * The transaction was rolled back because it could not be serialized with concurrent
+   * transactions, and is retried like a {@link #DEADLOCK}.
+   */
+  SERIALIZATION,
+
+  /**
+   * The connection was lost. The write is retried in-process on a new connection, keeping the
+   * dialect and the cached table definitions.
+   */
+  CONNECTION,
+
+  /**
+   * A constraint was violated, which retrying the same records will not fix, so the records are
+   * reported right away when an errant record reporter is configured.
+   */
+  CONSTRAINT,
+
+  /**
+   * Any other error, after which the writer and dialect are recreated before retrying.
+   */
+  OTHER;
+
+  // Vendor error codes of deadlocks that are reported with the generic SQLState 40001
+  private static final int MYSQL_DEADLOCK = 1213;
+  private static final int SQLSERVER_DEADLOCK = 1205;
+  // Oracle reports ORA-00060 with its generic SQLState 61000
+  private static final int ORACLE_DEADLOCK = 60;
+
+  /**
+   * Classify the first exception in the chain whose SQLState or type has a known category.
+   *
+   * @param exception the exception that failed the write; may not be null
+   * @return the category; never null
+   */
+  static SqlErrorCategory of(SQLException exception) {
+    for (Throwable t : exception) {
+      if (!(t instanceof SQLException)) {
+        continue;
+      }
+      final SqlErrorCategory category = classify((SQLException) t);
+      if (category != OTHER) {
+        return category;
+      }
+    }
+    return OTHER;
+  }
+
+  /**
+   * @return whether writes failing with this category are retried in-process with the same
+   *     dialect and cached table definitions
+   */
+  boolean isRetriedInProcess() {
+    return this == DEADLOCK || this == SERIALIZATION || this == CONNECTION;
+  }
+
+  /**
+   * @return whether this category implies that the tables written to are unchanged, so that
+   *     their cached definitions can be kept
+   */
+  boolean keepsTableDefinitions() {
+    return isRetriedInProcess();
+  }
+
+  private static SqlErrorCategory classify(SQLException e) {
+    if (e instanceof SQLTransientConnectionException
+        || e instanceof SQLNonTransientConnectionException
+        || e instanceof SQLRecoverableException) {
+      return CONNECTION;
+    }
+    final String state = e.getSQLState();
+    if (state == null) {
+      return OTHER;
+    }
+    if ("40P01".equals(state)
+        || ("61000".equals(state) && e.getErrorCode() == ORACLE_DEADLOCK)) {
+      return DEADLOCK;
+    }
+    if ("40001".equals(state)) {
+      final int code = e.getErrorCode();
+      return code == MYSQL_DEADLOCK || code == SQLSERVER_DEADLOCK ? DEADLOCK : SERIALIZATION;
+    }
+    if (state.startsWith("08")) {
+      return CONNECTION;
+    }
+    if (state.startsWith("23")) {
+      return CONSTRAINT;
+    }
+    return OTHER;
+  }
+}
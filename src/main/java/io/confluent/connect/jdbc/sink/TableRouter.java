@@ -0,0 +1,307 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * Resolves the destination table of records using the {@code table.name.format}, which may
+ * contain the placeholders {@code ${topic}}, {@code ${partition}}, {@code ${key.<field>}} and
+ * {@code ${value.<field>}}, and the time placeholders {@code ${timestamp:<pattern>}},
+ * {@code ${key.<field>:<pattern>}} and {@code ${value.<field>:<pattern>}}. Any other
+ * {@code ${...}} is kept as is.
+ *
+ * <p>The format is parsed once, and the resolved tables are cached so that the table name is
+ * neither built nor parsed for every record. Formats that only use the topic and the partition
+ * are cached by those, without building the name at all; formats that use record fields or
+ * times are cached by the table name they build. Not thread safe.
+ */
+class TableRouter {
+
+  static final int MAX_ENTRIES = 1000;
+
+  private interface Segment {
+    void append(StringBuilder builder, SinkRecord record, long shiftMs);
+  }
+
+  private final String format;
+  private final DatabaseDialect dialect;
+  private final ZoneId zone;
+  private final List<Segment> segments = new ArrayList<>();
+  private final boolean usesPartition;
+  private final boolean usesFields;
+  private final boolean usesTime;
+  private final Map<Object, TableId> tables =
+      new LinkedHashMap<Object, TableId>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, TableId> eldest) {
+          return size() > MAX_ENTRIES;
+        }
+      };
+
+  TableRouter(String format, DatabaseDialect dialect) {
+    this(format, dialect, ZoneOffset.UTC);
+  }
+
+  TableRouter(String format, DatabaseDialect dialect, ZoneId zone) {
+    this.format = format;
+    this.dialect = dialect;
+    this.zone = zone;
+    boolean partition = false;
+    boolean fields = false;
+    boolean time = false;
+    int start = 0;
+    while (start < format.length()) {
+      final int open = format.indexOf("${", start);
+      final int close = open < 0 ? -1 : format.indexOf('}', open + 2);
+      if (close < 0) {
+        literal(format.substring(start));
+        break;
+      }
+      if (open > start) {
+        literal(format.substring(start, open));
+      }
+      final String token = format.substring(open + 2, close);
+      final int colon = token.indexOf(':');
+      final String source = colon < 0 ? token : token.substring(0, colon);
+      final ToLongFunction<SinkRecord> millis = colon < 0 ? null : timeSource(source);
+      if (millis != null) {
+        final DateTimeFormatter formatter = formatter(token.substring(colon + 1));
+        segments.add((builder, record, shiftMs) -> formatter.formatTo(
+            Instant.ofEpochMilli(millis.applyAsLong(record) + shiftMs),
+            builder
+        ));
+        fields = true;
+        time = true;
+      } else if (token.equals("topic")) {
+        segments.add((builder, record, shiftMs) -> builder.append(record.topic()));
+      } else if (token.equals("partition")) {
+        segments.add((builder, record, shiftMs) -> builder.append(record.kafkaPartition()));
+        partition = true;
+      } else if (token.startsWith("key.") && token.length() > 4) {
+        final String field = token.substring(4);
+        segments.add((builder, record, shiftMs) -> builder.append(
+            fieldValue(record, "key", record.key(), field)
+        ));
+        fields = true;
+      } else if (token.startsWith("value.") && token.length() > 6) {
+        final String field = token.substring(6);
+        segments.add((builder, record, shiftMs) -> builder.append(
+            fieldValue(record, "value", record.value(), field)
+        ));
+        fields = true;
+      } else {
+        literal(format.substring(open, close + 1));
+      }
+      start = close + 1;
+    }
+    this.usesPartition = partition;
+    this.usesFields = fields;
+    this.usesTime = time;
+  }
+
+  /**
+   * Get the destination table of the given record.
+   *
+   * @param record the record; may not be null
+   * @return the table; never null
+   * @throws ConnectException if the table name is empty or cannot be built from the record
+   */
+  TableId route(SinkRecord record) {
+    if (usesFields) {
+      return routeByName(record, 0L);
+    }
+    final Object key = usesPartition
+                       ? new TopicPartition(record.topic(), record.kafkaPartition())
+                       : record.topic();
+    TableId tableId = tables.get(key);
+    if (tableId == null) {
+      tableId = parse(record, tableName(record, 0L));
+      tables.put(key, tableId);
+    }
+    return tableId;
+  }
+
+  /**
+   * Get the table that a record like the given one is routed to once the given time has passed,
+   * for instance to create that table before any record is written to it.
+   *
+   * @param record  the record; may not be null
+   * @param aheadMs the time in milliseconds added to the times of the record
+   * @return the table; never null, and the destination table of the record if the format has no
+   *         time placeholders
+   * @throws ConnectException if the table name is empty or cannot be built from the record
+   */
+  TableId routeAhead(SinkRecord record, long aheadMs) {
+    return usesTime ? routeByName(record, aheadMs) : route(record);
+  }
+
+  /**
+   * Determine whether the format routes records by time, so that new tables are used as time
+   * passes.
+   *
+   * @return true if the format has time placeholders
+   */
+  boolean routesByTime() {
+    return usesTime;
+  }
+
+  private TableId routeByName(SinkRecord record, long shiftMs) {
+    final String tableName = tableName(record, shiftMs);
+    TableId tableId = tables.get(tableName);
+    if (tableId == null) {
+      tableId = parse(record, tableName);
+      tables.put(tableName, tableId);
+    }
+    return tableId;
+  }
+
+  private String tableName(SinkRecord record, long shiftMs) {
+    final StringBuilder builder = new StringBuilder();
+    for (Segment segment : segments) {
+      segment.append(builder, record, shiftMs);
+    }
+    return builder.toString();
+  }
+
+  private TableId parse(SinkRecord record, String tableName) {
+    if (tableName.isEmpty()) {
+      throw new ConnectException(String.format(
+          "Destination table name for topic '%s' is empty using the format string '%s'",
+          record.topic(),
+          format
+      ));
+    }
+    return dialect.parseTableIdentifier(tableName);
+  }
+
+  private void literal(String text) {
+    segments.add((builder, record, shiftMs) -> builder.append(text));
+  }
+
+  /**
+   * Get the function that extracts the time of a record from the given source of a time
+   * placeholder.
+   *
+   * @param source the part of the placeholder before the pattern; may not be null
+   * @return the function, or null if the source is not a time source
+   */
+  private ToLongFunction<SinkRecord> timeSource(String source) {
+    if (source.equals("timestamp")) {
+      return this::timestamp;
+    } else if (source.startsWith("key.") && source.length() > 4) {
+      final String field = source.substring(4);
+      return record -> fieldTime(record, "key", record.key(), field);
+    } else if (source.startsWith("value.") && source.length() > 6) {
+      final String field = source.substring(6);
+      return record -> fieldTime(record, "value", record.value(), field);
+    }
+    return null;
+  }
+
+  private DateTimeFormatter formatter(String pattern) {
+    try {
+      return DateTimeFormatter.ofPattern(pattern).withZone(zone);
+    } catch (IllegalArgumentException e) {
+      throw new ConfigException(
+          JdbcSinkConfig.TABLE_NAME_FORMAT,
+          format,
+          "Invalid date and time pattern '" + pattern + "': " + e.getMessage()
+      );
+    }
+  }
+
+  private long timestamp(SinkRecord record) {
+    if (record.timestamp() == null) {
+      throw new ConnectException(String.format(
+          "Cannot resolve the destination table of the record at offset %d of topic '%s' "
+          + "partition %d using the format string '%s', as the record has no timestamp",
+          record.kafkaOffset(),
+          record.topic(),
+          record.kafkaPartition(),
+          format
+      ));
+    }
+    return record.timestamp();
+  }
+
+  private long fieldTime(SinkRecord record, String part, Object object, String field) {
+    final Object value = fieldValue(record, part, object, field);
+    if (value instanceof Date) {
+      return ((Date) value).getTime();
+    } else if (value instanceof Long || value instanceof Integer) {
+      return ((Number) value).longValue();
+    }
+    throw new ConnectException(String.format(
+        "Cannot resolve the destination table of the record at offset %d of topic '%s' "
+        + "partition %d using the format string '%s', as the %s field '%s' is neither a "
+        + "timestamp nor epoch milliseconds",
+        record.kafkaOffset(),
+        record.topic(),
+        record.kafkaPartition(),
+        format,
+        part,
+        field
+    ));
+  }
+
+  private Object fieldValue(SinkRecord record, String part, Object object, String field) {
+    if (!(object instanceof Struct) || ((Struct) object).schema().field(field) == null) {
+      throw new ConnectException(String.format(
+          "Cannot resolve the destination table of the record at offset %d of topic '%s' "
+          + "partition %d using the format string '%s', as its %s has no field '%s'",
+          record.kafkaOffset(),
+          record.topic(),
+          record.kafkaPartition(),
+          format,
+          part,
+          field
+      ));
+    }
+    final Object value = ((Struct) object).get(field);
+    if (value == null) {
+      throw new ConnectException(String.format(
+          "Cannot resolve the destination table of the record at offset %d of topic '%s' "
+          + "partition %d using the format string '%s', as the %s field '%s' is null",
+          record.kafkaOffset(),
+          record.topic(),
+          record.kafkaPartition(),
+          format,
+          part,
+          field
+      ));
+    }
+    return value;
+  }
+}
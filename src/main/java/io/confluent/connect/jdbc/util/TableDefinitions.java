@@ -15,33 +15,79 @@
 
 package io.confluent.connect.jdbc.util;
 
+import org.apache.kafka.common.utils.SystemTime;
+import org.apache.kafka.common.utils.Time;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 
 /**
- * A simple cache of {@link TableDefinition} keyed.
+ * A cache of {@link TableDefinition} keyed by {@link TableId}. The cache is bounded, evicting the
+ * least recently used definitions, and may expire definitions after a time to live. It may also
+ * remember for a while that a table does not exist.
+ *
+ * <p>The definitions themselves may be held in a store that is shared by all instances created
+ * with the same scope, for instance by all tasks writing to the same database. The store is
+ * thread-safe, but the definitions are always read from the database with the connection and the
+ * dialect of the instance looking them up.
  */
 public class TableDefinitions {
 
   private static final Logger log = LoggerFactory.getLogger(TableDefinitions.class);
 
-  private final Map<TableId, TableDefinition> cache = new HashMap<>();
+  private static final ConcurrentMap<String, Store> SHARED_STORES = new ConcurrentHashMap<>();
+
+  private final Store store;
   private final DatabaseDialect dialect;
+  private final long ttlMs;
+  private final long missingTtlMs;
+  private final Time time;
 
   /**
-   * Create an instance that uses the specified database dialect.
+   * Create an instance that uses the specified database dialect, and caches the definitions of
+   * existing tables until they are refreshed.
    *
    * @param dialect the database dialect; may not be null
    */
   public TableDefinitions(DatabaseDialect dialect) {
+    this(dialect, null, Integer.MAX_VALUE, 0L, 0L, new SystemTime());
+  }
+
+  /**
+   * Create an instance that uses the specified database dialect.
+   *
+   * @param dialect      the database dialect; may not be null
+   * @param sharedScope  the scope of the store shared with other instances, or null if this
+   *                     instance uses a store of its own
+   * @param maxSize      the maximum number of cached tables, which for a shared store is set by
+   *                     the first instance using it; must be positive
+   * @param ttlMs        the time after which a definition is read again, or 0 if never
+   * @param missingTtlMs the time for which a missing table is cached, or 0 if never
+   * @param time         the clock; may not be null
+   */
+  public TableDefinitions(
+      DatabaseDialect dialect,
+      String sharedScope,
+      int maxSize,
+      long ttlMs,
+      long missingTtlMs,
+      Time time
+  ) {
     this.dialect = dialect;
+    this.store = sharedScope == null
+        ? new Store(maxSize)
+        : SHARED_STORES.computeIfAbsent(sharedScope, scope -> new Store(maxSize));
+    this.ttlMs = ttlMs;
+    this.missingTtlMs = missingTtlMs;
+    this.time = time;
   }
 
   /**
@@ -56,15 +102,20 @@ public class TableDefinitions {
       Connection connection,
       final TableId tableId
   ) throws SQLException {
-    TableDefinition dbTable = cache.get(tableId);
-    if (dbTable == null) {
-      if (dialect.tableExists(connection, tableId)) {
-        dbTable = dialect.describeTable(connection, tableId);
-        if (dbTable != null) {
-          log.info("Setting metadata for table {} to {}", tableId, dbTable);
-          cache.put(tableId, dbTable);
-        }
+    final Entry cached = store.get(tableId, time.milliseconds());
+    if (cached != null) {
+      return cached.definition;
+    }
+    TableDefinition dbTable = null;
+    if (dialect.tableExists(connection, tableId)) {
+      dbTable = dialect.describeTable(connection, tableId);
+      if (dbTable != null) {
+        log.info("Setting metadata for table {} to {}", tableId, dbTable);
+        put(tableId, dbTable);
       }
+    } else if (missingTtlMs > 0) {
+      log.debug("Caching that table {} does not exist", tableId);
+      store.put(tableId, new Entry(null, time.milliseconds() + missingTtlMs));
     }
     return dbTable;
   }
@@ -84,10 +135,70 @@ public class TableDefinitions {
     TableDefinition dbTable = dialect.describeTable(connection, tableId);
     if (dbTable != null) {
       log.info("Refreshing metadata for table {} to {}", tableId, dbTable);
-      cache.put(dbTable.id(), dbTable);
+      put(dbTable.id(), dbTable);
     } else {
       log.warn("Failed to refresh metadata for table {}", tableId);
+      invalidate(tableId);
     }
     return dbTable;
   }
+
+  /**
+   * Forget what is cached about the given table, so that it is read from the database when it is
+   * next looked up.
+   *
+   * @param tableId the table identifier; may not be null
+   */
+  public void invalidate(TableId tableId) {
+    store.remove(tableId);
+  }
+
+  private void put(TableId tableId, TableDefinition definition) {
+    final long expiresAt = ttlMs > 0 ? time.milliseconds() + ttlMs : Long.MAX_VALUE;
+    store.put(tableId, new Entry(definition, expiresAt));
+  }
+
+  private static final class Entry {
+    // Null for a table that does not exist
+    private final TableDefinition definition;
+    private final long expiresAt;
+
+    private Entry(TableDefinition definition, long expiresAt) {
+      this.definition = definition;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  /**
+   * A thread-safe map of the cached entries that evicts the least recently used entries.
+   */
+  private static final class Store {
+    private final Map<TableId, Entry> entries;
+
+    private Store(int maxSize) {
+      this.entries = new LinkedHashMap<TableId, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TableId, Entry> eldest) {
+          return size() > maxSize;
+        }
+      };
+    }
+
+    private synchronized Entry get(TableId tableId, long now) {
+      final Entry entry = entries.get(tableId);
+      if (entry != null && entry.expiresAt <= now) {
+        entries.remove(tableId);
+        return null;
+      }
+      return entry;
+    }
+
+    private synchronized void put(TableId tableId, Entry entry) {
+      entries.put(tableId, entry);
+    }
+
+    private synchronized void remove(TableId tableId) {
+      entries.remove(tableId);
+    }
+  }
 }
@@ -280,6 +280,15 @@ public class GenericDatabaseDialectTest extends BaseDialectTest<GenericDatabaseD
         dialect.buildInsertStatement(tableId, pkColumns, columnsAtoD));
   }
 
+  @Test
+  public void testBuildMultiRowInsertStatement() {
+    newDialectFor(TABLE_TYPES, null);
+    assertEquals(
+        "INSERT INTO \"myTable\"(\"id1\",\"id2\",\"columnA\",\"columnB\",\"columnC\",\"columnD\") VALUES(?,?,?,?,?,?),(?,?,?,?,?,?)",
+        dialect.buildInsertStatement(tableId, pkColumns, columnsAtoD, null, 2));
+    assertEquals(0, dialect.maxBindVariables());
+  }
+
   @Test
   public void testBuildDeleteStatement() {
     newDialectFor(TABLE_TYPES, null);
@@ -289,6 +298,19 @@ public class GenericDatabaseDialectTest extends BaseDialectTest<GenericDatabaseD
     );
   }
 
+  @Test
+  public void testBuildMultiRowDeleteStatement() {
+    newDialectFor(TABLE_TYPES, null);
+    assertEquals(
+        "DELETE FROM \"myTable\" WHERE \"id1\" IN (?,?,?)",
+        dialect.buildDeleteStatement(tableId, Collections.singletonList(columnPK1), 3)
+    );
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> dialect.buildDeleteStatement(tableId, pkColumns, 2)
+    );
+  }
+
   protected void assertTableNames(
       Set<String> tableTypes,
       String schemaPattern,
@@ -23,8 +23,15 @@ import org.apache.kafka.connect.data.Time;
 import org.apache.kafka.connect.data.Timestamp;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.AggregateFunction;
+import io.confluent.connect.jdbc.util.ColumnId;
 import io.confluent.connect.jdbc.util.QuoteMethod;
 import io.confluent.connect.jdbc.util.TableId;
 
@@ -127,6 +134,89 @@ public class MySqlDatabaseDialectTest extends BaseDialectTest<MySqlDatabaseDiale
     assertEquals(expected, sql);
   }
 
+  @Test
+  public void shouldBuildMultiRowUpsertStatement() {
+    String expected = "insert into `myTable`(`id1`,`id2`,`columnA`,`columnB`,`columnC`,`columnD`)" +
+                      " values(?,?,?,?,?,?),(?,?,?,?,?,?),(?,?,?,?,?,?) on duplicate key update " +
+                      "`columnA`=values(`columnA`),`columnB`=values(`columnB`)," +
+                      "`columnC`=values(`columnC`),`columnD`=values(`columnD`)";
+    String sql = dialect.buildUpsertQueryStatement(tableId, pkColumns, columnsAtoD, null, 3);
+    assertEquals(expected, sql);
+  }
+
+  @Test
+  public void shouldBuildVersionedUpsertStatement() {
+    dialect = new MySqlDatabaseDialect(sinkConfigWithUrl(
+        "jdbc:mysql://something",
+        JdbcSinkConfig.UPSERT_VERSION_COLUMN, "columnA"
+    ));
+    List<ColumnId> columns = Arrays.asList(
+        new ColumnId(tableId, "columnA"),
+        new ColumnId(tableId, "columnB")
+    );
+    String expected = "insert into `myTable`(`id1`,`id2`,`columnA`,`columnB`) values(?,?,?,?) " +
+                      "on duplicate key update `columnB`=if(`columnA` is null or " +
+                      "values(`columnA`)>`columnA`,values(`columnB`),`columnB`)," +
+                      "`columnA`=if(`columnA` is null or values(`columnA`)>`columnA`," +
+                      "values(`columnA`),`columnA`)";
+    String sql = dialect.buildUpsertQueryStatement(tableId, pkColumns, columns, null, 1);
+    assertEquals(expected, sql);
+  }
+
+  @Test
+  public void shouldBuildInsertIgnoreStatement() {
+    String expected = "insert ignore into `myTable`(`id1`,`id2`,`columnA`,`columnB`,`columnC`," +
+                      "`columnD`) values(?,?,?,?,?,?),(?,?,?,?,?,?)";
+    String sql = dialect.buildInsertIgnoreStatement(tableId, pkColumns, columnsAtoD, null, 2);
+    assertEquals(expected, sql);
+  }
+
+  @Test
+  public void shouldBuildAggregateUpsertStatement() {
+    Map<String, AggregateFunction> functions = new HashMap<>();
+    functions.put("columnA", AggregateFunction.SUM);
+    functions.put("columnB", AggregateFunction.MAX);
+    List<ColumnId> columns = Arrays.asList(
+        new ColumnId(tableId, "columnA"),
+        new ColumnId(tableId, "columnB"),
+        new ColumnId(tableId, "columnC")
+    );
+    String expected = "insert into `myTable`(`id1`,`id2`,`columnA`,`columnB`,`columnC`) " +
+                      "values(?,?,?,?,?) on duplicate key update " +
+                      "`columnA`=COALESCE(`columnA`+values(`columnA`),`columnA`," +
+                      "values(`columnA`)),`columnB`=CASE WHEN values(`columnB`)>`columnB` " +
+                      "THEN values(`columnB`) ELSE COALESCE(`columnB`,values(`columnB`)) END," +
+                      "`columnC`=values(`columnC`)";
+    String sql = dialect.buildAggregateUpsertStatement(
+        tableId,
+        pkColumns,
+        columns,
+        functions,
+        null,
+        1
+    );
+    assertEquals(expected, sql);
+  }
+
+  @Test
+  public void shouldBuildSwapTableStatements() {
+    TableId shadowTableId = new TableId(null, null, "myTable_shadow");
+    assertEquals(
+        Collections.singletonList(
+            "rename table `myTable` to `myTable_retired`, `myTable_shadow` to `myTable`"
+        ),
+        dialect.buildSwapTableStatements(
+            tableId,
+            shadowTableId,
+            new TableId(null, null, "myTable_retired")
+        )
+    );
+    assertEquals(
+        Collections.singletonList("rename table `myTable_shadow` to `myTable`"),
+        dialect.buildSwapTableStatements(tableId, shadowTableId, null)
+    );
+  }
+
   @Test
   public void createOneColNoPk() {
     verifyCreateOneColNoPk(
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.dialect;
+
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TimeZone;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+
+import static org.junit.Assert.assertEquals;
+
+public class PostgreSqlCopyWriterTest {
+
+  private final Schema keySchema = SchemaBuilder.struct()
+      .field("id", Schema.INT64_SCHEMA)
+      .build();
+
+  private final Schema valueSchema = SchemaBuilder.struct()
+      .field("name", Schema.OPTIONAL_STRING_SCHEMA)
+      .field("active", Schema.BOOLEAN_SCHEMA)
+      .field("data", Schema.BYTES_SCHEMA)
+      .field("amount", Decimal.schema(2))
+      .field("created", Timestamp.SCHEMA)
+      .field("tags", SchemaBuilder.array(Schema.STRING_SCHEMA).build())
+      .build();
+
+  @Test
+  public void shouldEncodeRecordAsCopyText() {
+    SinkRecord record = record("a\tb\\c\nd");
+    assertEquals(
+        "42\ta\\tb\\\\c\\nd\tt\t\\\\x00ff\t12.34\t2020-01-02 03:04:05.678Z"
+        + "\t{\"x\",\"\\\\\"y\\\\\"\"}\n",
+        encode(record)
+    );
+  }
+
+  @Test
+  public void shouldEncodeNullAsCopyNull() {
+    SinkRecord record = record(null);
+    assertEquals(
+        "42\t\\N\tt\t\\\\x00ff\t12.34\t2020-01-02 03:04:05.678Z\t{\"x\",\"\\\\\"y\\\\\"\"}\n",
+        encode(record)
+    );
+  }
+
+  private SinkRecord record(String name) {
+    Struct key = new Struct(keySchema).put("id", 42L);
+    Struct value = new Struct(valueSchema)
+        .put("name", name)
+        .put("active", true)
+        .put("data", new byte[] {0, (byte) 0xff})
+        .put("amount", new BigDecimal("12.34"))
+        .put("created", new java.util.Date(1577934245678L))
+        .put("tags", Arrays.asList("x", "\"y\""));
+    return new SinkRecord("topic", 0, keySchema, key, valueSchema, value, 0);
+  }
+
+  private String encode(SinkRecord record) {
+    FieldsMetadata fieldsMetadata = FieldsMetadata.extract(
+        "myTable",
+        PrimaryKeyMode.RECORD_KEY,
+        Collections.emptyList(),
+        Collections.emptySet(),
+        keySchema,
+        valueSchema
+    );
+    PostgreSqlCopyWriter writer = new PostgreSqlCopyWriter(
+        null,
+        "COPY myTable FROM STDIN",
+        PrimaryKeyMode.RECORD_KEY,
+        new SchemaPair(keySchema, valueSchema),
+        fieldsMetadata,
+        TimeZone.getTimeZone("UTC")
+    );
+    StringBuilder builder = new StringBuilder();
+    writer.appendRecord(builder, record);
+    return builder.toString();
+  }
+}
@@ -26,15 +26,21 @@ import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Schema.Type;
 import org.apache.kafka.connect.data.Time;
 import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.ConnectException;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.AggregateFunction;
+import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
 import io.confluent.connect.jdbc.util.ColumnDefinition;
 import io.confluent.connect.jdbc.util.ColumnId;
 import io.confluent.connect.jdbc.util.QuoteMethod;
@@ -283,6 +289,184 @@ public class PostgreSqlDatabaseDialectTest extends BaseDialectTest<PostgreSqlDat
     );
   }
 
+  @Test
+  public void shouldBuildMultiRowInsertUpsertAndInsertIgnoreStatements() {
+    TableDefinitionBuilder builder = new TableDefinitionBuilder().withTable("myTable");
+    builder.withColumn("id1").type("int", JDBCType.INTEGER, Integer.class);
+    builder.withColumn("id2").type("int", JDBCType.INTEGER, Integer.class);
+    builder.withColumn("columnA").type("varchar", JDBCType.VARCHAR, Integer.class);
+    builder.withColumn("uuidColumn").type("uuid", JDBCType.OTHER, UUID.class);
+    TableDefinition tableDefn = builder.build();
+    List<ColumnId> nonPkColumns = new ArrayList<>();
+    nonPkColumns.add(new ColumnId(tableId, "columnA"));
+    nonPkColumns.add(new ColumnId(tableId, "uuidColumn"));
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"id2\",\"columnA\",\"uuidColumn\") " +
+        "VALUES (?,?,?,?::uuid),(?,?,?,?::uuid)",
+        dialect.buildInsertStatement(tableId, pkColumns, nonPkColumns, tableDefn, 2)
+    );
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"id2\",\"columnA\",\"uuidColumn\") " +
+        "VALUES (?,?,?,?::uuid),(?,?,?,?::uuid) ON CONFLICT (\"id1\",\"id2\") DO UPDATE SET " +
+        "\"columnA\"=EXCLUDED.\"columnA\",\"uuidColumn\"=EXCLUDED.\"uuidColumn\"",
+        dialect.buildUpsertQueryStatement(tableId, pkColumns, nonPkColumns, tableDefn, 2)
+    );
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"id2\",\"columnA\",\"uuidColumn\") " +
+        "VALUES (?,?,?,?::uuid),(?,?,?,?::uuid) ON CONFLICT (\"id1\",\"id2\") DO NOTHING",
+        dialect.buildInsertIgnoreStatement(tableId, pkColumns, nonPkColumns, tableDefn, 2)
+    );
+    assertEquals(Short.MAX_VALUE, dialect.maxBindVariables());
+  }
+
+  @Test
+  public void shouldBuildConditionalUpsertStatements() {
+    dialect = new PostgreSqlDatabaseDialect(sinkConfigWithUrl(
+        "jdbc:postgresql://something",
+        JdbcSinkConfig.UPSERT_SKIP_UNCHANGED, "true"
+    ));
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"id2\",\"columnA\",\"columnB\") VALUES (?,?,?,?) " +
+        "ON CONFLICT (\"id1\",\"id2\") DO UPDATE SET \"columnA\"=EXCLUDED.\"columnA\"," +
+        "\"columnB\"=EXCLUDED.\"columnB\" WHERE " +
+        "(\"myTable\".\"columnA\",\"myTable\".\"columnB\") " +
+        "IS DISTINCT FROM (EXCLUDED.\"columnA\",EXCLUDED.\"columnB\")",
+        dialect.buildUpsertQueryStatement(tableId, pkColumns, columnsAtoB(), null)
+    );
+
+    dialect = new PostgreSqlDatabaseDialect(sinkConfigWithUrl(
+        "jdbc:postgresql://something",
+        JdbcSinkConfig.UPSERT_SKIP_UNCHANGED, "true",
+        JdbcSinkConfig.UPSERT_VERSION_COLUMN, "columnB"
+    ));
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"id2\",\"columnA\",\"columnB\") VALUES (?,?,?,?) " +
+        "ON CONFLICT (\"id1\",\"id2\") DO UPDATE SET \"columnA\"=EXCLUDED.\"columnA\"," +
+        "\"columnB\"=EXCLUDED.\"columnB\" WHERE \"myTable\".\"columnB\" IS NULL OR " +
+        "EXCLUDED.\"columnB\" > \"myTable\".\"columnB\"",
+        dialect.buildUpsertQueryStatement(tableId, pkColumns, columnsAtoB(), null)
+    );
+  }
+
+  @Test(expected = ConnectException.class)
+  public void shouldNotBuildUpsertStatementWithUnknownVersionColumn() {
+    dialect = new PostgreSqlDatabaseDialect(sinkConfigWithUrl(
+        "jdbc:postgresql://something",
+        JdbcSinkConfig.UPSERT_VERSION_COLUMN, "version"
+    ));
+    dialect.buildUpsertQueryStatement(tableId, pkColumns, columnsAtoB(), null);
+  }
+
+  @Test
+  public void shouldBuildAggregateUpsertStatement() {
+    Map<String, AggregateFunction> functions = new HashMap<>();
+    functions.put("columnA", AggregateFunction.SUM);
+    functions.put("columnB", AggregateFunction.MIN);
+    List<ColumnId> columns = new ArrayList<>(columnsAtoB());
+    columns.add(new ColumnId(tableId, "columnC"));
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"id2\",\"columnA\",\"columnB\",\"columnC\") " +
+        "VALUES (?,?,?,?,?),(?,?,?,?,?) ON CONFLICT (\"id1\",\"id2\") DO UPDATE SET " +
+        "\"columnA\"=COALESCE(\"myTable\".\"columnA\"+EXCLUDED.\"columnA\"," +
+        "\"myTable\".\"columnA\",EXCLUDED.\"columnA\")," +
+        "\"columnB\"=CASE WHEN EXCLUDED.\"columnB\"<\"myTable\".\"columnB\" " +
+        "THEN EXCLUDED.\"columnB\" ELSE COALESCE(\"myTable\".\"columnB\",EXCLUDED.\"columnB\") " +
+        "END,\"columnC\"=EXCLUDED.\"columnC\"",
+        dialect.buildAggregateUpsertStatement(tableId, pkColumns, columns, functions, null, 2)
+    );
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"id2\") VALUES (?,?) " +
+        "ON CONFLICT (\"id1\",\"id2\") DO NOTHING",
+        dialect.buildAggregateUpsertStatement(
+            tableId,
+            pkColumns,
+            Collections.emptyList(),
+            functions,
+            null,
+            1
+        )
+    );
+  }
+
+  @Test
+  public void shouldBuildSwapTableStatements() {
+    TableId shadowTableId = new TableId(null, "public", "myTable_shadow");
+    assertEquals(
+        Arrays.asList(
+            "ALTER TABLE \"myTable\" RENAME TO \"myTable_retired\"",
+            "ALTER TABLE \"public\".\"myTable_shadow\" RENAME TO \"myTable\""
+        ),
+        dialect.buildSwapTableStatements(
+            tableId,
+            shadowTableId,
+            new TableId(null, "public", "myTable_retired")
+        )
+    );
+    assertEquals(
+        Collections.singletonList(
+            "ALTER TABLE \"public\".\"myTable_shadow\" RENAME TO \"myTable\""
+        ),
+        dialect.buildSwapTableStatements(tableId, shadowTableId, null)
+    );
+  }
+
+  private List<ColumnId> columnsAtoB() {
+    return Arrays.asList(new ColumnId(tableId, "columnA"), new ColumnId(tableId, "columnB"));
+  }
+
+  @Test
+  public void shouldBuildMultiRowDeleteStatement() {
+    assertEquals(
+        "DELETE FROM \"myTable\" WHERE (\"id1\",\"id2\") IN ((?,?),(?,?))",
+        dialect.buildDeleteStatement(tableId, pkColumns, 2)
+    );
+  }
+
+  @Test
+  public void shouldBuildCopyStatement() {
+    assertEquals(
+        "COPY \"myTable\" (\"id1\",\"id2\",\"columnA\",\"columnB\",\"columnC\",\"columnD\") " +
+        "FROM STDIN",
+        dialect.buildCopyStatement(tableId, pkColumns, columnsAtoD)
+    );
+  }
+
+  @Test
+  public void shouldBuildStagingTableStatements() {
+    TableId stagingTableId = new TableId(null, null, "myTable_staging");
+    assertEquals(
+        "CREATE TEMPORARY TABLE \"myTable_staging\" (" + System.lineSeparator() +
+        "\"pk1\" INT NOT NULL," + System.lineSeparator() + "PRIMARY KEY(\"pk1\"))",
+        dialect.buildCreateStagingTableStatement(
+            stagingTableId,
+            Collections.singletonList(new SinkRecordField(Schema.INT32_SCHEMA, "pk1", true))
+        )
+    );
+
+    TableDefinitionBuilder builder = new TableDefinitionBuilder().withTable("myTable");
+    builder.withColumn("id1").type("int", JDBCType.INTEGER, Integer.class);
+    builder.withColumn("id2").type("int", JDBCType.INTEGER, Integer.class);
+    builder.withColumn("columnA").type("varchar", JDBCType.VARCHAR, Integer.class);
+    builder.withColumn("uuidColumn").type("uuid", JDBCType.OTHER, UUID.class);
+    TableDefinition tableDefn = builder.build();
+    List<ColumnId> nonPkColumns = new ArrayList<>();
+    nonPkColumns.add(new ColumnId(tableId, "columnA"));
+    nonPkColumns.add(new ColumnId(tableId, "uuidColumn"));
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"id2\",\"columnA\",\"uuidColumn\") " +
+        "SELECT \"id1\",\"id2\",\"columnA\",\"uuidColumn\"::uuid FROM \"myTable_staging\" " +
+        "ON CONFLICT (\"id1\",\"id2\") DO UPDATE SET \"columnA\"=EXCLUDED.\"columnA\"," +
+        "\"uuidColumn\"=EXCLUDED.\"uuidColumn\"",
+        dialect.buildUpsertFromStagingStatement(
+            tableId,
+            stagingTableId,
+            pkColumns,
+            nonPkColumns,
+            tableDefn
+        )
+    );
+  }
+
   @Test
   public void shouldComputeValueTypeCast() {
     TableDefinitionBuilder builder = new TableDefinitionBuilder().withTable("myTable");
@@ -243,6 +243,25 @@ public class SqlServerDatabaseDialectTest extends BaseDialectTest<SqlServerDatab
     );
   }
 
+  @Test
+  public void shouldBuildInsertIgnoreStatement() {
+    assertEquals(
+        "merge into [myTable] with (HOLDLOCK) AS target using (select ? AS [id1], ?" +
+        " AS [id2], ? AS [columnA], ? AS [columnB], ? AS [columnC], ? AS [columnD])" +
+        " AS incoming on (target.[id1]=incoming.[id1] and target.[id2]=incoming" +
+        ".[id2]) when not matched then insert ([columnA], " +
+        "[columnB], [columnC], [columnD], [id1], [id2]) values (incoming.[columnA]," +
+        "incoming.[columnB],incoming.[columnC],incoming.[columnD],incoming.[id1]," +
+        "incoming.[id2]);",
+        dialect.buildInsertIgnoreStatement(tableId, pkColumns, columnsAtoD, null, 1)
+    );
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldNotBuildMultiRowInsertIgnoreStatement() {
+    dialect.buildInsertIgnoreStatement(tableId, pkColumns, columnsAtoD, null, 2);
+  }
+
   @Test
   public void createOneColNoPk() {
     verifyCreateOneColNoPk(
@@ -27,13 +27,22 @@ import org.junit.Test;
 
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.AggregateFunction;
 import io.confluent.connect.jdbc.sink.SqliteHelper;
+import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
 import io.confluent.connect.jdbc.util.ColumnDefinition;
+import io.confluent.connect.jdbc.util.ColumnId;
 import io.confluent.connect.jdbc.util.DateTimeUtils;
 import io.confluent.connect.jdbc.util.QuoteMethod;
 import io.confluent.connect.jdbc.util.TableDefinition;
@@ -193,6 +202,117 @@ public class SqliteDatabaseDialectTest extends BaseDialectTest<SqliteDatabaseDia
     assertEquals(expected, sql);
   }
 
+  @Test
+  public void shouldBuildMultiRowUpsertStatement() {
+    String expected = "INSERT OR REPLACE INTO `myTable`(`id1`,`id2`,`columnA`,`columnB`," +
+                      "`columnC`,`columnD`) VALUES(?,?,?,?,?,?),(?,?,?,?,?,?)";
+    String sql = dialect.buildUpsertQueryStatement(tableId, pkColumns, columnsAtoD, null, 2);
+    assertEquals(expected, sql);
+  }
+
+  @Test
+  public void shouldBuildConditionalUpsertStatements() {
+    List<ColumnId> columns = Arrays.asList(
+        new ColumnId(tableId, "columnA"),
+        new ColumnId(tableId, "columnB")
+    );
+    dialect = new SqliteDatabaseDialect(sinkConfigWithUrl(
+        "jdbc:sqlite://something",
+        JdbcSinkConfig.UPSERT_SKIP_UNCHANGED, "true"
+    ));
+    assertEquals(
+        "INSERT INTO `myTable`(`id1`,`id2`,`columnA`,`columnB`) VALUES(?,?,?,?) " +
+        "ON CONFLICT(`id1`,`id2`) DO UPDATE SET `columnA`=excluded.`columnA`," +
+        "`columnB`=excluded.`columnB` WHERE `myTable`.`columnA` IS NOT excluded.`columnA` OR " +
+        "`myTable`.`columnB` IS NOT excluded.`columnB`",
+        dialect.buildUpsertQueryStatement(tableId, pkColumns, columns, null, 1)
+    );
+
+    dialect = new SqliteDatabaseDialect(sinkConfigWithUrl(
+        "jdbc:sqlite://something",
+        JdbcSinkConfig.UPSERT_VERSION_COLUMN, "columnB"
+    ));
+    assertEquals(
+        "INSERT INTO `myTable`(`id1`,`id2`,`columnA`,`columnB`) SELECT `id1`,`id2`,`columnA`," +
+        "`columnB` FROM `myTable_staging` WHERE true ON CONFLICT(`id1`,`id2`) DO UPDATE SET " +
+        "`columnA`=excluded.`columnA`,`columnB`=excluded.`columnB` WHERE " +
+        "`myTable`.`columnB` IS NULL OR excluded.`columnB` > `myTable`.`columnB`",
+        dialect.buildUpsertFromStagingStatement(
+            tableId,
+            new TableId(null, null, "myTable_staging"),
+            pkColumns,
+            columns,
+            null
+        )
+    );
+  }
+
+  @Test
+  public void shouldBuildInsertIgnoreStatement() {
+    String expected = "INSERT OR IGNORE INTO `myTable`(`id1`,`id2`,`columnA`,`columnB`," +
+                      "`columnC`,`columnD`) VALUES(?,?,?,?,?,?),(?,?,?,?,?,?)";
+    String sql = dialect.buildInsertIgnoreStatement(tableId, pkColumns, columnsAtoD, null, 2);
+    assertEquals(expected, sql);
+  }
+
+  @Test
+  public void shouldBuildAggregateUpsertStatement() {
+    Map<String, AggregateFunction> functions = new HashMap<>();
+    functions.put("columnA", AggregateFunction.SUM);
+    functions.put("columnB", AggregateFunction.MIN);
+    List<ColumnId> columns = Arrays.asList(
+        new ColumnId(tableId, "columnA"),
+        new ColumnId(tableId, "columnB")
+    );
+    assertEquals(
+        "INSERT INTO `myTable`(`id1`,`id2`,`columnA`,`columnB`) VALUES(?,?,?,?) " +
+        "ON CONFLICT(`id1`,`id2`) DO UPDATE SET " +
+        "`columnA`=COALESCE(`myTable`.`columnA`+excluded.`columnA`,`myTable`.`columnA`," +
+        "excluded.`columnA`),`columnB`=CASE WHEN excluded.`columnB`<`myTable`.`columnB` " +
+        "THEN excluded.`columnB` ELSE COALESCE(`myTable`.`columnB`,excluded.`columnB`) END",
+        dialect.buildAggregateUpsertStatement(tableId, pkColumns, columns, functions, null, 1)
+    );
+  }
+
+  @Test
+  public void shouldBuildSwapTableStatements() {
+    assertEquals(
+        Arrays.asList(
+            "ALTER TABLE `myTable` RENAME TO `myTable_retired`",
+            "ALTER TABLE `myTable_shadow` RENAME TO `myTable`"
+        ),
+        dialect.buildSwapTableStatements(
+            tableId,
+            new TableId(null, null, "myTable_shadow"),
+            new TableId(null, null, "myTable_retired")
+        )
+    );
+  }
+
+  @Test
+  public void shouldBuildStagingTableStatements() {
+    TableId stagingTableId = new TableId(null, null, "myTable_staging");
+    assertEquals(
+        "CREATE TEMP TABLE `myTable_staging` (" + System.lineSeparator() +
+        "`pk1` INTEGER NOT NULL," + System.lineSeparator() + "PRIMARY KEY(`pk1`))",
+        dialect.buildCreateStagingTableStatement(
+            stagingTableId,
+            Collections.singletonList(new SinkRecordField(Schema.INT32_SCHEMA, "pk1", true))
+        )
+    );
+    assertEquals(
+        "INSERT OR REPLACE INTO `myTable`(`id1`,`id2`,`columnA`,`columnB`,`columnC`,`columnD`) " +
+        "SELECT `id1`,`id2`,`columnA`,`columnB`,`columnC`,`columnD` FROM `myTable_staging`",
+        dialect.buildUpsertFromStagingStatement(
+            tableId,
+            stagingTableId,
+            pkColumns,
+            columnsAtoD,
+            null
+        )
+    );
+  }
+
   @Test
   public void createOneColNoPk() {
     verifyCreateOneColNoPk(
@@ -35,6 +35,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -48,6 +49,7 @@ import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.util.TableId;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
@@ -119,6 +121,42 @@ public class BufferedRecordsTest {
     assertEquals(Collections.singletonList(recordA), buffer.flush());
   }
 
+  @Test
+  public void schemaVersionsWithSameColumnsShareBatch() throws SQLException {
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+
+    // Versions that differ only in schema metadata, e.g. from producers of different versions
+    final Schema schemaV1 = SchemaBuilder.struct().name("Person").version(1)
+        .field("name", Schema.STRING_SCHEMA)
+        .field("age", Schema.OPTIONAL_INT32_SCHEMA)
+        .build();
+    final Schema schemaV2 = SchemaBuilder.struct().name("Person").version(2).doc("A person")
+        .field("name", Schema.STRING_SCHEMA)
+        .field("age", Schema.OPTIONAL_INT32_SCHEMA)
+        .build();
+    final SinkRecord recordV1 = new SinkRecord(
+        "dummy", 0, null, null, schemaV1, new Struct(schemaV1).put("name", "cuba").put("age", 4), 0);
+    final SinkRecord recordV2 = new SinkRecord(
+        "dummy", 0, null, null, schemaV2, new Struct(schemaV2).put("name", "cubb").put("age", 5), 1);
+
+    assertEquals(Collections.emptyList(), buffer.add(recordV1));
+    assertEquals(Collections.emptyList(), buffer.add(recordV2));
+    assertEquals(Collections.emptyList(), buffer.add(recordV1));
+
+    assertEquals(Arrays.asList(recordV1, recordV2, recordV1), buffer.flush());
+    assertEquals(
+        3,
+        sqliteHelper.select("SELECT * FROM dummy", rs -> assertTrue(rs.getInt("age") > 0))
+    );
+  }
+
   @Test(expected = ConfigException.class)
   public void configParsingFailsIfDeleteWithWrongPKMode() {
     props.put("delete.enabled", true);
@@ -347,6 +385,396 @@ public class BufferedRecordsTest {
 	    assertEquals(Collections.singletonList(recordA), buffer.flush());
   }
   
+  @Test
+  public void insertThenDeleteThenInsertInBatchNoFlushWithDedupe() throws SQLException {
+    props.put("delete.enabled", true);
+    props.put("insert.mode", "upsert");
+    props.put("pk.mode", "record_key");
+    props.put("batch.dedupe.enabled", true);
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+
+    final Schema keySchemaA = SchemaBuilder.struct()
+        .field("id", Schema.INT64_SCHEMA)
+        .build();
+    final Schema valueSchemaA = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+    final Struct keyA = new Struct(keySchemaA)
+        .put("id", 1234L);
+    final Struct keyB = new Struct(keySchemaA)
+        .put("id", 5678L);
+    final SinkRecord recordA = new SinkRecord("dummy", 0, keySchemaA, keyA, valueSchemaA,
+        new Struct(valueSchemaA).put("name", "cuba"), 0);
+    final SinkRecord recordADelete = new SinkRecord("dummy", 0, keySchemaA, keyA, null, null, 1);
+    final SinkRecord recordAUpdate = new SinkRecord("dummy", 0, keySchemaA, keyA, valueSchemaA,
+        new Struct(valueSchemaA).put("name", "havana"), 2);
+    final SinkRecord recordB = new SinkRecord("dummy", 0, keySchemaA, keyB, valueSchemaA,
+        new Struct(valueSchemaA).put("name", "lima"), 3);
+    final SinkRecord recordBDelete = new SinkRecord("dummy", 0, keySchemaA, keyB, null, null, 4);
+
+    assertEquals(Collections.emptyList(), buffer.add(recordA));
+    assertEquals(Collections.emptyList(), buffer.add(recordADelete));
+
+    // insert after delete does not need a flush, since only the last record of a key is written
+    assertEquals(Collections.emptyList(), buffer.add(recordAUpdate));
+    assertEquals(Collections.emptyList(), buffer.add(recordB));
+    assertEquals(Collections.emptyList(), buffer.add(recordBDelete));
+
+    assertEquals(
+        Arrays.asList(recordA, recordADelete, recordAUpdate, recordB, recordBDelete),
+        buffer.flush()
+    );
+    assertEquals(
+        1,
+        sqliteHelper.select("select * from dummy", rs -> {
+          assertEquals(1234L, rs.getLong("id"));
+          assertEquals("havana", rs.getString("name"));
+        })
+    );
+  }
+
+  @Test
+  public void sortedBatchWritesInKeyOrderKeepingPerKeyOrder() throws SQLException {
+    props.put("insert.mode", "upsert");
+    props.put("pk.mode", "record_key");
+    props.put("batch.sort.enabled", true);
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+
+    // String keys, since a single integer primary key would be the rowid of SQLite
+    final Schema keySchema = SchemaBuilder.struct()
+        .field("id", Schema.STRING_SCHEMA)
+        .build();
+    final Schema valueSchema = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+    final List<SinkRecord> records = Arrays.asList(
+        new SinkRecord("dummy", 0, keySchema, new Struct(keySchema).put("id", "c"), valueSchema,
+            new Struct(valueSchema).put("name", "cuba"), 0),
+        new SinkRecord("dummy", 0, keySchema, new Struct(keySchema).put("id", "a"), valueSchema,
+            new Struct(valueSchema).put("name", "lima"), 1),
+        new SinkRecord("dummy", 0, keySchema, new Struct(keySchema).put("id", "c"), valueSchema,
+            new Struct(valueSchema).put("name", "havana"), 2),
+        new SinkRecord("dummy", 0, keySchema, new Struct(keySchema).put("id", "b"), valueSchema,
+            new Struct(valueSchema).put("name", "quito"), 3)
+    );
+    for (SinkRecord record : records) {
+      assertEquals(Collections.emptyList(), buffer.add(record));
+    }
+
+    // The flushed records are still returned in the order they were received
+    assertEquals(records, buffer.flush());
+
+    // Rows are inserted in key order, and the last record of a key is written last
+    final List<String> rows = new ArrayList<>();
+    sqliteHelper.select(
+        "select * from dummy order by rowid",
+        rs -> rows.add(rs.getString("id") + ":" + rs.getString("name"))
+    );
+    assertEquals(Arrays.asList("a:lima", "b:quito", "c:havana"), rows);
+  }
+
+  @Test
+  public void insertIgnoreSkipsExistingKeys() throws SQLException {
+    props.put("insert.mode", "insert_ignore");
+    props.put("pk.mode", "record_key");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+
+    final Schema keySchema = SchemaBuilder.struct()
+        .field("id", Schema.STRING_SCHEMA)
+        .build();
+    final Schema valueSchema = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+    final SinkRecord lima = new SinkRecord("dummy", 0, keySchema,
+        new Struct(keySchema).put("id", "a"), valueSchema,
+        new Struct(valueSchema).put("name", "lima"), 0);
+    buffer.add(lima);
+    assertEquals(Collections.singletonList(lima), buffer.flush());
+
+    // The redelivered key and the repeated key in the batch do not fail the update count check
+    final List<SinkRecord> replayed = Arrays.asList(
+        new SinkRecord("dummy", 0, keySchema, new Struct(keySchema).put("id", "a"), valueSchema,
+            new Struct(valueSchema).put("name", "cuzco"), 0),
+        new SinkRecord("dummy", 0, keySchema, new Struct(keySchema).put("id", "b"), valueSchema,
+            new Struct(valueSchema).put("name", "quito"), 1),
+        new SinkRecord("dummy", 0, keySchema, new Struct(keySchema).put("id", "b"), valueSchema,
+            new Struct(valueSchema).put("name", "guayaquil"), 2)
+    );
+    for (SinkRecord record : replayed) {
+      buffer.add(record);
+    }
+    assertEquals(replayed, buffer.flush());
+
+    // The first record of each key is kept
+    final List<String> rows = new ArrayList<>();
+    sqliteHelper.select(
+        "select * from dummy order by id",
+        rs -> rows.add(rs.getString("id") + ":" + rs.getString("name"))
+    );
+    assertEquals(Arrays.asList("a:lima", "b:quito"), rows);
+  }
+
+  @Test
+  public void versionedUpsertSkipsStaleRecords() throws SQLException {
+    props.put("insert.mode", "upsert");
+    props.put("pk.mode", "record_key");
+    props.put("upsert.version.column", "version");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+
+    final Schema keySchema = SchemaBuilder.struct()
+        .field("id", Schema.STRING_SCHEMA)
+        .build();
+    final Schema valueSchema = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .field("version", Schema.INT64_SCHEMA)
+        .build();
+    final String[] names = {"lima", "cuzco", "quito"};
+    final long[] versions = {2L, 1L, 3L};
+    for (int i = 0; i < names.length; i++) {
+      buffer.add(new SinkRecord("dummy", 0, keySchema, new Struct(keySchema).put("id", "a"),
+          valueSchema, new Struct(valueSchema).put("name", names[i]).put("version", versions[i]),
+          i));
+      buffer.flush();
+
+      final List<String> rows = new ArrayList<>();
+      sqliteHelper.select(
+          "select * from dummy",
+          rs -> rows.add(rs.getString("name") + ":" + rs.getLong("version"))
+      );
+      // The record with version 1 is older than the stored row and does not update it
+      assertEquals(
+          Collections.singletonList(i == 2 ? "quito:3" : "lima:2"),
+          rows
+      );
+    }
+  }
+
+  @Test
+  public void aggregateUpsertSumsDeltasAcrossFlushes() throws SQLException {
+    props.put("insert.mode", "aggregate_upsert");
+    props.put("pk.mode", "record_key");
+    props.put("aggregate.columns", "total:sum,peak:max");
+    props.put("offsets.table.name", "connect_offsets");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+
+    final Schema keySchema = SchemaBuilder.struct()
+        .field("id", Schema.STRING_SCHEMA)
+        .build();
+    final Schema valueSchema = SchemaBuilder.struct()
+        .field("total", Schema.INT64_SCHEMA)
+        .field("peak", Schema.INT64_SCHEMA)
+        .build();
+    final long[][] batches = {{5L, 7L}, {4L}};
+    final String[] expected = {"12:7", "16:7"};
+    long offset = 0;
+    for (int i = 0; i < batches.length; i++) {
+      for (long delta : batches[i]) {
+        buffer.add(new SinkRecord("dummy", 0, keySchema, new Struct(keySchema).put("id", "a"),
+            valueSchema, new Struct(valueSchema).put("total", delta).put("peak", delta),
+            offset++));
+      }
+      buffer.flush();
+
+      final List<String> rows = new ArrayList<>();
+      sqliteHelper.select(
+          "select * from dummy",
+          rs -> rows.add(rs.getLong("total") + ":" + rs.getLong("peak"))
+      );
+      assertEquals(Collections.singletonList(expected[i]), rows);
+    }
+  }
+
+  @Test
+  public void stagingTableNamesFitIdentifierLengthLimit() {
+    assertEquals("books_staging_7", BufferedRecords.stagingTableName("books", 7, 63));
+    assertEquals("books_staging_7", BufferedRecords.stagingTableName("books", 7, 0));
+
+    final String longName = "orders_by_customer_region_and_fulfilment_center_with_returns";
+    final String first = BufferedRecords.stagingTableName(longName, 7, 63);
+    final String second = BufferedRecords.stagingTableName(longName, 8, 63);
+    assertEquals(63, first.length());
+    assertTrue(first.startsWith("orders_by_customer"));
+    assertTrue(first.endsWith("_staging_7"));
+    // Names that PostgreSQL would have truncated to the same name still differ
+    assertNotEquals(first, second);
+    assertTrue(BufferedRecords.stagingTableName(longName, 7, 30).length() <= 30);
+  }
+
+  @Test
+  public void snapshotReplacesTableOnceComplete() throws SQLException {
+    final BufferedRecords buffer = snapshotBuffer();
+    final Schema valueSchema = snapshotSchema();
+    buffer.add(snapshotRecord(valueSchema, "lima", 0));
+    final SinkRecord last = snapshotRecord(valueSchema, "cuzco", 1);
+    last.headers().addBoolean("snapshot.complete", true);
+    buffer.add(last);
+    assertEquals(Arrays.asList("dummy:cuzco", "dummy:lima"), tableContents());
+
+    buffer.add(snapshotRecord(valueSchema, "quito", 2));
+    buffer.flush();
+    // The table keeps the previous snapshot until the next one is complete
+    assertEquals(
+        Arrays.asList("dummy:cuzco", "dummy:lima", "dummy_shadow:quito"),
+        tableContents()
+    );
+
+    // A control record without a value completes the snapshot without being written
+    final SinkRecord marker = new SinkRecord("dummy", 0, null, null, null, null, 3);
+    marker.headers().addBoolean("snapshot.complete", true);
+    buffer.add(marker);
+    assertEquals(Collections.singletonList("dummy:quito"), tableContents());
+  }
+
+  @Test
+  public void snapshotStartRemovesRowsOfIncompleteSnapshot() throws SQLException {
+    final BufferedRecords buffer = snapshotBuffer();
+    final Schema valueSchema = snapshotSchema();
+
+    // A snapshot that was never completed, e.g. since the source restarted it
+    buffer.add(snapshotRecord(valueSchema, "lima", 0));
+    buffer.add(snapshotRecord(valueSchema, "cuzco", 1));
+    final SinkRecord first = snapshotRecord(valueSchema, "quito", 2);
+    first.headers().addBoolean("snapshot.start", true);
+    buffer.add(first);
+    final SinkRecord last = snapshotRecord(valueSchema, "bogota", 3);
+    last.headers().addBoolean("snapshot.complete", true);
+    buffer.add(last);
+
+    assertEquals(Arrays.asList("dummy:bogota", "dummy:quito"), tableContents());
+  }
+
+  @Test
+  public void snapshotWritesRedeliveredRecordsOnce() throws SQLException {
+    final BufferedRecords buffer = snapshotBuffer();
+    final Schema valueSchema = snapshotSchema();
+
+    buffer.add(snapshotRecord(valueSchema, "lima", 0));
+    buffer.add(snapshotRecord(valueSchema, "cuzco", 1));
+    buffer.flush();
+    // Redelivered after a failure, since their offsets were not committed
+    buffer.add(snapshotRecord(valueSchema, "lima", 0));
+    final SinkRecord last = snapshotRecord(valueSchema, "cuzco", 1);
+    last.headers().addBoolean("snapshot.complete", true);
+    buffer.add(last);
+
+    assertEquals(Arrays.asList("dummy:cuzco", "dummy:lima"), tableContents());
+  }
+
+  @Test(expected = ConnectException.class)
+  public void snapshotRejectsRecordsOfSeveralPartitions() throws SQLException {
+    final BufferedRecords buffer = snapshotBuffer();
+    final Schema valueSchema = snapshotSchema();
+
+    buffer.add(snapshotRecord(valueSchema, "lima", 0));
+    buffer.add(new SinkRecord("dummy", 1, null, null, valueSchema,
+        new Struct(valueSchema).put("name", "cuzco"), 0));
+  }
+
+  private BufferedRecords snapshotBuffer() {
+    props.put("insert.mode", "snapshot");
+    props.put("pk.mode", "record_value");
+    props.put("pk.fields", "name");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    return new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+  }
+
+  private static Schema snapshotSchema() {
+    return SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+  }
+
+  private SinkRecord snapshotRecord(Schema valueSchema, String name, long offset) {
+    return new SinkRecord("dummy", 0, null, null, valueSchema,
+        new Struct(valueSchema).put("name", name), offset);
+  }
+
+  private List<String> tableContents() throws SQLException {
+    final List<String> tables = new ArrayList<>();
+    sqliteHelper.select(
+        "select name from sqlite_master where type = 'table' order by name",
+        rs -> tables.add(rs.getString("name"))
+    );
+    final List<String> rows = new ArrayList<>();
+    for (String table : tables) {
+      sqliteHelper.select(
+          "select name from " + table + " order by name",
+          rs -> rows.add(table + ":" + rs.getString("name"))
+      );
+    }
+    return rows;
+  }
+
+  @Test
+  public void flushesWhenBatchMaxBytesIsReached() throws SQLException {
+    props.put("batch.max.bytes", 250L);
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+
+    final Schema valueSchema = SchemaBuilder.struct()
+        .field("text", Schema.STRING_SCHEMA)
+        .build();
+    final char[] text = new char[100];
+    Arrays.fill(text, 'x');
+    final List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      records.add(new SinkRecord("dummy", 0, null, null, valueSchema,
+          new Struct(valueSchema).put("text", new String(text)), i));
+    }
+
+    // Each record is estimated at 100 bytes, so the third one exceeds the budget
+    assertEquals(Collections.emptyList(), buffer.add(records.get(0)));
+    assertEquals(Collections.emptyList(), buffer.add(records.get(1)));
+    assertEquals(records, buffer.add(records.get(2)));
+  }
+
   @Test
   public void testMultipleDeletesBatchedTogether() throws SQLException {
     props.put("delete.enabled", true);
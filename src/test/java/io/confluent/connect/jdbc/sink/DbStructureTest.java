@@ -4,18 +4,27 @@ import org.apache.kafka.connect.data.Schema;
 import org.junit.Test;
 
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.SqliteDatabaseDialect;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
 import io.confluent.connect.jdbc.util.TableDefinition;
@@ -25,8 +34,12 @@ import io.confluent.connect.jdbc.util.TableType;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.when;
 
 public class DbStructureTest {
@@ -164,6 +177,118 @@ public class DbStructureTest {
         fieldsMetadata, 0);
   }
 
+  @Test
+  public void testRereadsTableAfterWaitingForDdlLock() throws Exception {
+    TableDefinition tableDefinition = mock(TableDefinition.class);
+    // The table was missing, but was created by another task while waiting for the lock
+    when(dbDialect.tableExists(any(), any())).thenReturn(false);
+    when(dbDialect.describeTable(any(), any())).thenReturn(tableDefinition);
+    when(tableDefinition.columnNames()).thenReturn(columns("test"));
+    when(dbDialect.lockForDdl(connection, tableId, 60000L)).thenReturn(true);
+    fieldsMetadata = fieldsMetadata(field("test"));
+
+    assertFalse(
+        structure.createOrAmendIfNecessary(sinkConfig(), connection, tableId, fieldsMetadata)
+    );
+    verify(dbDialect, never()).applyDdlStatements(any(), any());
+    verify(dbDialect).unlockForDdl(connection, tableId);
+  }
+
+  @Test
+  public void testReleasesDdlLockAfterFailure() throws Exception {
+    when(dbDialect.tableExists(any(), any())).thenReturn(false);
+    when(dbDialect.lockForDdl(connection, tableId, 60000L)).thenReturn(true);
+    fieldsMetadata = fieldsMetadata(field("test"));
+
+    try {
+      structure.createOrAmendIfNecessary(sinkConfig(), connection, tableId, fieldsMetadata);
+      fail("Expected the create to fail, as auto.create is disabled");
+    } catch (TableAlterOrCreateException e) {
+      // expected
+    }
+    verify(connection).rollback();
+    verify(dbDialect).unlockForDdl(connection, tableId);
+  }
+
+  @Test
+  public void testCommitsWrittenRowsBeforeWaitingForDdlLock() throws Exception {
+    final SqliteHelper sqliteHelper = new SqliteHelper(getClass().getSimpleName());
+    sqliteHelper.setUp();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (Connection writing = DriverManager.getConnection(sqliteHelper.sqliteUri())) {
+      sqliteHelper.createTable("CREATE TABLE t (a TEXT)");
+      Map<String, String> props = new HashMap<>();
+      props.put("connection.url", sqliteHelper.sqliteUri());
+      props.put("auto.evolve", "true");
+      JdbcSinkConfig sqliteConfig = new JdbcSinkConfig(props);
+      // Stands in for the advisory lock, which SQLite does not have
+      final ReentrantLock ddlLock = new ReentrantLock();
+      DbStructure lockingStructure = new DbStructure(new SqliteDatabaseDialect(sqliteConfig) {
+        @Override
+        public boolean lockForDdl(Connection connection, TableId table, long timeoutMs)
+            throws SQLException {
+          try {
+            return ddlLock.tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+          } catch (InterruptedException e) {
+            throw new SQLException(e);
+          }
+        }
+
+        @Override
+        public void unlockForDdl(Connection connection, TableId table) {
+          ddlLock.unlock();
+        }
+      });
+      Map<String, SinkRecordField> fields = new LinkedHashMap<>();
+      fields.put("a", field("a"));
+      fields.put("b", field("b"));
+      FieldsMetadata newFields = new FieldsMetadata(
+          Collections.emptySet(),
+          new HashSet<>(fields.keySet()),
+          fields
+      );
+
+      // This task wrote a row that is not committed yet, when another task holds the lock
+      writing.setAutoCommit(false);
+      try (Statement statement = writing.createStatement()) {
+        statement.executeUpdate("INSERT INTO t (a) VALUES ('x')");
+      }
+      ddlLock.lock();
+      Future<Boolean> changed = executor.submit(() -> lockingStructure.createOrAmendIfNecessary(
+          sqliteConfig, writing, new TableId(null, null, "t"), newFields));
+      long deadline = System.currentTimeMillis() + 10000L;
+      while (!ddlLock.hasQueuedThreads() && !changed.isDone()) {
+        assertTrue(System.currentTimeMillis() < deadline);
+        Thread.sleep(10);
+      }
+      // The task holding the lock can apply its DDL, since the row was committed
+      sqliteHelper.execute("ALTER TABLE t ADD b TEXT");
+      ddlLock.unlock();
+
+      assertFalse(changed.get(10, TimeUnit.SECONDS));
+      assertEquals(1, sqliteHelper.select("SELECT a FROM t", rs -> { }));
+    } finally {
+      executor.shutdownNow();
+      sqliteHelper.tearDown();
+    }
+  }
+
+  private static JdbcSinkConfig sinkConfig() {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", "");
+    props.put("connection.user", "");
+    props.put("connection.password", "");
+    return new JdbcSinkConfig(props);
+  }
+
+  private static FieldsMetadata fieldsMetadata(SinkRecordField field) {
+    return new FieldsMetadata(
+        Collections.emptySet(),
+        Collections.singleton(field.name()),
+        Collections.singletonMap(field.name(), field)
+    );
+  }
+
   private Set<SinkRecordField> missingFields(
       Collection<SinkRecordField> fields,
       Set<String> dbColumnNames
@@ -15,6 +15,8 @@
 
 package io.confluent.connect.jdbc.sink;
 
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
 import org.apache.kafka.connect.data.Date;
 import org.apache.kafka.connect.data.Decimal;
 import org.apache.kafka.connect.data.Field;
@@ -34,8 +36,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -50,6 +56,7 @@ import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
@@ -168,6 +175,136 @@ public class JdbcDbWriterTest {
     return e;
   }
 
+  @Test
+  public void preparedStatementsAreReusedAcrossWrites() throws SQLException {
+    Connection mockConnection = mock(Connection.class);
+
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("insert.mode", "upsert");
+    props.put("pk.mode", "record_key");
+    props.put("pk.fields", "id"); // assigned name for the primitive key
+
+    writer = newWriterWithMockConnection(props, mockConnection);
+
+    PreparedStatement mockStatement = mock(PreparedStatement.class);
+    when(dialect.parseTableIdentifier(any())).thenReturn(new TableId(null, null, "books"));
+    when(dialect.createPreparedStatement(any(), any())).thenReturn(mockStatement);
+    when(dialect.statementBinder(any(), any(), any(), any(), any(), any()))
+        .thenReturn(mock(PreparedStatementBinder.class));
+    when(mockStatement.executeBatch())
+        .thenReturn(new int[1])
+        .thenReturn(new int[1])
+        .thenThrow(new SQLException())
+        .thenReturn(new int[1]);
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+    SinkRecord record = new SinkRecord("books", 0, Schema.INT64_SCHEMA, 1L, valueSchema,
+        new Struct(valueSchema).put("title", "Villa Incognito"), 0);
+
+    writer.write(Collections.singleton(record));
+    writer.write(Collections.singleton(record));
+    verify(dialect, times(1)).createPreparedStatement(any(), any());
+    verify(mockStatement, never()).close();
+
+    // a failed write discards the statements, so the next write prepares them again
+    assertThrows(SQLException.class, () -> writer.write(Collections.singleton(record)));
+    verify(mockStatement, times(1)).close();
+    writer.write(Collections.singleton(record));
+    verify(dialect, times(2)).createPreparedStatement(any(), any());
+    verify(mockConnection, times(3)).commit();
+  }
+
+  private JdbcDbWriter newWriterWithMockConnections(
+      Map<String, String> props,
+      Connection... mockConnections
+  ) {
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+    final Iterator<Connection> connections = Arrays.asList(mockConnections).iterator();
+    dialect = mock(DatabaseDialect.class);
+    final DbStructure dbStructure = mock(DbStructure.class);
+    return new JdbcDbWriter(config, dialect, dbStructure) {
+      protected CachedConnectionProvider connectionProvider(int maxConnAttempts, long retryBackoff) {
+        CachedConnectionProvider mockConnectionProvider = mock(CachedConnectionProvider.class);
+        when(mockConnectionProvider.getConnection()).thenReturn(connections.next());
+        return mockConnectionProvider;
+      }
+    };
+  }
+
+  @Test
+  public void concurrentFlushCommitsAllConnections() throws SQLException {
+    Connection booksConnection = mock(Connection.class);
+    Connection authorsConnection = mock(Connection.class);
+    writeBooksAndAuthorsConcurrently(booksConnection, authorsConnection, false);
+
+    verify(booksConnection, times(1)).commit();
+    verify(authorsConnection, times(1)).commit();
+    verify(booksConnection, never()).rollback();
+    verify(authorsConnection, never()).rollback();
+  }
+
+  @Test
+  public void concurrentFlushRollsBackAllConnectionsWhenOneTableFails() throws SQLException {
+    Connection booksConnection = mock(Connection.class);
+    Connection authorsConnection = mock(Connection.class);
+    assertThrows(
+        SQLException.class,
+        () -> writeBooksAndAuthorsConcurrently(booksConnection, authorsConnection, true)
+    );
+
+    verify(booksConnection, never()).commit();
+    verify(authorsConnection, never()).commit();
+    verify(booksConnection, times(1)).rollback();
+    verify(authorsConnection, times(1)).rollback();
+  }
+
+  private void writeBooksAndAuthorsConcurrently(
+      Connection booksConnection,
+      Connection authorsConnection,
+      boolean failAuthors
+  ) throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("insert.mode", "upsert");
+    props.put("pk.mode", "record_key");
+    props.put("pk.fields", "id"); // assigned name for the primitive key
+    props.put("flush.connections", "2");
+
+    writer = newWriterWithMockConnections(props, booksConnection, authorsConnection);
+
+    PreparedStatement booksStatement = mock(PreparedStatement.class);
+    PreparedStatement authorsStatement = mock(PreparedStatement.class);
+    when(dialect.parseTableIdentifier(any())).thenAnswer(
+        invocation -> new TableId(null, null, (String) invocation.getArguments()[0])
+    );
+    when(dialect.createPreparedStatement(any(), any())).thenAnswer(
+        invocation -> invocation.getArguments()[0] == booksConnection
+                      ? booksStatement
+                      : authorsStatement
+    );
+    when(dialect.statementBinder(any(), any(), any(), any(), any(), any()))
+        .thenReturn(mock(PreparedStatementBinder.class));
+    when(booksStatement.executeBatch()).thenReturn(new int[1]);
+    if (failAuthors) {
+      when(authorsStatement.executeBatch()).thenThrow(new SQLException());
+    } else {
+      when(authorsStatement.executeBatch()).thenReturn(new int[1]);
+    }
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+    Struct valueStruct = new Struct(valueSchema).put("name", "Tom Robbins");
+
+    writer.write(Arrays.asList(
+        new SinkRecord("books", 0, Schema.INT64_SCHEMA, 1L, valueSchema, valueStruct, 0),
+        new SinkRecord("authors", 0, Schema.INT64_SCHEMA, 1L, valueSchema, valueStruct, 0)
+    ));
+  }
+
   @Test
   public void autoCreateWithAutoEvolve() throws SQLException {
     String topic = "books";
@@ -300,6 +437,173 @@ public class JdbcDbWriterTest {
     );
   }
 
+  @Test
+  public void multiRowInsert() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("pk.mode", "kafka");
+    props.put("insert.multirow.enabled", "true");
+    props.put("batch.size", "10");
+
+    writer = newWriter(props);
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("author", Schema.STRING_SCHEMA)
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+
+    List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      Struct valueStruct = new Struct(valueSchema)
+          .put("author", "Tom Robbins")
+          .put("title", "Title " + i);
+      records.add(new SinkRecord("books", 0, null, null, valueSchema, valueStruct, i));
+    }
+
+    // two full multi-row statements plus one statement for the remaining 5 rows
+    writer.write(records);
+
+    assertEquals(
+        25,
+        sqliteHelper.select("select * from books", new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+            long offset = rs.getLong("__connect_offset");
+            assertEquals("Title " + offset, rs.getString("title"));
+          }
+        })
+    );
+  }
+
+  @Test
+  public void multiRowUpsertWithRepeatedKeysKeepsLastValue() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("pk.mode", "record_key");
+    props.put("insert.mode", "upsert");
+    props.put("insert.multirow.enabled", "true");
+
+    writer = newWriter(props);
+
+    Schema keySchema = SchemaBuilder.struct()
+        .field("id", Schema.INT64_SCHEMA)
+        .build();
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+
+    List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      Struct keyStruct = new Struct(keySchema).put("id", (long) (i % 10));
+      Struct valueStruct = new Struct(valueSchema).put("title", "Title " + i);
+      records.add(new SinkRecord("books", 0, keySchema, keyStruct, valueSchema, valueStruct, i));
+    }
+
+    writer.write(records);
+
+    assertEquals(
+        10,
+        sqliteHelper.select("select * from books", new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+            assertEquals("Title " + (rs.getLong("id") + 20), rs.getString("title"));
+          }
+        })
+    );
+  }
+
+  @Test
+  public void bulkUpsertWithRepeatedKeysKeepsLastValue() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("pk.mode", "record_key");
+    props.put("insert.mode", "bulk_upsert");
+    props.put("insert.multirow.enabled", "true");
+
+    writer = newWriter(props);
+
+    Schema keySchema = SchemaBuilder.struct()
+        .field("id", Schema.INT64_SCHEMA)
+        .build();
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+
+    for (int batch = 0; batch < 2; batch++) {
+      List<SinkRecord> records = new ArrayList<>();
+      for (int i = 0; i < 30; i++) {
+        Struct keyStruct = new Struct(keySchema).put("id", (long) (i % 10));
+        Struct valueStruct = new Struct(valueSchema).put("title", "Title " + (batch * 30 + i));
+        records.add(
+            new SinkRecord("books", 0, keySchema, keyStruct, valueSchema, valueStruct, i)
+        );
+      }
+      writer.write(records);
+    }
+
+    assertEquals(
+        10,
+        sqliteHelper.select("select * from books", new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+            assertEquals("Title " + (rs.getLong("id") + 50), rs.getString("title"));
+          }
+        })
+    );
+  }
+
+  @Test
+  public void bulkUpsertDropsStagingTableAfterFailedWrite() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("pk.mode", "record_key");
+    props.put("insert.mode", "bulk_upsert");
+
+    writer = newWriter(props);
+
+    Schema keySchema = SchemaBuilder.struct()
+        .field("id", Schema.INT64_SCHEMA)
+        .build();
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+    Struct keyStruct = new Struct(keySchema).put("id", 1L);
+    writer.write(Collections.singletonList(new SinkRecord(
+        "books", 0, keySchema, keyStruct, valueSchema, new Struct(valueSchema).put("title", "a"), 0
+    )));
+    assertEquals(1, tempTableCount());
+
+    // Adding a column fails, as auto.evolve is disabled
+    Schema evolvedSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .field("author", Schema.OPTIONAL_STRING_SCHEMA)
+        .build();
+    try {
+      writer.write(Collections.singletonList(new SinkRecord(
+          "books", 0, keySchema, keyStruct, evolvedSchema,
+          new Struct(evolvedSchema).put("title", "b"), 1
+      )));
+      fail("Expected the write to fail, as auto.evolve is disabled");
+    } catch (TableAlterOrCreateException e) {
+      // expected
+    }
+    assertEquals(0, tempTableCount());
+  }
+
+  private int tempTableCount() throws SQLException {
+    final Connection connection = writer.cachedConnectionProvider.getConnection();
+    try (PreparedStatement statement = connection.prepareStatement(
+        "SELECT COUNT(*) FROM sqlite_temp_master WHERE type = 'table'"
+    ); ResultSet rs = statement.executeQuery()) {
+      assertTrue(rs.next());
+      return rs.getInt(1);
+    }
+  }
+
   @Test
   public void idempotentDeletes() throws SQLException {
     String topic = "books";
@@ -532,4 +836,152 @@ public class JdbcDbWriterTest {
     );
   }
 
-}
\ No newline at end of file
+  @Test
+  public void offsetsTableSkipsRecordsWrittenBefore() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("offsets.table.name", "connect_offsets");
+
+    Schema valueSchema = SchemaBuilder.struct().field("title", Schema.STRING_SCHEMA).build();
+    Struct valueStruct = new Struct(valueSchema).put("title", "Villa Incognito");
+
+    writer = newWriter(props);
+    writer.write(Arrays.asList(
+        new SinkRecord("books", 0, null, null, valueSchema, valueStruct, 10),
+        new SinkRecord("books", 0, null, null, valueSchema, valueStruct, 11)
+    ));
+    writer.closeQuietly();
+
+    writer = newWriter(props);
+    TopicPartition partition = new TopicPartition("books", 0);
+    assertEquals(
+        Collections.singletonMap(partition, 11L),
+        writer.writtenOffsets(Collections.singleton(partition))
+    );
+    writer.write(Arrays.asList(
+        new SinkRecord("books", 0, null, null, valueSchema, valueStruct, 11),
+        new SinkRecord("books", 0, null, null, valueSchema, valueStruct, 12)
+    ));
+
+    assertEquals(3, sqliteHelper.select("SELECT * FROM books", rs -> { }));
+    assertEquals(
+        1,
+        sqliteHelper.select(
+            "SELECT * FROM connect_offsets",
+            rs -> assertEquals(12L, rs.getLong(OffsetStore.OFFSET_COLUMN))
+        )
+    );
+  }
+
+  @Test
+  public void offsetsTableSkipsRecordsWrittenByPreviousOwner() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("offsets.table.name", "connect_offsets");
+
+    Schema valueSchema = SchemaBuilder.struct().field("title", Schema.STRING_SCHEMA).build();
+    Struct valueStruct = new Struct(valueSchema).put("title", "Villa Incognito");
+    TopicPartition partition = new TopicPartition("books", 0);
+
+    JdbcDbWriter previousOwner = newWriter(props);
+    try {
+      previousOwner.write(Arrays.asList(
+          new SinkRecord("books", 0, null, null, valueSchema, valueStruct, 10),
+          new SinkRecord("books", 0, null, null, valueSchema, valueStruct, 11)
+      ));
+
+      // The partition is assigned to another task, while the previous owner still writes
+      writer = newWriter(props);
+      assertEquals(
+          Collections.singletonMap(partition, 11L),
+          writer.writtenOffsets(Collections.singleton(partition))
+      );
+      previousOwner.write(Collections.singletonList(
+          new SinkRecord("books", 0, null, null, valueSchema, valueStruct, 12)
+      ));
+    } finally {
+      previousOwner.closeQuietly();
+    }
+    writer.write(Arrays.asList(
+        new SinkRecord("books", 0, null, null, valueSchema, valueStruct, 12),
+        new SinkRecord("books", 0, null, null, valueSchema, valueStruct, 13)
+    ));
+
+    assertEquals(4, sqliteHelper.select("SELECT * FROM books", rs -> { }));
+    assertEquals(
+        1,
+        sqliteHelper.select(
+            "SELECT * FROM connect_offsets",
+            rs -> assertEquals(13L, rs.getLong(OffsetStore.OFFSET_COLUMN))
+        )
+    );
+  }
+
+  @Test
+  public void timeRoutedTablesAreCreatedAhead() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("table.name.format", "books_${timestamp:yyyyMMdd}");
+    props.put("table.create.ahead.ms", "3600000");
+
+    Schema valueSchema = SchemaBuilder.struct().field("title", Schema.STRING_SCHEMA).build();
+    Struct valueStruct = new Struct(valueSchema).put("title", "Villa Incognito");
+    // 2024-01-01T10:00:00Z and 2024-01-01T23:30:00Z
+    long morning = 1704103200000L;
+    long lateEvening = 1704151800000L;
+
+    writer = newWriter(props);
+    writer.write(Collections.singletonList(new SinkRecord(
+        "books", 0, null, null, valueSchema, valueStruct, 0, morning, TimestampType.CREATE_TIME
+    )));
+    assertEquals(Collections.singletonList("books_20240101"), tableNames());
+
+    writer.write(Collections.singletonList(new SinkRecord(
+        "books", 0, null, null, valueSchema, valueStruct, 1, lateEvening, TimestampType.CREATE_TIME
+    )));
+    assertEquals(Arrays.asList("books_20240101", "books_20240102"), tableNames());
+    assertEquals(2, sqliteHelper.select("SELECT * FROM books_20240101", rs -> { }));
+    assertEquals(0, sqliteHelper.select("SELECT * FROM books_20240102", rs -> { }));
+  }
+
+  @Test
+  public void buffersOfTablesNotWrittenRecentlyAreClosed() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("table.buffers.max.size", "3");
+
+    writer = newWriter(props);
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+    Struct valueStruct = new Struct(valueSchema).put("name", "Tom Robbins");
+    for (int i = 0; i <= 3; i++) {
+      writer.write(Collections.singletonList(
+          new SinkRecord("topic_" + i, 0, null, null, valueSchema, valueStruct, 0)
+      ));
+    }
+    assertEquals(3, writer.bufferCount());
+
+    // The first table is written again with a new buffer
+    writer.write(Collections.singletonList(
+        new SinkRecord("topic_0", 0, null, null, valueSchema, valueStruct, 1)
+    ));
+    assertEquals(3, writer.bufferCount());
+    assertEquals(2, sqliteHelper.select("SELECT * FROM topic_0", rs -> { }));
+  }
+
+  private List<String> tableNames() throws SQLException {
+    List<String> names = new ArrayList<>();
+    sqliteHelper.select(
+        "SELECT name FROM sqlite_master WHERE type = 'table' ORDER BY name",
+        rs -> names.add(rs.getString("name"))
+    );
+    return names;
+  }
+
+}
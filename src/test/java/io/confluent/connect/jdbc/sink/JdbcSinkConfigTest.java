@@ -15,8 +15,10 @@
 package io.confluent.connect.jdbc.sink;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import io.confluent.connect.jdbc.util.TableType;
@@ -57,6 +59,132 @@ public class JdbcSinkConfigTest {
     createConfig();
   }
 
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithMoreShardsThanFlushConnections() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "upsert");
+    props.put(JdbcSinkConfig.PK_MODE, "record_key");
+    props.put(JdbcSinkConfig.FLUSH_CONNECTIONS, "2");
+    props.put(JdbcSinkConfig.TABLE_SHARDS, "3");
+    createConfig();
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithShardsWithoutPrimaryKey() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "upsert");
+    props.put(JdbcSinkConfig.FLUSH_CONNECTIONS, "2");
+    props.put(JdbcSinkConfig.TABLE_SHARDS, "2");
+    createConfig();
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithFlushConnectionsInInsertMode() {
+    props.put(JdbcSinkConfig.FLUSH_CONNECTIONS, "2");
+    createConfig();
+  }
+
+  @Test
+  public void shouldCreateConfigWithFlushConnectionsInUpsertMode() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "upsert");
+    props.put(JdbcSinkConfig.PK_MODE, "record_key");
+    props.put(JdbcSinkConfig.FLUSH_CONNECTIONS, "2");
+    createConfig();
+    assertEquals(2, config.flushConnections);
+  }
+
+  @Test
+  public void shouldCreateConfigWithAggregateColumns() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "aggregate_upsert");
+    props.put(JdbcSinkConfig.PK_MODE, "record_key");
+    props.put(JdbcSinkConfig.AGGREGATE_COLUMNS, "total:sum, low : min,high:MAX");
+    props.put(JdbcSinkConfig.OFFSETS_TABLE_NAME, "connect_offsets");
+    createConfig();
+    Map<String, JdbcSinkConfig.AggregateFunction> expected = new LinkedHashMap<>();
+    expected.put("total", JdbcSinkConfig.AggregateFunction.SUM);
+    expected.put("low", JdbcSinkConfig.AggregateFunction.MIN);
+    expected.put("high", JdbcSinkConfig.AggregateFunction.MAX);
+    assertEquals(expected, config.aggregateColumns);
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithUnknownAggregateFunction() {
+    props.put(JdbcSinkConfig.AGGREGATE_COLUMNS, "total:avg");
+    createConfig();
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithAggregateSumWithoutOffsetsTable() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "aggregate_upsert");
+    props.put(JdbcSinkConfig.PK_MODE, "record_key");
+    props.put(JdbcSinkConfig.AGGREGATE_COLUMNS, "total:sum");
+    createConfig();
+  }
+
+  @Test
+  public void shouldCreateConfigWithAggregateMaxWithoutOffsetsTable() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "aggregate_upsert");
+    props.put(JdbcSinkConfig.PK_MODE, "record_key");
+    props.put(JdbcSinkConfig.AGGREGATE_COLUMNS, "high:max");
+    createConfig();
+    assertEquals(
+        Collections.singletonMap("high", JdbcSinkConfig.AggregateFunction.MAX),
+        config.aggregateColumns
+    );
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithAggregateUpsertWithoutRecordKey() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "aggregate_upsert");
+    props.put(JdbcSinkConfig.PK_MODE, "kafka");
+    createConfig();
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithSnapshotModeWithoutAutoCreate() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "snapshot");
+    createConfig();
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithSnapshotModeAndDeletes() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "snapshot");
+    props.put(JdbcSinkConfig.AUTO_CREATE, "true");
+    props.put(JdbcSinkConfig.DELETE_ENABLED, "true");
+    props.put(JdbcSinkConfig.PK_MODE, "record_key");
+    createConfig();
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithSnapshotModeWithoutPrimaryKey() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "snapshot");
+    props.put(JdbcSinkConfig.AUTO_CREATE, "true");
+    createConfig();
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithSnapshotModeAndSeveralTasks() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "snapshot");
+    props.put(JdbcSinkConfig.AUTO_CREATE, "true");
+    props.put(JdbcSinkConfig.PK_MODE, "record_value");
+    props.put("tasks.max", "2");
+    createConfig();
+  }
+
+  @Test
+  public void shouldCreateConfigWithSnapshotModeAndSingleTask() {
+    props.put(JdbcSinkConfig.INSERT_MODE, "snapshot");
+    props.put(JdbcSinkConfig.AUTO_CREATE, "true");
+    props.put(JdbcSinkConfig.PK_MODE, "record_value");
+    props.put("tasks.max", "1");
+    createConfig();
+    assertEquals("snapshot.start", config.snapshotStartHeader);
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithoutTableBuffers() {
+    props.put(JdbcSinkConfig.TABLE_BUFFERS_MAX_SIZE, "0");
+    createConfig();
+  }
+
   @Test
   public void shouldCreateConfigWithMinimalConfigs() {
     createConfig();
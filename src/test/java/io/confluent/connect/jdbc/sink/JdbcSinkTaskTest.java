@@ -19,6 +19,7 @@ import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -29,6 +30,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -37,6 +39,8 @@ import java.util.Map;
 import java.util.TimeZone;
 import java.util.concurrent.CompletableFuture;
 
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
@@ -302,6 +306,132 @@ public class JdbcSinkTaskTest extends EasyMockSupport {
     verifyAll();
   }
 
+  @Test
+  public void retriesDeadlocksInProcessWithTheSameWriter() throws SQLException {
+    List<SinkRecord> records = createRecordsList(1);
+
+    mockWriter.write(records);
+    expectLastCall().andThrow(new SQLException("deadlock detected", "40P01"));
+    mockWriter.write(records);
+    expectLastCall();
+
+    JdbcSinkTask task = new JdbcSinkTask() {
+      @Override
+      void initWriter() {
+        // The writer must only be created once, when the task starts
+        assertNull(this.writer);
+        this.writer = mockWriter;
+      }
+    };
+    task.initialize(ctx);
+    expect(ctx.errantRecordReporter()).andReturn(null);
+    replayAll();
+
+    task.start(setupBasicProps(1, 0));
+    task.put(records);
+    verifyAll();
+  }
+
+  @Test
+  public void reportsConstraintViolationsWithoutRetrying() throws SQLException {
+    List<SinkRecord> records = createRecordsList(1);
+
+    mockWriter.write(records);
+    SQLException exception = new SQLException("duplicate key", "23505");
+    expectLastCall().andThrow(exception);
+    mockWriter.closeQuietly();
+    expectLastCall();
+    mockWriter.write(anyObject());
+    expectLastCall().andThrow(exception);
+
+    JdbcSinkTask task = new JdbcSinkTask() {
+      @Override
+      void initWriter() {
+        this.writer = mockWriter;
+      }
+    };
+    task.initialize(ctx);
+    ErrantRecordReporter reporter = createMock(ErrantRecordReporter.class);
+    expect(ctx.errantRecordReporter()).andReturn(reporter);
+    expect(reporter.report(anyObject(), anyObject())).andReturn(CompletableFuture.completedFuture(null));
+    mockWriter.closeQuietly();
+    expectLastCall();
+    replayAll();
+
+    task.start(setupBasicProps(3, 0));
+    task.put(records);
+    verifyAll();
+  }
+
+  @Test
+  public void retriesDeadlocksInProcessWhileRetryingHalves() throws SQLException {
+    List<SinkRecord> records = createRecordsList(2);
+    List<SinkRecord> first = records.subList(0, 1);
+    List<SinkRecord> second = records.subList(1, 2);
+
+    SQLException violation = new SQLException("duplicate key", "23505");
+    mockWriter.write(records);
+    expectLastCall().andThrow(violation);
+    mockWriter.closeQuietly();
+    expectLastCall();
+    // A deadlock of a half is retried rather than reported
+    mockWriter.write(first);
+    expectLastCall().andThrow(new SQLException("deadlock detected", "40P01"));
+    mockWriter.write(first);
+    expectLastCall();
+    mockWriter.write(second);
+    expectLastCall().andThrow(violation);
+
+    JdbcSinkTask task = new JdbcSinkTask() {
+      @Override
+      void initWriter() {
+        this.writer = mockWriter;
+      }
+    };
+    task.initialize(ctx);
+    ErrantRecordReporter reporter = createMock(ErrantRecordReporter.class);
+    expect(ctx.errantRecordReporter()).andReturn(reporter);
+    expect(reporter.report(anyObject(), anyObject()))
+        .andReturn(CompletableFuture.completedFuture(null));
+    mockWriter.closeQuietly();
+    expectLastCall();
+    replayAll();
+
+    task.start(setupBasicProps(1, 0));
+    task.put(records);
+    verifyAll();
+  }
+
+  @Test
+  public void doesNotReportRecordsThatKeepFailingWithDeadlocks() throws SQLException {
+    List<SinkRecord> records = createRecordsList(1);
+
+    mockWriter.write(records);
+    expectLastCall().andThrow(new SQLException("deadlock detected", "40P01")).times(2);
+    mockWriter.closeQuietly();
+    expectLastCall();
+
+    JdbcSinkTask task = new JdbcSinkTask() {
+      @Override
+      void initWriter() {
+        this.writer = mockWriter;
+      }
+    };
+    task.initialize(ctx);
+    ErrantRecordReporter reporter = createMock(ErrantRecordReporter.class);
+    expect(ctx.errantRecordReporter()).andReturn(reporter);
+    replayAll();
+
+    task.start(setupBasicProps(0, 0));
+    try {
+      task.put(records);
+      fail("Non-retriable exception expected");
+    } catch (ConnectException expected) {
+      assertEquals(ConnectException.class, expected.getClass());
+    }
+    verifyAll();
+  }
+
   @Test
   public void errorReporting() throws SQLException {
     List<SinkRecord> records = createRecordsList(1);
@@ -377,8 +507,9 @@ public class JdbcSinkTaskTest extends EasyMockSupport {
     expectLastCall().andThrow(exception);
     mockWriter.closeQuietly();
     expectLastCall();
+    // Both halves fail, then both records of the second half
     mockWriter.write(anyObject());
-    expectLastCall().andThrow(exception).times(batchSize);
+    expectLastCall().andThrow(exception).times(batchSize + 1);
 
     JdbcSinkTask task = new JdbcSinkTask() {
       @Override
@@ -390,7 +521,7 @@ public class JdbcSinkTaskTest extends EasyMockSupport {
     ErrantRecordReporter reporter = createMock(ErrantRecordReporter.class);
     expect(ctx.errantRecordReporter()).andReturn(reporter);
     expect(reporter.report(anyObject(), anyObject())).andReturn(CompletableFuture.completedFuture(null)).times(batchSize);
-    for (int i = 0; i < batchSize; i++) {
+    for (int i = 0; i < batchSize + 1; i++) {
       mockWriter.closeQuietly();
       expectLastCall();
     }
@@ -413,8 +544,16 @@ public class JdbcSinkTaskTest extends EasyMockSupport {
     expectLastCall().andThrow(exception);
     mockWriter.closeQuietly();
     expectLastCall();
+    // The first half succeeds, the second fails and only its last record fails again
+    mockWriter.write(anyObject());
+    expectLastCall();
+    mockWriter.write(anyObject());
+    expectLastCall().andThrow(exception);
+    mockWriter.closeQuietly();
+    expectLastCall();
+    mockWriter.write(anyObject());
+    expectLastCall();
     mockWriter.write(anyObject());
-    expectLastCall().times(2);
     expectLastCall().andThrow(exception);
 
     JdbcSinkTask task = new JdbcSinkTask() {
@@ -448,10 +587,15 @@ public class JdbcSinkTaskTest extends EasyMockSupport {
     expectLastCall().andThrow(exception);
     mockWriter.closeQuietly();
     expectLastCall();
+    // The first half succeeds, the second fails and only its first record fails again
     mockWriter.write(anyObject());
     expectLastCall();
     mockWriter.write(anyObject());
     expectLastCall().andThrow(exception);
+    mockWriter.closeQuietly();
+    expectLastCall();
+    mockWriter.write(anyObject());
+    expectLastCall().andThrow(exception);
     mockWriter.write(anyObject());
     expectLastCall();
 
@@ -475,6 +619,97 @@ public class JdbcSinkTaskTest extends EasyMockSupport {
     verifyAll();
   }
 
+  @Test
+  public void pipelinedPutCommitsOnlyWrittenOffsets() throws Exception {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("pk.mode", "kafka");
+    props.put("pk.fields", "kafka_topic,kafka_partition,kafka_offset");
+    props.put("pipeline.enabled", "true");
+    props.put("pipeline.linger.ms", "10");
+
+    JdbcSinkTask task = new JdbcSinkTask();
+    task.initialize(mock(SinkTaskContext.class));
+    task.start(props);
+
+    final String topic = "atopic";
+    final TopicPartition partition = new TopicPartition(topic, 1);
+    final Map<TopicPartition, OffsetAndMetadata> currentOffsets =
+        Collections.singletonMap(partition, new OffsetAndMetadata(46));
+    final Struct struct = new Struct(SCHEMA)
+        .put("firstName", "Alex")
+        .put("lastName", "Smith")
+        .put("modified", new Date(1474661402123L));
+
+    try {
+      assertTrue(task.preCommit(currentOffsets).isEmpty());
+      task.put(Arrays.asList(
+          new SinkRecord(topic, 1, null, null, SCHEMA, struct, 42),
+          new SinkRecord(topic, 1, null, null, SCHEMA, struct, 43)
+      ));
+      task.close(Collections.singleton(partition));
+      assertTrue(task.preCommit(currentOffsets).isEmpty());
+
+      task.open(Collections.singleton(partition));
+      task.put(Arrays.asList(
+          new SinkRecord(topic, 1, null, null, SCHEMA, struct, 44),
+          new SinkRecord(topic, 1, null, null, SCHEMA, struct, 45)
+      ));
+      task.pipeline.drain();
+      assertEquals(
+          Collections.singletonMap(partition, new OffsetAndMetadata(46)),
+          task.preCommit(currentOffsets)
+      );
+    } finally {
+      task.stop();
+    }
+
+    assertEquals(
+        4,
+        sqliteHelper.select(
+            "SELECT * FROM " + topic,
+            rs -> assertEquals(struct.getString("firstName"), rs.getString("firstName"))
+        )
+    );
+  }
+
+  @Test
+  public void pipelinedOpenReadsOffsetsOnceQueuedRecordsAreWritten() throws Exception {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("offsets.table.name", "connect_offsets");
+    props.put("pipeline.enabled", "true");
+    props.put("pipeline.linger.ms", "10");
+
+    final String topic = "atopic";
+    final TopicPartition partition = new TopicPartition(topic, 1);
+    expect(ctx.errantRecordReporter()).andReturn(null);
+    ctx.offset(partition, 44L);
+    expectLastCall();
+    replayAll();
+
+    JdbcSinkTask task = new JdbcSinkTask();
+    task.initialize(ctx);
+    task.start(props);
+    final Struct struct = new Struct(SCHEMA)
+        .put("firstName", "Alex")
+        .put("lastName", "Smith")
+        .put("modified", new Date(1474661402123L));
+    try {
+      task.put(Arrays.asList(
+          new SinkRecord(topic, 1, null, null, SCHEMA, struct, 42),
+          new SinkRecord(topic, 1, null, null, SCHEMA, struct, 43)
+      ));
+      // Waits for the queued records to be written before reading the offsets table
+      task.open(Collections.singleton(partition));
+    } finally {
+      task.stop();
+    }
+    verifyAll();
+  }
+
   private List<SinkRecord> createRecordsList(int batchSize) {
     List<SinkRecord> records = new ArrayList<>();
     for (int i = 0; i < batchSize; i++) {
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrimaryKeySharderTest {
+
+  private static final Schema KEY_SCHEMA = SchemaBuilder.struct()
+      .field("id", Schema.INT64_SCHEMA)
+      .field("region", Schema.STRING_SCHEMA)
+      .build();
+
+  @Test
+  public void assignsSameKeyToSameShard() {
+    final PrimaryKeySharder sharder = sharder("record_key", "id");
+
+    final Set<Integer> shards = new HashSet<>();
+    for (long id = 0; id < 100; id++) {
+      final int shard = sharder.shard(record(id, "eu", id));
+      assertTrue(shard >= 0 && shard < 4);
+      // Fields of the key that are not part of the primary key do not change the shard
+      assertEquals(shard, sharder.shard(record(id, "us", id + 1000)));
+      shards.add(shard);
+    }
+    assertEquals(4, shards.size());
+  }
+
+  @Test
+  public void hashesWholeKeyWithoutPrimaryKeyFields() {
+    final PrimaryKeySharder sharder = sharder("record_key", "");
+
+    final Set<Integer> shards = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      shards.add(sharder.shard(record(1L, "region-" + i, 0)));
+    }
+    assertEquals(4, shards.size());
+  }
+
+  private PrimaryKeySharder sharder(String pkMode, String pkFields) {
+    final Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:sqlite:");
+    props.put(JdbcSinkConfig.PK_MODE, pkMode);
+    props.put(JdbcSinkConfig.PK_FIELDS, pkFields);
+    props.put(JdbcSinkConfig.INSERT_MODE, "upsert");
+    props.put(JdbcSinkConfig.FLUSH_CONNECTIONS, "4");
+    props.put(JdbcSinkConfig.TABLE_SHARDS, "4");
+    return new PrimaryKeySharder(new JdbcSinkConfig(props));
+  }
+
+  private SinkRecord record(long id, String region, long offset) {
+    final Struct key = new Struct(KEY_SCHEMA).put("id", id).put("region", region);
+    return new SinkRecord("topic", 0, KEY_SCHEMA, key, null, null, offset);
+  }
+}
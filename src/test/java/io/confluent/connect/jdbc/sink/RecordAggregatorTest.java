@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.AggregateFunction;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RecordAggregatorTest {
+
+  private static final Schema VALUE_SCHEMA = SchemaBuilder.struct()
+      .field("id", Schema.INT32_SCHEMA)
+      .field("total", Schema.OPTIONAL_INT64_SCHEMA)
+      .field("low", Schema.OPTIONAL_FLOAT64_SCHEMA)
+      .field("high", Schema.OPTIONAL_STRING_SCHEMA)
+      .field("name", Schema.OPTIONAL_STRING_SCHEMA)
+      .build();
+
+  private final PrimaryKeyExtractor keyExtractor = keyExtractor();
+
+  @Test
+  public void combinesRecordsPerKey() {
+    final SinkRecord first = record(1, 5L, 2.5, "b", "first", 0);
+    final List<SinkRecord> aggregated = aggregator().aggregate(
+        Arrays.asList(
+            first,
+            record(2, 7L, 1.0, "a", "other", 1),
+            record(1, null, 0.5, null, "second", 2),
+            record(1, 3L, null, "c", "third", 3)
+        ),
+        keyExtractor
+    );
+
+    assertEquals(2, aggregated.size());
+    final Struct one = (Struct) aggregated.get(0).value();
+    assertEquals(1, (int) one.getInt32("id"));
+    assertEquals(8L, (long) one.getInt64("total"));
+    assertEquals(0.5, one.getFloat64("low"), 0.0);
+    assertEquals("c", one.getString("high"));
+    assertEquals("third", one.getString("name"));
+    assertEquals(3L, aggregated.get(0).kafkaOffset());
+    assertEquals(7L, (long) ((Struct) aggregated.get(1).value()).getInt64("total"));
+    // The values of the records themselves are never changed
+    assertEquals(5L, (long) ((Struct) first.value()).getInt64("total"));
+  }
+
+  @Test
+  public void keepsDeletesAfterCombinedRecords() {
+    final SinkRecord delete = new SinkRecord("topic", 0, null, null, VALUE_SCHEMA, null, 1);
+    final SinkRecord single = record(1, 5L, null, null, null, 0);
+    final List<SinkRecord> aggregated = aggregator().aggregate(
+        Arrays.asList(single, delete),
+        keyExtractor
+    );
+
+    assertEquals(2, aggregated.size());
+    assertSame(single, aggregated.get(0));
+    assertNull(aggregated.get(1).value());
+  }
+
+  @Test(expected = DataException.class)
+  public void failsToSumNonNumbers() {
+    final RecordAggregator aggregator = new RecordAggregator(
+        Collections.singletonMap("name", AggregateFunction.SUM)
+    );
+    aggregator.aggregate(
+        Arrays.asList(record(1, null, null, null, "a", 0), record(1, null, null, null, "b", 1)),
+        keyExtractor
+    );
+  }
+
+  private RecordAggregator aggregator() {
+    final Map<String, AggregateFunction> functions = new HashMap<>();
+    functions.put("total", AggregateFunction.SUM);
+    functions.put("low", AggregateFunction.MIN);
+    functions.put("high", AggregateFunction.MAX);
+    return new RecordAggregator(functions);
+  }
+
+  private static PrimaryKeyExtractor keyExtractor() {
+    final SchemaPair schemaPair = new SchemaPair(null, VALUE_SCHEMA);
+    final FieldsMetadata fieldsMetadata = FieldsMetadata.extract(
+        "table",
+        JdbcSinkConfig.PrimaryKeyMode.RECORD_VALUE,
+        Collections.singletonList("id"),
+        Collections.emptySet(),
+        schemaPair
+    );
+    return new PrimaryKeyExtractor(
+        JdbcSinkConfig.PrimaryKeyMode.RECORD_VALUE,
+        fieldsMetadata,
+        schemaPair
+    );
+  }
+
+  private static SinkRecord record(
+      int id,
+      Long total,
+      Double low,
+      String high,
+      String name,
+      long offset
+  ) {
+    final Struct value = new Struct(VALUE_SCHEMA)
+        .put("id", id)
+        .put("total", total)
+        .put("low", low)
+        .put("high", high)
+        .put("name", name);
+    return new SinkRecord("topic", 0, null, null, VALUE_SCHEMA, value, offset);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class RecordSizeEstimatorTest {
+
+  @Test
+  public void estimatesStructFields() {
+    final Schema keySchema = SchemaBuilder.struct()
+        .field("id", Schema.INT64_SCHEMA)
+        .build();
+    final Schema valueSchema = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .field("payload", Schema.BYTES_SCHEMA)
+        .field("active", Schema.BOOLEAN_SCHEMA)
+        .field("price", Decimal.schema(2))
+        .field("updated", Timestamp.SCHEMA)
+        .field("tags", SchemaBuilder.array(Schema.STRING_SCHEMA).build())
+        .field("note", Schema.OPTIONAL_STRING_SCHEMA)
+        .build();
+    final Struct key = new Struct(keySchema).put("id", 42L);
+    final Struct value = new Struct(valueSchema)
+        .put("name", "lima")
+        .put("payload", new byte[1000])
+        .put("active", true)
+        .put("price", new BigDecimal("12.34"))
+        .put("updated", new Date(0L))
+        .put("tags", Arrays.asList("a", "bc"));
+
+    // 8 + 4 + 1000 + 1 + 2 + 8 + 3 + 0
+    assertEquals(
+        1026L,
+        RecordSizeEstimator.estimate(new SinkRecord("t", 0, keySchema, key, valueSchema, value, 0))
+    );
+  }
+
+  @Test
+  public void estimatesSchemalessRecords() {
+    assertEquals(
+        3L + 1L + 8L,
+        RecordSizeEstimator.estimate(
+            new SinkRecord("t", 0, null, "key", null, Collections.singletonMap("n", 1L), 0)
+        )
+    );
+    assertEquals(
+        0L,
+        RecordSizeEstimator.estimate(new SinkRecord("t", 0, null, null, null, null, 0))
+    );
+  }
+}
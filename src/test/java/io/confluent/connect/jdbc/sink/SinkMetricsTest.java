@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import io.confluent.connect.jdbc.util.TableId;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SinkMetricsTest {
+
+  private final Metrics metrics = new Metrics();
+  private final Map<String, String> tags = Collections.singletonMap("connector", "test");
+  private final SinkMetrics sinkMetrics = new SinkMetrics(metrics, tags);
+
+  @After
+  public void tearDown() {
+    sinkMetrics.close();
+  }
+
+  @Test
+  public void recordsWritesAndLag() {
+    final long timestamp = System.currentTimeMillis() - 1000L;
+    sinkMetrics.recordWrite(
+        Arrays.asList(record(0, timestamp), record(1, timestamp)),
+        12.0,
+        2.0
+    );
+    sinkMetrics.recordWrite(Collections.singletonList(record(2, null)), 4.0, 1.0);
+
+    assertEquals(3.0, taskMetric("record-total"), 0.0);
+    assertEquals(2.0, taskMetric("write-size-max"), 0.0);
+    assertEquals(12.0, taskMetric("write-time-max"), 0.0);
+    assertEquals(1.5, taskMetric("commit-time-avg"), 0.0);
+    assertTrue(taskMetric("record-lag-max") >= 1000.0);
+  }
+
+  @Test
+  public void recordsPercentilesOfSubSecondLatenciesAndWriteSizes() {
+    for (int i = 0; i < 100; i++) {
+      final boolean slow = i >= 90;
+      sinkMetrics.recordWrite(
+          Collections.nCopies(slow ? 500 : 10, record(0, null)),
+          slow ? 200.0 : 5.0,
+          1.0
+      );
+    }
+
+    assertEquals(5.0, taskMetric("write-time-p50"), 1.0);
+    assertEquals(200.0, taskMetric("write-time-p99"), 5.0);
+    assertEquals(10.0, taskMetric("write-size-p50"), 1.0);
+    assertEquals(500.0, taskMetric("write-size-p99"), 10.0);
+  }
+
+  @Test
+  public void countsRetriesUnrollsAndReportedRecords() {
+    sinkMetrics.recordRetry();
+    sinkMetrics.recordRetry();
+    sinkMetrics.recordUnroll();
+    sinkMetrics.recordReported();
+
+    assertEquals(2.0, taskMetric("retry-total"), 0.0);
+    assertEquals(1.0, taskMetric("unroll-total"), 0.0);
+    assertEquals(1.0, taskMetric("reported-record-total"), 0.0);
+  }
+
+  @Test
+  public void recordsFlushesPerTable() {
+    final TableId books = new TableId(null, null, "books");
+    final TableId authors = new TableId(null, null, "authors");
+    sinkMetrics.table(books).recordFlush(10, 1000L, 10L, 8.0, 5.0);
+    sinkMetrics.table(books).recordFlush(4, 200L, 3L, 2.0, 1.0);
+    sinkMetrics.table(books).recordSchemaChangeFlush();
+    sinkMetrics.table(authors).recordFlush(1, 50L, 1L, 1.0, 1.0);
+
+    assertEquals(13.0, tableMetric(books, "rows-affected-total"), 0.0);
+    assertEquals(7.0, tableMetric(books, "flush-size-avg"), 0.0);
+    assertEquals(10.0, tableMetric(books, "flush-size-p99"), 1.0);
+    assertEquals(8.0, tableMetric(books, "flush-time-max"), 0.0);
+    assertEquals(600.0, tableMetric(books, "flush-bytes-avg"), 0.0);
+    assertEquals(1000.0, tableMetric(books, "flush-bytes-max"), 0.0);
+    assertEquals(3.0, tableMetric(books, "execute-time-avg"), 0.0);
+    assertEquals(1.0, tableMetric(books, "schema-change-flush-total"), 0.0);
+    assertEquals(1.0, tableMetric(authors, "rows-affected-total"), 0.0);
+    assertEquals(0.0, tableMetric(authors, "schema-change-flush-total"), 0.0);
+  }
+
+  @Test
+  public void removesTableMetrics() {
+    final TableId books = new TableId(null, null, "books");
+    final Map<String, String> tableTags = new HashMap<>(tags);
+    tableTags.put("table", books.toString());
+    sinkMetrics.table(books).recordFlush(10, 1000L, 10L, 8.0, 5.0);
+
+    sinkMetrics.removeTable(books);
+    assertNull(metrics.metric(
+        metrics.metricName("rows-affected-total", SinkMetrics.TABLE_GROUP, tableTags)
+    ));
+    assertNull(metrics.getSensor("table." + books + ".flush-time"));
+
+    // Written again after its metrics were removed
+    sinkMetrics.table(books).recordFlush(4, 200L, 3L, 2.0, 1.0);
+    assertEquals(3.0, tableMetric(books, "rows-affected-total"), 0.0);
+  }
+
+  @Test
+  public void takesTaskIdFromTaskThreadName() {
+    assertEquals(3, SinkMetrics.taskId("my-sink", "task-thread-my-sink-3"));
+    assertEquals(-1, SinkMetrics.taskId("my-sink", "task-thread-other-sink-3"));
+    assertEquals(-1, SinkMetrics.taskId("my-sink", "task-thread-my-sink-x"));
+    assertEquals(-1, SinkMetrics.taskId("my-sink", "main"));
+  }
+
+  @Test
+  public void reusesTaskNumbersOfClosedTasks() throws Exception {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    final SinkMetrics first = SinkMetrics.register("numbered");
+    final SinkMetrics second = SinkMetrics.register("numbered");
+    try {
+      assertTrue(server.isRegistered(taskMBean("numbered", 0)));
+      assertTrue(server.isRegistered(taskMBean("numbered", 1)));
+
+      first.close();
+      assertFalse(server.isRegistered(taskMBean("numbered", 0)));
+      // A restarted task is tagged like the task it replaces
+      try (SinkMetrics restarted = SinkMetrics.register("numbered")) {
+        assertTrue(server.isRegistered(taskMBean("numbered", 0)));
+      }
+    } finally {
+      second.close();
+    }
+  }
+
+  private static ObjectName taskMBean(String connector, int task) throws Exception {
+    return new ObjectName(String.format(
+        "%s:type=%s,connector=%s,task=%d",
+        SinkMetrics.JMX_PREFIX,
+        SinkMetrics.TASK_GROUP,
+        connector,
+        task
+    ));
+  }
+
+  private SinkRecord record(long offset, Long timestamp) {
+    return new SinkRecord(
+        "topic",
+        0,
+        null,
+        null,
+        Schema.INT64_SCHEMA,
+        offset,
+        offset,
+        timestamp,
+        TimestampType.CREATE_TIME
+    );
+  }
+
+  private double taskMetric(String name) {
+    return value(metrics.metricName(name, SinkMetrics.TASK_GROUP, tags));
+  }
+
+  private double tableMetric(TableId tableId, String name) {
+    final Map<String, String> tableTags = new HashMap<>(tags);
+    tableTags.put("table", tableId.toString());
+    return value(metrics.metricName(name, SinkMetrics.TABLE_GROUP, tableTags));
+  }
+
+  private double value(MetricName name) {
+    return (Double) metrics.metric(name).metricValue();
+  }
+}
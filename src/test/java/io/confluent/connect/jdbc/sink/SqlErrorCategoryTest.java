@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.junit.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SqlErrorCategoryTest {
+
+  @Test
+  public void classifiesBySqlState() {
+    assertEquals(SqlErrorCategory.DEADLOCK, classify("40P01", 0));
+    assertEquals(SqlErrorCategory.DEADLOCK, classify("40001", 1213));
+    assertEquals(SqlErrorCategory.DEADLOCK, classify("40001", 1205));
+    assertEquals(SqlErrorCategory.DEADLOCK, classify("61000", 60));
+    assertEquals(SqlErrorCategory.SERIALIZATION, classify("40001", 0));
+    assertEquals(SqlErrorCategory.CONNECTION, classify("08006", 0));
+    assertEquals(SqlErrorCategory.CONSTRAINT, classify("23505", 0));
+    assertEquals(SqlErrorCategory.OTHER, classify("42P01", 0));
+    assertEquals(SqlErrorCategory.OTHER, classify(null, 0));
+  }
+
+  @Test
+  public void classifiesConnectionExceptionsWithoutSqlState() {
+    assertEquals(
+        SqlErrorCategory.CONNECTION,
+        SqlErrorCategory.of(new SQLRecoverableException("connection reset"))
+    );
+  }
+
+  @Test
+  public void classifiesTheChainedException() {
+    // Batches report the error of the failed statement as the next exception
+    final SQLException batchFailure = new BatchUpdateException("batch failed", new int[0]);
+    batchFailure.setNextException(new SQLException("deadlock detected", "40P01"));
+    assertEquals(SqlErrorCategory.DEADLOCK, SqlErrorCategory.of(batchFailure));
+  }
+
+  @Test
+  public void retriesTransientErrorsInProcess() {
+    assertTrue(SqlErrorCategory.DEADLOCK.isRetriedInProcess());
+    assertTrue(SqlErrorCategory.SERIALIZATION.isRetriedInProcess());
+    assertTrue(SqlErrorCategory.CONNECTION.isRetriedInProcess());
+    assertFalse(SqlErrorCategory.CONSTRAINT.isRetriedInProcess());
+    assertFalse(SqlErrorCategory.OTHER.isRetriedInProcess());
+  }
+
+  private static SqlErrorCategory classify(String sqlState, int errorCode) {
+    return SqlErrorCategory.of(new SQLException("failed", sqlState, errorCode));
+  }
+}
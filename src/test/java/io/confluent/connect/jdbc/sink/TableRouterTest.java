@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.util.Date;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.util.TableId;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TableRouterTest {
+
+  private static final Schema VALUE_SCHEMA = SchemaBuilder.struct()
+      .field("region", Schema.OPTIONAL_STRING_SCHEMA)
+      .build();
+
+  private DatabaseDialect dialect;
+
+  @Before
+  public void setUp() {
+    dialect = mock(DatabaseDialect.class);
+    when(dialect.parseTableIdentifier(anyString())).thenAnswer(
+        invocation -> new TableId(null, null, (String) invocation.getArguments()[0])
+    );
+  }
+
+  @Test
+  public void resolvesEachTopicOnce() {
+    final TableRouter router = new TableRouter("kafka_${topic}", dialect);
+
+    final TableId orders = router.route(record("orders", 0, "eu"));
+    assertEquals(new TableId(null, null, "kafka_orders"), orders);
+    assertSame(orders, router.route(record("orders", 1, "us")));
+    assertEquals(new TableId(null, null, "kafka_items"), router.route(record("items", 0, "eu")));
+
+    verify(dialect, times(1)).parseTableIdentifier("kafka_orders");
+    verify(dialect, times(1)).parseTableIdentifier("kafka_items");
+  }
+
+  @Test
+  public void resolvesPartitionAndFieldTokens() {
+    final TableRouter router =
+        new TableRouter("${topic}_${partition}_${value.region}_${other}", dialect);
+
+    assertEquals(
+        new TableId(null, null, "orders_1_eu_${other}"),
+        router.route(record("orders", 1, "eu"))
+    );
+    router.route(record("orders", 1, "eu"));
+    assertEquals(
+        new TableId(null, null, "orders_1_us_${other}"),
+        router.route(record("orders", 1, "us"))
+    );
+
+    verify(dialect, times(1)).parseTableIdentifier("orders_1_eu_${other}");
+  }
+
+  @Test
+  public void resolvesTimeTokens() {
+    final Schema valueSchema = SchemaBuilder.struct()
+        .field("created", Timestamp.SCHEMA)
+        .build();
+    final TableRouter router = new TableRouter(
+        "${topic}_${timestamp:yyyyMMdd}_${value.created:HH}",
+        dialect,
+        ZoneId.of("Europe/Paris")
+    );
+    // 2024-01-01T23:30:00Z, which is already the next day in Paris
+    final long time = 1704151800000L;
+    final SinkRecord record = new SinkRecord("orders", 0, null, null, valueSchema,
+        new Struct(valueSchema).put("created", new Date(time - 3600000L)), 0, time,
+        TimestampType.CREATE_TIME);
+
+    assertTrue(router.routesByTime());
+    assertEquals(new TableId(null, null, "orders_20240102_23"), router.route(record));
+    assertEquals(
+        new TableId(null, null, "orders_20240102_01"),
+        router.routeAhead(record, 7200000L)
+    );
+  }
+
+  @Test
+  public void routesAheadToSameTableWithoutTimeTokens() {
+    final TableRouter router = new TableRouter("${topic}_${value.region}", dialect);
+
+    assertFalse(router.routesByTime());
+    assertEquals(
+        new TableId(null, null, "orders_eu"),
+        router.routeAhead(record("orders", 0, "eu"), 86400000L)
+    );
+  }
+
+  @Test(expected = ConfigException.class)
+  public void failsOnInvalidTimePattern() {
+    new TableRouter("${topic}_${timestamp:yyyyMMddQQQQQQ}", dialect);
+  }
+
+  @Test(expected = ConnectException.class)
+  public void failsOnMissingTimestamp() {
+    new TableRouter("${topic}_${timestamp:yyyyMMdd}", dialect).route(record("orders", 0, "eu"));
+  }
+
+  @Test(expected = ConnectException.class)
+  public void failsOnNullRoutingField() {
+    new TableRouter("${topic}_${value.region}", dialect).route(record("orders", 0, null));
+  }
+
+  @Test(expected = ConnectException.class)
+  public void failsOnMissingRoutingField() {
+    new TableRouter("${topic}_${key.region}", dialect).route(record("orders", 0, "eu"));
+  }
+
+  private SinkRecord record(String topic, int partition, String region) {
+    final Struct value = new Struct(VALUE_SCHEMA).put("region", region);
+    return new SinkRecord(topic, partition, Schema.INT64_SCHEMA, 1L, VALUE_SCHEMA, value, 0);
+  }
+}
@@ -287,6 +287,45 @@ public class PostgresDatatypeIT extends BaseConnectorIT {
     }
   }
 
+  @Test
+  public void testWriteWithCopy() throws SQLException, InterruptedException {
+    createTableWithIntArrayColumns();
+    props.put(JdbcSinkConfig.INSERT_BULK_ENABLED, "true");
+    connect.configureConnector("jdbc-sink-connector", props);
+    waitForConnectorToStart("jdbc-sink-connector", 1);
+
+    final Schema schema = SchemaBuilder.struct().name("com.example.Person")
+        .field("firstname", Schema.STRING_SCHEMA)
+        .field("lastname", Schema.OPTIONAL_STRING_SCHEMA)
+        .field("jsonid", Schema.STRING_SCHEMA)
+        .field("friends", SchemaBuilder.array(Schema.INT32_SCHEMA).build())
+        .field("friendnames", SchemaBuilder.array(Schema.STRING_SCHEMA).build())
+        .build();
+
+    final Struct struct = new Struct(schema)
+        .put("firstname", "Christina\tO'Brien")
+        .put("lastname", null)
+        .put("jsonid", "{\"id\": \"5\\n\"}")
+        .put("friends", Arrays.asList(10, 6221))
+        .put("friendnames", Arrays.asList("Lucas, \"Luke\"", "Tom"));
+    produceRecord(schema, struct);
+
+    waitForCommittedRecords("jdbc-sink-connector", Collections.singleton(tableName), 1, 1,
+        TimeUnit.MINUTES.toMillis(2));
+    try (Connection c = pg.getEmbeddedPostgres().getPostgresDatabase().getConnection()) {
+      try (Statement s = c.createStatement()) {
+        try (ResultSet rs = s.executeQuery("SELECT * FROM " + tableName)) {
+          assertTrue(rs.next());
+          assertEquals(struct.getString("firstname"), rs.getString("firstname"));
+          assertEquals(null, rs.getString("lastname"));
+          assertEquals(struct.getString("jsonid"), rs.getString("jsonid"));
+          assertJDBCArray(rs, "friends", struct);
+          assertJDBCArray(rs, "friendnames", struct);
+        }
+      }
+    }
+  }
+
   private void assertJDBCArray(ResultSet rs, String fieldName, Struct struct) throws SQLException {
     Array array = rs.getArray(fieldName);
     assertNotNull(array);
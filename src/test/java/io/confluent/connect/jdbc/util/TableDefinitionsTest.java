@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.UUID;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.source.MockTime;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TableDefinitionsTest {
+
+  private final TableId tableA = new TableId(null, null, "a");
+  private final TableId tableB = new TableId(null, null, "b");
+  private final TableDefinition definitionA =
+      new TableDefinition(tableA, Collections.emptyList());
+  private final TableDefinition definitionB =
+      new TableDefinition(tableB, Collections.emptyList());
+  private final Connection connection = mock(Connection.class);
+  private final MockTime time = new MockTime();
+  private DatabaseDialect dialect;
+
+  @Before
+  public void setUp() throws SQLException {
+    dialect = mock(DatabaseDialect.class);
+    when(dialect.tableExists(connection, tableA)).thenReturn(true);
+    when(dialect.describeTable(connection, tableA)).thenReturn(definitionA);
+    when(dialect.tableExists(connection, tableB)).thenReturn(true);
+    when(dialect.describeTable(connection, tableB)).thenReturn(definitionB);
+  }
+
+  @Test
+  public void cachesDefinitionsUntilTheyExpire() throws SQLException {
+    final TableDefinitions definitions =
+        new TableDefinitions(dialect, null, 10, 1000L, 0L, time);
+
+    assertSame(definitionA, definitions.get(connection, tableA));
+    time.sleep(999L);
+    assertSame(definitionA, definitions.get(connection, tableA));
+    verify(dialect, times(1)).describeTable(connection, tableA);
+
+    time.sleep(1L);
+    assertSame(definitionA, definitions.get(connection, tableA));
+    verify(dialect, times(2)).describeTable(connection, tableA);
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedDefinitions() throws SQLException {
+    final TableDefinitions definitions = new TableDefinitions(dialect, null, 1, 0L, 0L, time);
+
+    definitions.get(connection, tableA);
+    definitions.get(connection, tableB);
+    definitions.get(connection, tableA);
+
+    verify(dialect, times(2)).describeTable(connection, tableA);
+    verify(dialect, times(1)).describeTable(connection, tableB);
+  }
+
+  @Test
+  public void cachesMissingTablesOnlyWhenConfigured() throws SQLException {
+    when(dialect.tableExists(connection, tableA)).thenReturn(false);
+
+    final TableDefinitions uncached = new TableDefinitions(dialect);
+    assertNull(uncached.get(connection, tableA));
+    assertNull(uncached.get(connection, tableA));
+    verify(dialect, times(2)).tableExists(connection, tableA);
+
+    final TableDefinitions cached = new TableDefinitions(dialect, null, 10, 0L, 500L, time);
+    assertNull(cached.get(connection, tableA));
+    assertNull(cached.get(connection, tableA));
+    verify(dialect, times(3)).tableExists(connection, tableA);
+
+    time.sleep(500L);
+    assertNull(cached.get(connection, tableA));
+    verify(dialect, times(4)).tableExists(connection, tableA);
+  }
+
+  @Test
+  public void invalidateForgetsDefinition() throws SQLException {
+    final TableDefinitions definitions = new TableDefinitions(dialect);
+
+    definitions.get(connection, tableA);
+    definitions.invalidate(tableA);
+    definitions.get(connection, tableA);
+
+    verify(dialect, times(2)).describeTable(connection, tableA);
+  }
+
+  @Test
+  public void sharesDefinitionsWithinScope() throws SQLException {
+    final String scope = UUID.randomUUID().toString();
+    final DatabaseDialect otherDialect = mock(DatabaseDialect.class);
+
+    new TableDefinitions(dialect, scope, 10, 0L, 0L, time).get(connection, tableA);
+    final TableDefinitions shared = new TableDefinitions(otherDialect, scope, 10, 0L, 0L, time);
+
+    assertSame(definitionA, shared.get(connection, tableA));
+    verify(otherDialect, times(0)).describeTable(connection, tableA);
+
+    final TableDefinitions unshared =
+        new TableDefinitions(otherDialect, null, 10, 0L, 0L, time);
+    assertNull(unshared.get(connection, tableA));
+  }
+}